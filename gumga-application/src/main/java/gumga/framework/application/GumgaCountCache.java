@@ -0,0 +1,133 @@
+package gumga.framework.application;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache em memória dos counts das pesquisas com
+ * {@link gumga.framework.core.CountStrategy#CACHED}. As entradas são agrupadas
+ * por entidade e chaveadas pela organização e pela forma normalizada da
+ * pesquisa. Qualquer escrita na entidade através do repositório invalida todas
+ * as entradas dela; o tempo de vida limita a defasagem causada por escritas
+ * feitas fora do framework ou em outros nós.
+ *
+ * @author Equipe Gumga
+ */
+public final class GumgaCountCache {
+
+    private static final Map<Class<?>, Map<String, Entry>> cache = new ConcurrentHashMap<>();
+
+    private static volatile long timeToLive = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile int maxEntriesPerEntity = 1000;
+
+    private GumgaCountCache() {
+    }
+
+    /**
+     * @param entity entidade pesquisada
+     * @param key organização e pesquisa normalizada
+     * @return o count armazenado ou null se não houver ou estiver expirado
+     */
+    public static Long get(Class<?> entity, String key) {
+        Map<String, Entry> entries = cache.get(entity);
+        if (entries == null) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.created > timeToLive) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.count;
+    }
+
+    public static void put(Class<?> entity, String key, long count) {
+        Map<String, Entry> entries = cache.computeIfAbsent(entity, k -> new ConcurrentHashMap<>());
+        if (entries.size() >= maxEntriesPerEntity) {
+            entries.clear();
+        }
+        entries.put(key, new Entry(count));
+    }
+
+    /**
+     * Descarta todos os counts armazenados da entidade, novamente após o
+     * término da transação para que um count concorrente feito antes do commit
+     * não fique armazenado.
+     *
+     * @param entity entidade alterada
+     */
+    public static void invalidate(Class<?> entity) {
+        cache.remove(entity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Invalidation invalidation = new Invalidation(entity);
+            if (!TransactionSynchronizationManager.getSynchronizations().contains(invalidation)) {
+                TransactionSynchronizationManager.registerSynchronization(invalidation);
+            }
+        }
+    }
+
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    public static long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive tempo de vida de cada count em milisegundos
+     */
+    public static void setTimeToLive(long timeToLive) {
+        GumgaCountCache.timeToLive = timeToLive;
+    }
+
+    public static int getMaxEntriesPerEntity() {
+        return maxEntriesPerEntity;
+    }
+
+    public static void setMaxEntriesPerEntity(int maxEntriesPerEntity) {
+        GumgaCountCache.maxEntriesPerEntity = maxEntriesPerEntity;
+    }
+
+    private static final class Invalidation extends TransactionSynchronizationAdapter {
+
+        private final Class<?> entity;
+
+        private Invalidation(Class<?> entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            cache.remove(entity);
+        }
+
+        @Override
+        public int hashCode() {
+            return entity.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Invalidation && ((Invalidation) obj).entity.equals(entity);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long count;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(long count) {
+            this.count = count;
+        }
+    }
+
+}
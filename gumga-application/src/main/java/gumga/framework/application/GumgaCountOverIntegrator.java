@@ -0,0 +1,90 @@
+package gumga.framework.application;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.type.LongType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registra a função HQL {@link GumgaPagedCount#COUNT_OVER}, que gera
+ * <code>count(*) over()</code>, quando o banco suporta funções de janela
+ * (PostgreSQL 8.4, Oracle e H2 1.4.198 em diante). A versão é lida da conexão
+ * na criação da SessionFactory; nos demais bancos a função não é registrada e
+ * as pesquisas continuam executando o count separado. Carregado pelo Hibernate
+ * através de META-INF/services.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaCountOverIntegrator implements Integrator {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaCountOverIntegrator.class);
+
+    @Override
+    public void integrate(Configuration configuration, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        ConnectionProvider connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+        if (connectionProvider == null) {
+            return;
+        }
+        try {
+            Connection connection = connectionProvider.getConnection();
+            try {
+                DatabaseMetaData metaData = connection.getMetaData();
+                if (supportsCountOver(metaData.getDatabaseProductName(), metaData.getDatabaseProductVersion(),
+                        metaData.getDatabaseMajorVersion(), metaData.getDatabaseMinorVersion())) {
+                    //A SessionFactory ainda não está em uso, o mapa do dialeto pode ser alterado
+                    sessionFactory.getDialect().getFunctions().put(GumgaPagedCount.COUNT_OVER, new SQLFunctionTemplate(LongType.INSTANCE, "count(*) over()"));
+                }
+            } finally {
+                connectionProvider.closeConnection(connection);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Nao foi possivel verificar o suporte a funcoes de janela, o total das pesquisas sera obtido com count", ex);
+        }
+    }
+
+    @Override
+    public void integrate(MetadataImplementor metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * @param product nome do banco
+     * @param version versão completa informada pelo driver
+     * @param major versão principal
+     * @param minor versão secundária
+     * @return se o banco executa count(*) over()
+     */
+    static boolean supportsCountOver(String product, String version, int major, int minor) {
+        if (product == null) {
+            return false;
+        }
+        if (product.startsWith("PostgreSQL")) {
+            return major > 8 || (major == 8 && minor >= 4);
+        }
+        if (product.startsWith("Oracle")) {
+            return true;
+        }
+        if (product.startsWith("H2") && version != null) {
+            String[] parts = version.trim().split("[^0-9]+");
+            if (parts.length < 3 || parts[0].isEmpty()) {
+                return false;
+            }
+            int build = Integer.parseInt(parts[2]);
+            return major > 1 || (major == 1 && (minor > 4 || (minor == 4 && build >= 198)));
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,45 @@
+package gumga.framework.application;
+
+import gumga.framework.core.SearchResult;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Página da pesquisa textual em várias entidades, ordenada pela relevância,
+ * com a quantidade de ocorrências de cada entidade.
+ *
+ * @author Equipe Gumga
+ * @param <T> tipo de cada elemento
+ */
+public class GumgaFullTextResult<T> extends SearchResult<T> {
+
+    private final List<Float> scores;
+    private final Map<String, Long> facets;
+
+    public GumgaFullTextResult(int start, int pageSize, long count, List<T> values, List<Float> scores, Map<String, Long> facets) {
+        super(start, pageSize, count, values);
+        this.scores = scores;
+        this.facets = facets;
+    }
+
+    /**
+     * @return relevância de cada elemento, na mesma ordem de getValues()
+     */
+    public List<Float> getScores() {
+        return scores;
+    }
+
+    /**
+     * @return quantidade de ocorrências por nome da entidade
+     */
+    public Map<String, Long> getFacets() {
+        return facets;
+    }
+
+    public <R> GumgaFullTextResult<R> mapValues(Function<? super T, R> mapper) {
+        return new GumgaFullTextResult<>(getStart(), getPageSize(), getCount(), getValues().stream().map(mapper).collect(Collectors.toList()), scores, facets);
+    }
+
+}
@@ -2,36 +2,82 @@ package gumga.framework.application;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import gumga.framework.core.CountStrategy;
+import gumga.framework.application.GumgaQueryStatistics.Phase;
 import gumga.framework.core.GumgaThreadScope;
+import gumga.framework.core.QueryCursor;
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.QueryObjectElement;
 import gumga.framework.core.SearchResult;
 import gumga.framework.domain.*;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaFileStreamHandler;
 import gumga.framework.domain.repository.GumgaCrudRepository;
 import gumga.framework.domain.repository.GumgaMultitenancyUtil;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.HibernateException;
+import org.hibernate.NullPrecedence;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
 import static org.hibernate.criterion.Order.asc;
 import static org.hibernate.criterion.Order.desc;
+import org.hibernate.criterion.Projections;
 import static org.hibernate.criterion.Projections.rowCount;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.SimpleExpression;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import static org.hibernate.criterion.Restrictions.and;
 import static org.hibernate.criterion.Restrictions.like;
 import static org.hibernate.criterion.Restrictions.or;
-import org.hibernate.envers.AuditReader;
 import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.query.AuditEntity;
+import org.hibernate.envers.query.AuditQuery;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -48,6 +94,11 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
     protected final EntityManager entityManager;
     private static final Logger log = LoggerFactory.getLogger(GumgaGenericRepository.class);
 
+    /**
+     * Máximo de parâmetros em uma cláusula IN, limite do Oracle.
+     */
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
     public GumgaGenericRepository(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
         super(entityInformation, entityManager);
         this.entityManager = entityManager;
@@ -60,38 +111,368 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             return advancedSearch(query);
         }
 
-        Long count = count(query);
-        List<T> data = query.isCountOnly() ? Collections.emptyList() : getOrdered(query);
+        String shape = queryShape(query);
+        Supplier<Long> exactCount = () -> measure(shape, Phase.COUNT, () -> count(getPesquisa(session(), query)));
+        List<T> data;
+        if (query.isCountOnly()) {
+            data = Collections.emptyList();
+        } else if (!countsWithPage(query)) {
+            data = measure(shape, Phase.PAGE, () -> getOrdered(query));
+        } else if (!query.isKeyset() && GumgaPagedCount.supportsWindow(entityManager)) {
+            List<Object[]> rows = measure(shape, Phase.PAGE, () -> getOrderedWithTotal(query));
+            data = pageOf(rows);
+            exactCount = windowTotal(query, rows, exactCount);
+        } else if (GumgaPagedCount.canCountInParallel()) {
+            GumgaPagedCount.Pending<Long> pending = GumgaPagedCount.inParallel(entityManager.getEntityManagerFactory(), other -> {
+                Pesquisa<T> pesquisa = getPesquisa(other.unwrap(Session.class), query);
+                return () -> measure(shape, Phase.COUNT, () -> count(pesquisa));
+            }, exactCount);
+            data = measure(shape, Phase.PAGE, () -> getOrdered(query));
+            exactCount = pending::get;
+        } else {
+            data = measure(shape, Phase.PAGE, () -> getOrdered(query));
+        }
+        Total total = total(query, data, exactCount);
+
+        return new SearchResult<>(query, total.value, data, nextCursor(query, data), total.exact);
+    }
+
+    /**
+     * Indica se a pesquisa vai precisar do count exato, que então pode ser
+     * obtido junto com a página ou em paralelo a ela.
+     */
+    private boolean countsWithPage(QueryObject query) {
+        switch (query.getCountStrategy()) {
+            case EXACT:
+                return true;
+            case ESTIMATED:
+                if (canEstimate(query)) {
+                    return false;
+                }
+            case CACHED:
+                return GumgaCountCache.get(getDomainClass(), countKey(query)) == null;
+            case NONE:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Registros da página, sem o total da função de janela.
+     */
+    private <R> List<R> pageOf(List<Object[]> rows) {
+        List<R> toReturn = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            toReturn.add((R) row[0]);
+        }
+        return toReturn;
+    }
+
+    /**
+     * Total da função de janela, presente em todas as linhas. Uma página vazia
+     * além da primeira não traz o total, que então é contado.
+     */
+    private Supplier<Long> windowTotal(QueryObject query, List<Object[]> rows, Supplier<Long> exactCount) {
+        if (!rows.isEmpty()) {
+            long total = ((Number) rows.get(0)[1]).longValue();
+            return () -> total;
+        }
+        return query.getStart() == 0 ? () -> 0L : exactCount;
+    }
+
+    /**
+     * Obtém o total de registros conforme a {@link CountStrategy} da pesquisa.
+     */
+    private Total total(QueryObject query, List<?> data, Supplier<Long> exactCount) {
+        switch (query.getCountStrategy()) {
+            case NONE:
+                boolean lastPage = !query.isKeyset() && !query.isCountOnly() && data.size() < query.getPageSize();
+                return new Total(query.getStart() + data.size(), lastPage);
+            case ESTIMATED:
+                if (canEstimate(query)) {
+                    Long estimate = estimatedRowCount();
+                    if (estimate != null) {
+                        return new Total(estimate, false);
+                    }
+                }
+            //Pesquisa com filtros não pode usar as estatísticas da tabela, continua como CACHED
+            case CACHED:
+                String key = countKey(query);
+                Long cached = GumgaCountCache.get(getDomainClass(), key);
+                if (cached != null) {
+                    return new Total(cached, false);
+                }
+                Long counted = exactCount.get();
+                GumgaCountCache.put(getDomainClass(), key, counted);
+                return new Total(counted, true);
+            case EXACT:
+            default:
+                return new Total(exactCount.get(), true);
+        }
+    }
+
+    /**
+     * Pesquisa sem filtros, cujo total pode vir das estatísticas do banco.
+     */
+    private boolean canEstimate(QueryObject query) {
+        return !query.isAdvanced() && !query.isValid() && !(hasMultitenancy() && GumgaThreadScope.organizationCode.get() != null);
+    }
+
+    /**
+     * Forma da pesquisa em {@link GumgaQueryStatistics}, sem os valores
+     * pesquisados.
+     */
+    private String queryShape(QueryObject query) {
+        StringBuilder shape = new StringBuilder();
+        if (query.isAdvanced()) {
+            shape.append("aq|").append(GumgaQueryStatistics.normalize(query.getAq()));
+        } else {
+            shape.append("q|").append(query.getSearchFields() == null ? "" : String.join(",", query.getSearchFields()));
+            if (query.isPhonetic()) {
+                shape.append("|phonetic");
+            }
+        }
+        if (!query.getSortField().isEmpty()) {
+            shape.append("|sort=").append(query.getSortField()).append(' ').append(query.getSortDir());
+        }
+        if (query.isKeyset()) {
+            shape.append("|keyset");
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Executa a consulta registrando o tempo e o número de registros em
+     * {@link GumgaQueryStatistics}, inclusive quando ela falha.
+     */
+    protected <R> R measure(String shape, Phase phase, Supplier<R> query) {
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = query.get();
+        } catch (RuntimeException | Error ex) {
+            GumgaQueryStatistics.recordFailure(getDomainClass(), shape, phase, System.nanoTime() - start, ex);
+            throw ex;
+        }
+        long rows = result instanceof Collection ? ((Collection) result).size() : 1;
+        GumgaQueryStatistics.record(getDomainClass(), shape, phase, System.nanoTime() - start, rows);
+        return result;
+    }
+
+    private String countKey(QueryObject query) {
+        String tenant = hasMultitenancy() ? getMultitenancyPattern() : "";
+        if (query.isAdvanced()) {
+            return tenant + "|aq|" + query.getAq();
+        }
+        String fields = query.getSearchFields() == null ? "" : String.join(",", query.getSearchFields());
+        return tenant + "|q|" + query.getQ().toUpperCase() + "|" + fields + "|" + query.isPhonetic();
+    }
+
+    /**
+     * Lê o número aproximado de linhas da tabela das estatísticas do banco.
+     *
+     * @return a estimativa ou null se o banco não for suportado ou não tiver
+     * estatísticas para a tabela
+     */
+    private Long estimatedRowCount() {
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) session().getSessionFactory();
+        ClassMetadata metadata = factory.getClassMetadata(getDomainClass());
+        if (!(metadata instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        String table = ((AbstractEntityPersister) metadata).getTableName();
+        table = table.substring(table.lastIndexOf('.') + 1);
+
+        Dialect dialect = factory.getDialect();
+        String sql;
+        if (dialect instanceof PostgreSQL81Dialect) {
+            sql = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relkind = 'r' AND relname = :table";
+            table = table.toLowerCase();
+        } else if (dialect instanceof MySQLDialect) {
+            sql = "SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = :table";
+        } else if (dialect instanceof Oracle8iDialect) {
+            sql = "SELECT num_rows FROM user_tables WHERE table_name = :table";
+            table = table.toUpperCase();
+        } else if (dialect instanceof H2Dialect) {
+            sql = "SELECT row_count_estimate FROM information_schema.tables WHERE table_name = :table";
+            table = table.toUpperCase();
+        } else {
+            return null;
+        }
 
-        return new SearchResult<>(query, count, data);
+        try {
+            Object estimate = session().createSQLQuery(sql).setParameter("table", table).setMaxResults(1).uniqueResult();
+            if (estimate == null || ((Number) estimate).longValue() <= 0) {
+                return null;
+            }
+            return ((Number) estimate).longValue();
+        } catch (HibernateException ex) {
+            log.warn("Nao foi possivel obter a estimativa de linhas de " + table, ex);
+            return null;
+        }
+    }
+
+    private static final class Total {
+
+        private final long value;
+        private final boolean exact;
+
+        private Total(long value, boolean exact) {
+            this.value = value;
+            this.exact = exact;
+        }
     }
 
     private List<T> getOrdered(QueryObject query) {
-        Pesquisa<T> pesquisa = getPesquisa(query);
+        Pesquisa<T> pesquisa = getPesquisa(session(), query);
+        addOrder(pesquisa, query);
+
+        if (query.isKeyset()) {
+            pesquisa.add(keysetCriterion(decodeCursor(query)));
+        } else {
+            pesquisa.setFirstResult(query.getStart());
+        }
+
+        return pesquisa.setMaxResults(query.getPageSize()).list();
+    }
+
+    /**
+     * Página com o total em cada linha, [registro, total]. Uma Criteria não
+     * seleciona a entidade junto com um valor escalar, então a consulta traz
+     * os ids da página e o total e as entidades são carregadas pela chave
+     * primária, sem reavaliar os filtros.
+     */
+    private List<Object[]> getOrderedWithTotal(QueryObject query) {
+        Pesquisa<T> pesquisa = getPesquisa(session(), query);
+        addOrder(pesquisa, query);
+        List<Object[]> ids = pesquisa.setProjection(Projections.projectionList()
+                .add(Projections.id())
+                .add(Projections.sqlProjection("count(*) over() as gumga_total", new String[]{"gumga_total"}, new Type[]{LongType.INSTANCE})))
+                .setFirstResult(query.getStart())
+                .setMaxResults(query.getPageSize())
+                .list();
+
+        List<Object> pageIds = new ArrayList<>(ids.size());
+        for (Object[] row : ids) {
+            pageIds.add(row[0]);
+        }
+        Map<Object, Object> found = genericFindAll(getDomainClass(), pageIds);
+        List<Object[]> toReturn = new ArrayList<>(ids.size());
+        List<Object> dropped = new ArrayList<>();
+        for (Object[] row : ids) {
+            Object entity = found.get(row[0]);
+            if (entity != null) {
+                toReturn.add(new Object[]{entity, row[1]});
+            } else {
+                dropped.add(row[0]);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            //Removidos entre as duas consultas ou recusados por checkOwnership, a página fica menor que o total
+            log.warn(String.format("Registros da pagina de %s nao carregados, ids %s - organizacao[%s] operacao[%s]", getDomainClass().getSimpleName(),
+                    dropped, GumgaThreadScope.organizationCode.get(), GumgaThreadScope.operationKey.get()));
+        }
+        return toReturn;
+    }
+
+    private void addOrder(Pesquisa<T> pesquisa, QueryObject query) {
         String sortField = query.getSortField();
         String sortType = query.getSortDir();
 
         if (!sortField.isEmpty()) {
             createAliasIfNecessary(pesquisa, sortField);
-            pesquisa.addOrder("asc".equals(sortType) ? asc(sortField).ignoreCase() : desc(sortField).ignoreCase());
+            Order order = ("asc".equals(sortType) ? asc(sortField) : desc(sortField)).ignoreCase();
+            if (query.isCursorPaging()) {
+                //Os nulos ficam no fim em todos os bancos, como espera o predicado do cursor
+                order = order.nulls(NullPrecedence.LAST);
+            }
+            pesquisa.addOrder(order);
         }
         pesquisa.addOrder(asc("id")); //GUMGA-478
+    }
 
-        return pesquisa.setFirstResult(query.getStart()).setMaxResults(query.getPageSize()).list();
+    /**
+     * Predicado da paginação por chave: registros posteriores ao apontado pelo
+     * cursor na ordenação (sortField nulos por último, id).
+     */
+    private Criterion keysetCriterion(QueryCursor cursor) {
+        Criterion afterId = Restrictions.gt("id", cursor.getId());
+        if (cursor.getSortField().isEmpty()) {
+            return afterId;
+        }
+
+        String sortField = cursor.getSortField();
+        Object sortValue = cursor.getSortValue();
+        if (sortValue == null) {
+            return and(Restrictions.isNull(sortField), afterId);
+        }
+        SimpleExpression beyond = cursor.isAscending() ? Restrictions.gt(sortField, sortValue) : Restrictions.lt(sortField, sortValue);
+        SimpleExpression same = Restrictions.eq(sortField, sortValue);
+        if (sortValue instanceof String) {
+            beyond = beyond.ignoreCase();
+            same = same.ignoreCase();
+        }
+        return or(beyond, and(same, afterId), Restrictions.isNull(sortField));
+    }
+
+    private String keysetHql(QueryCursor cursor) {
+        if (cursor.getSortField().isEmpty()) {
+            return " AND obj.id > :gumgaAfterId";
+        }
+        if (cursor.getSortValue() == null) {
+            return String.format(" AND (%s IS NULL AND obj.id > :gumgaAfterId)", cursor.getSortField());
+        }
+        return String.format(" AND (%1$s %2$s :gumgaAfterValue OR (%1$s = :gumgaAfterValue AND obj.id > :gumgaAfterId) OR %1$s IS NULL)",
+                cursor.getSortField(), cursor.isAscending() ? ">" : "<");
+    }
+
+    private QueryCursor decodeCursor(QueryObject query) {
+        QueryCursor cursor = QueryCursor.decode(query.getAfter());
+        if (!cursor.matches(query)) {
+            throw new IllegalArgumentException("O cursor informado não corresponde à ordenação da pesquisa.");
+        }
+        return cursor;
     }
 
-    private Long count(QueryObject query) {
-        Object uniqueResult = getPesquisa(query).setProjection(rowCount()).uniqueResult();
+    /**
+     * Gera o cursor para a próxima página a partir do último registro, somente
+     * quando a página veio completa. Um cursor nulo indica sempre o fim dos
+     * dados; a paginação por cursor com um atributo de ordenação que não pode
+     * ser codificado é rejeitada.
+     */
+    private String nextCursor(QueryObject query, List<?> data) {
+        if (!query.isCursorPaging() || data.isEmpty() || data.size() < query.getPageSize()) {
+            return null;
+        }
+        T last = (T) data.get(data.size() - 1);
+        Object sortValue = null;
+        QueryCursor cursor = null;
+        String sortField = query.getSortField();
+        String property = sortField.startsWith("obj.") ? sortField.substring("obj.".length()) : sortField;
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(last);
+        if (sortField.isEmpty() || wrapper.isReadableProperty(property)) {
+            sortValue = sortField.isEmpty() ? null : wrapper.getPropertyValue(property);
+            cursor = QueryCursor.of(query, sortValue, entityInformation.getId(last));
+        }
+        if (cursor == null && query.isKeyset()) {
+            throw new IllegalArgumentException("A paginação por cursor não suporta a ordenação por " + sortField
+                    + (sortValue == null ? "" : " do tipo " + sortValue.getClass().getSimpleName()) + ".");
+        }
+        return cursor == null ? null : cursor.encode();
+    }
+
+    private Long count(Pesquisa<T> pesquisa) {
+        Object uniqueResult = pesquisa.setProjection(rowCount()).uniqueResult();
         return uniqueResult == null ? 0L : ((Number) uniqueResult).longValue();
     }
 
-    private Pesquisa<T> getPesquisa(QueryObject query) {
+    private Pesquisa<T> getPesquisa(Session session, QueryObject query) {
         if (query.getSearchFields() != null && query.getSearchFields().length == 0) {
             throw new IllegalArgumentException("Para realizar a search deve se informar pelo menos um campo a ser pesquisado.");
         }
 
         Criterion[] fieldsCriterions = new HibernateQueryObject(query).getCriterions(entityInformation.getJavaType());
-        Pesquisa<T> pesquisa = search().add(or(fieldsCriterions));
+        Pesquisa<T> pesquisa = Pesquisa.createCriteria(session, entityInformation.getJavaType()).add(or(fieldsCriterions));
 
         if (hasMultitenancy() && GumgaThreadScope.organizationCode.get() != null) {
             String oiPattern = GumgaMultitenancyUtil.getMultitenancyPattern(entityInformation.getJavaType().getAnnotation(GumgaMultitenancy.class));
@@ -169,6 +550,29 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
         return result;
     }
 
+    @Override
+    public Map<Object, Object> genericFindAll(Class clazz, Collection<?> ids) {
+        Map<Object, Object> toReturn = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return toReturn;
+        }
+        ClassMetadata metadata = session().getSessionFactory().getClassMetadata(clazz);
+        String hql = String.format("from %s obj where obj.%s in (:ids)", metadata.getEntityName(), metadata.getIdentifierPropertyName());
+        List<?> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int i = 0; i < distinctIds.size(); i += IN_CLAUSE_LIMIT) {
+            List<?> part = distinctIds.subList(i, Math.min(i + IN_CLAUSE_LIMIT, distinctIds.size()));
+            for (Object found : session().createQuery(hql).setParameterList("ids", part).list()) {
+                try {
+                    checkOwnership(found);
+                    toReturn.put(session().getIdentifier(found), found);
+                } catch (EntityNotFoundException ex) {
+                    //Objeto de outra organização é tratado como não encontrado
+                }
+            }
+        }
+        return toReturn;
+    }
+
     private Session session() {
         return entityManager.unwrap(Session.class);
     }
@@ -190,6 +594,61 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
 //        if (!QueryObject.EMPTY.equals(query.getAqo())) {
 //            //query.setAq(hqlFromQes);
 //        }
+        String modelo = advancedModel();
+
+        QueryCursor cursor = query.isKeyset() ? decodeCursor(query) : null;
+        String where = cursor == null ? query.getAq() : "(" + query.getAq() + ")" + keysetHql(cursor);
+
+        String hqlConsulta;
+        if (query.getSortField().isEmpty()) {
+            hqlConsulta = String.format(modelo + " ORDER BY obj.id ", entityInformation.getEntityName(), where);
+        } else {
+            hqlConsulta = String.format(modelo + " ORDER BY %s %s%s, obj.id", entityInformation.getEntityName(), where, query.getSortField(), query.getSortDir(),
+                    query.isCursorPaging() ? " NULLS LAST" : "");
+        }
+        String hqlConta = String.format("SELECT count(obj) " + modelo, entityInformation.getEntityName(), query.getAq());
+        String shape = queryShape(query);
+        Supplier<Long> exactCount = () -> measure(shape, Phase.COUNT, () -> (Long) entityManager.createQuery(hqlConta).getSingleResult());
+        boolean window = !query.isCountOnly() && cursor == null && countsWithPage(query) && GumgaPagedCount.supportsWindow(entityManager);
+        if (window) {
+            hqlConsulta = "SELECT obj, " + GumgaPagedCount.COUNT_OVER + "() " + hqlConsulta;
+        }
+        Query qConsulta = entityManager.createQuery(hqlConsulta);
+        qConsulta.setMaxResults(query.getPageSize());
+        if (cursor == null) {
+            qConsulta.setFirstResult(query.getStart());
+        } else {
+            qConsulta.setParameter("gumgaAfterId", cursor.getId());
+            if (cursor.getSortValue() != null) {
+                qConsulta.setParameter("gumgaAfterValue", cursor.getSortValue());
+            }
+        }
+        List resultList;
+        if (query.isCountOnly()) {
+            resultList = Collections.emptyList();
+        } else if (window) {
+            List<Object[]> rows = measure(shape, Phase.PAGE, qConsulta::getResultList);
+            resultList = pageOf(rows);
+            exactCount = windowTotal(query, rows, exactCount);
+        } else if (countsWithPage(query) && GumgaPagedCount.canCountInParallel()) {
+            GumgaPagedCount.Pending<Long> pending = GumgaPagedCount.inParallel(entityManager.getEntityManagerFactory(), other -> {
+                Query qConta = other.createQuery(hqlConta);
+                return () -> measure(shape, Phase.COUNT, () -> (Long) qConta.getSingleResult());
+            }, exactCount);
+            resultList = measure(shape, Phase.PAGE, qConsulta::getResultList);
+            exactCount = pending::get;
+        } else {
+            resultList = measure(shape, Phase.PAGE, qConsulta::getResultList);
+        }
+        Total total = total(query, resultList, exactCount);
+        return new SearchResult<>(query, total.value, resultList, nextCursor(query, resultList), total.exact);
+    }
+
+    /**
+     * Modelo HQL da pesquisa avançada com a restrição de multitenancy, recebe o
+     * nome da entidade e o where.
+     */
+    private String advancedModel() {
         String modelo = "from %s obj WHERE %s";
         if (hasMultitenancy()) {
             GumgaMultitenancy annotation = getDomainClass().getAnnotation(GumgaMultitenancy.class);
@@ -200,21 +659,64 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
                 modelo = "from %s obj WHERE (obj.oi like '" + multitenancyPattern + "%%')  AND (%s) ";
             }
         }
+        return modelo;
+    }
 
-        String hqlConsulta;
-        if (query.getSortField().isEmpty()) {
-            hqlConsulta = String.format(modelo + " ORDER BY obj.id ", entityInformation.getEntityName(), query.getAq());
+    @Override
+    public void scroll(QueryObject query, int chunkSize, Consumer<T> action) {
+        try (Stream<T> stream = stream(query, chunkSize)) {
+            stream.forEach(action);
+        }
+    }
+
+    @Override
+    public Stream<T> stream(QueryObject query, int chunkSize) {
+        int fetchSize = Math.max(1, chunkSize);
+        ScrollableResults results;
+        if (query.isAdvanced()) {
+            String hql = String.format(advancedModel(), entityInformation.getEntityName(), query.getAq());
+            hql += query.getSortField().isEmpty() ? " ORDER BY obj.id" : String.format(" ORDER BY %s %s, obj.id", query.getSortField(), query.getSortDir());
+            results = session().createQuery(hql)
+                    .setFetchSize(fetchSize).setReadOnly(true).setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
         } else {
-            hqlConsulta = String.format(modelo + " ORDER BY %s %s, obj.id", entityInformation.getEntityName(), query.getAq(), query.getSortField(), query.getSortDir());
+            Pesquisa<T> pesquisa = getPesquisa(session(), query);
+            addOrder(pesquisa, query);
+            results = pesquisa.setFetchSize(fetchSize).setReadOnly(true).setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
         }
-        String hqlConta = String.format("SELECT count(obj) " + modelo, entityInformation.getEntityName(), query.getAq());
-        Query qConta = entityManager.createQuery(hqlConta);
-        Query qConsulta = entityManager.createQuery(hqlConsulta);
-        Long total = (Long) qConta.getSingleResult();
-        qConsulta.setMaxResults(query.getPageSize());
-        qConsulta.setFirstResult(query.getStart());
-        List resultList = query.isCountOnly() ? Collections.emptyList() : qConsulta.getResultList();
-        return new SearchResult<>(query, total, resultList);
+        Iterator<T> iterator = new Iterator<T>() {
+
+            private final List<Object> streamed = new ArrayList<>(fetchSize);
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    //Os registros anteriores já foram processados, somente eles saem da sessão
+                    if (streamed.size() >= fetchSize) {
+                        Session session = session();
+                        streamed.forEach(session::evict);
+                        streamed.clear();
+                    }
+                    hasNext = results.next();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                Object entity = results.get(0);
+                streamed.add(entity);
+                return (T) entity;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(results::close);
     }
 
     @Override
@@ -233,10 +735,11 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
         String hqlConta = countQuery + " WHERE " + whereQuery.getAq();
         Query qConta = entityManager.createQuery(hqlConta);
         Query qConsulta = entityManager.createQuery(hqlConsulta);
-        Long total = (Long) qConta.getSingleResult();
+        String shape = "select|" + GumgaQueryStatistics.normalize(hqlConsulta);
+        Long total = measure(shape, Phase.COUNT, () -> (Long) qConta.getSingleResult());
         qConsulta.setMaxResults(whereQuery.getPageSize());
         qConsulta.setFirstResult(whereQuery.getStart());
-        List resultList = qConsulta.getResultList();
+        List resultList = measure(shape, Phase.PAGE, qConsulta::getResultList);
 
         return new SearchResult<>(whereQuery, total, resultList);
     }
@@ -249,7 +752,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
                 query.setParameter(key, params.get(key));
             }
         }
-        List<T> result = query.getResultList();
+        List<T> result = measure("hql|" + GumgaQueryStatistics.normalize(hql), Phase.PAGE, query::getResultList);
         int total = result.size();
         return new SearchResult<>(0, total, total, result);
     }
@@ -264,7 +767,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
         }
         query.setMaxResults(max);
         query.setFirstResult(first);
-        List<T> result = query.getResultList();
+        List<T> result = measure("hql|" + GumgaQueryStatistics.normalize(hql), Phase.PAGE, query::getResultList);
         int total = result.size();
         return new SearchResult<>(0, total, total, result);
     }
@@ -296,17 +799,23 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
 
     @Override
     public <S extends T> List<S> save(Iterable<S> entities) {
-        return super.save(entities);
+        List<S> saved = super.save(entities);
+        GumgaCountCache.invalidate(getDomainClass());
+        return saved;
     }
 
     @Override
     public <S extends T> S saveAndFlush(S entity) {
-        return super.saveAndFlush(entity);
+        S saved = super.saveAndFlush(entity);
+        GumgaCountCache.invalidate(getDomainClass());
+        return saved;
     }
 
     @Override
     public <S extends T> S save(S entity) {
-        return super.save(entity);
+        S saved = super.save(entity);
+        GumgaCountCache.invalidate(getDomainClass());
+        return saved;
     }
 
     @Override
@@ -372,11 +881,26 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
         if (ids == null || !ids.iterator().hasNext()) {
             return Collections.emptyList();
         }
+        String hql = String.format("from %s obj where obj.%s in (:ids)", entityInformation.getEntityName(), entityInformation.getIdAttribute().getName());
+        if (filtersByOwnership()) {
+            hql += " and (obj.oi is null or obj.oi like '" + getMultitenancyPattern() + "%')";
+        }
+        Set<ID> distinct = new LinkedHashSet<>();
+        ids.forEach(distinct::add);
+        List<ID> distinctIds = new ArrayList<>(distinct);
+        Map<Object, T> found = new HashMap<>();
+        for (int i = 0; i < distinctIds.size(); i += IN_CLAUSE_LIMIT) {
+            List<ID> part = distinctIds.subList(i, Math.min(i + IN_CLAUSE_LIMIT, distinctIds.size()));
+            for (Object o : session().createQuery(hql).setParameterList("ids", part).list()) {
+                found.put(entityInformation.getId((T) o), (T) o);
+            }
+        }
+        //Mantém a ordem dos ids informados, ids não encontrados ou de outra organização são ignorados
         List<T> toReturn = new ArrayList<>();
         for (ID id : ids) {
-            Object found = findOne(id);
-            if (found != null) {
-                toReturn.add((T) found);
+            T entity = found.get(id);
+            if (entity != null) {
+                toReturn.add(entity);
             }
         }
         return toReturn;
@@ -408,6 +932,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.deleteAllInBatch();
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -416,6 +941,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.deleteAll();
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -424,6 +950,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.deleteInBatch(entities);
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -432,6 +959,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.delete(entities);
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -440,6 +968,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.delete(entity);
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -448,6 +977,7 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
             log.error("NOMULTITENACYIMPL -> " + noMultiTenancyMessage());
         }
         super.delete(id);
+        GumgaCountCache.invalidate(getDomainClass());
     }
 
     @Override
@@ -462,17 +992,109 @@ public class GumgaGenericRepository<T, ID extends Serializable> extends SimpleJp
 
     @Override
     public List<GumgaObjectAndRevision> listOldVersions(ID id) {
+        List<Object[]> rows = revisionsQuery(id)
+                .addOrder(AuditEntity.revisionNumber().asc())
+                .getResultList();
         List<GumgaObjectAndRevision> aRetornar = new ArrayList<>();
-        AuditReader ar = AuditReaderFactory.get(entityManager);
-        List<Number> revisoes = ar.getRevisions(entityInformation.getJavaType(), id);
-        for (Number n : revisoes) {
-            GumgaRevisionEntity gumgaRevisionEntity = entityManager.find(GumgaRevisionEntity.class, n.longValue());
-            T object = ar.find(entityInformation.getJavaType(), id, n.longValue());
-            aRetornar.add(new GumgaObjectAndRevision(gumgaRevisionEntity, object));
+        for (Object[] row : rows) {
+            aRetornar.add(toObjectAndRevision(row));
         }
         return aRetornar;
     }
 
+    @Override
+    public SearchResult<GumgaObjectAndRevision> listOldVersions(ID id, int start, int pageSize, boolean diff) {
+        Number count = (Number) revisionsQuery(id)
+                .addProjection(AuditEntity.revisionNumber().count())
+                .getSingleResult();
+        //Com as diferenças busca uma versão a mais, anterior à última da página
+        List<Object[]> rows = revisionsQuery(id)
+                .addOrder(AuditEntity.revisionNumber().desc())
+                .setFirstResult(start)
+                .setMaxResults(diff ? pageSize + 1 : pageSize)
+                .getResultList();
+        List<GumgaObjectAndRevision> versions = new ArrayList<>();
+        for (Object[] row : rows) {
+            versions.add(toObjectAndRevision(row));
+        }
+        Object previous = versions.size() > pageSize ? versions.remove(pageSize).getObject() : null;
+        if (diff) {
+            GumgaRevisionDiff.apply(versions, previous);
+        }
+        return new SearchResult<>(start, pageSize, count, versions);
+    }
+
+    /**
+     * Consulta as revisões do objeto trazendo o objeto, a
+     * {@link GumgaRevisionEntity} e o tipo da revisão em cada linha.
+     */
+    private AuditQuery revisionsQuery(ID id) {
+        return AuditReaderFactory.get(entityManager).createQuery()
+                .forRevisionsOfEntity(entityInformation.getJavaType(), false, true)
+                .add(AuditEntity.id().eq(id));
+    }
+
+    private GumgaObjectAndRevision toObjectAndRevision(Object[] row) {
+        //Na revisão de remoção o objeto não existe mais
+        Object object = RevisionType.DEL.equals(row[2]) ? null : row[0];
+        return new GumgaObjectAndRevision((GumgaRevisionEntity) row[1], object);
+    }
+
+    @Override
+    public boolean streamFile(ID id, String property, GumgaFileStreamHandler handler) throws IOException {
+        AbstractEntityPersister persister = (AbstractEntityPersister) session().getSessionFactory().getClassMetadata(getDomainClass());
+        if (!Arrays.asList(persister.getPropertyNames()).contains(property)
+                || !GumgaFile.class.isAssignableFrom(persister.getPropertyType(property).getReturnedClass())) {
+            throw new IllegalArgumentException(property + " não é um GumgaFile de " + getDomainClass().getName());
+        }
+        //Colunas na ordem do GumgaFileUserType: name, size, mimeType e bytes
+        String[] columns = persister.getPropertyColumnNames(property);
+        String sql = String.format("select %s, %s, %s, %s from %s where %s = ?", columns[0], columns[1], columns[2], columns[3],
+                persister.getTableName(), persister.getIdentifierColumnNames()[0]);
+        boolean filtersByOwnership = filtersByOwnership();
+        if (filtersByOwnership) {
+            String oi = persister.getPropertyColumnNames("oi")[0];
+            sql += String.format(" and (%s is null or %s like ?)", oi, oi);
+        }
+        String query = sql;
+        try {
+            return session().doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    statement.setObject(1, id);
+                    if (filtersByOwnership) {
+                        statement.setString(2, getMultitenancyPattern() + "%");
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (!resultSet.next()) {
+                            throw new EntityNotFoundException("cannot find " + entityInformation.getJavaType() + " with id: " + id);
+                        }
+                        String name = resultSet.getString(1);
+                        if (name == null) {
+                            return false;
+                        }
+                        GumgaFile file = new GumgaFile(name, resultSet.getLong(2), resultSet.getString(3), null);
+                        InputStream content = resultSet.getBinaryStream(4);
+                        handler.accept(file, content == null ? new ByteArrayInputStream(new byte[0]) : content);
+                        return true;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Se as consultas devem ser restritas à organização, com a mesma regra do
+     * checkOwnership: objetos sem oi são visíveis.
+     */
+    private boolean filtersByOwnership() {
+        return hasMultitenancy() && GumgaThreadScope.organizationCode.get() != null
+                && !Boolean.TRUE.equals(GumgaThreadScope.ignoreCheckOwnership.get());
+    }
+
     private void checkOwnership(Object o) throws EntityNotFoundException {
         if (GumgaThreadScope.ignoreCheckOwnership.get() != null && GumgaThreadScope.ignoreCheckOwnership.get()) {
             return;
@@ -9,7 +9,6 @@ import gumga.framework.domain.GumgaQueryParserProvider;
 import gumga.framework.domain.domains.GumgaMoney;
 import java.io.IOException;
 import java.lang.reflect.Field;
-import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -127,7 +126,7 @@ public class GumgaGenericRepositoryHelper {
 
                 }
                 GumgaFieldStereotype fieldStereotype = getFieldStereotype(type);
-                if (GumgaQueryParserProvider.defaultMap.equals(GumgaQueryParserProvider.getOracleLikeMap()) && fieldStereotype == GumgaFieldStereotype.TEXT) {
+                if (GumgaQueryParserProvider.isOracleLike() && fieldStereotype == GumgaFieldStereotype.TEXT) {
                     aRetornar += "upper(translate(obj." + qoe.getAttribute()
                             + ",'" + AbstractStringCriterionParser.SOURCE_CHARS + "','" + AbstractStringCriterionParser.TARGET_CHARS + "'"
                             + ")" + ")";
@@ -144,10 +143,7 @@ public class GumgaGenericRepositoryHelper {
     }
 
     public static String removeAcentos(String str) {
-        str = Normalizer.normalize(str, Normalizer.Form.NFD);
-        str = str.replaceAll("[^\\p{ASCII}]", "");
-        return str;
-
+        return GumgaQueryParserProvider.removeAccents(str);
     }
 
 }
@@ -0,0 +1,133 @@
+package gumga.framework.application;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
+
+/**
+ * Andamento de uma reconstrução dos índices da pesquisa textual feita pelo
+ * {@link GumgaIndexService}.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaIndexProgress implements MassIndexerProgressMonitor {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final List<String> entities;
+    private final String organizationCode;
+    private final Date created = new Date();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong indexed = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile Date started;
+    private volatile Date finished;
+    private volatile String error;
+
+    GumgaIndexProgress(String id, List<String> entities, String organizationCode) {
+        this.id = id;
+        this.entities = entities;
+        this.organizationCode = organizationCode;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return prefixo do oi dos registros reindexados, null quando todos os
+     * registros são reindexados
+     */
+    public String getOrganizationCode() {
+        return organizationCode;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public Date getFinished() {
+        return finished;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    public long getIndexed() {
+        return indexed.get();
+    }
+
+    /**
+     * @return percentual de registros indexados, de 0 a 100
+     */
+    public int getPercent() {
+        long count = total.get();
+        return count == 0 ? (status == Status.DONE ? 100 : 0) : (int) Math.min(100, indexed.get() * 100 / count);
+    }
+
+    @Override
+    public void documentsAdded(long increment) {
+        indexed.addAndGet(increment);
+    }
+
+    @Override
+    public void documentsBuilt(int number) {
+    }
+
+    @Override
+    public void entitiesLoaded(int size) {
+        loaded.addAndGet(size);
+    }
+
+    @Override
+    public void addToTotalCount(long count) {
+        total.addAndGet(count);
+    }
+
+    @Override
+    public void indexingCompleted() {
+    }
+
+    void running() {
+        started = new Date();
+        status = Status.RUNNING;
+    }
+
+    void done() {
+        finished = new Date();
+        status = Status.DONE;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finished = new Date();
+        status = Status.FAILED;
+    }
+
+}
@@ -0,0 +1,285 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import gumga.framework.domain.GumgaMultitenancy;
+import gumga.framework.domain.repository.GumgaMultitenancyUtil;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.jpa.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reconstrói os índices da pesquisa textual das entidades @Indexed sem parar a
+ * aplicação. A reconstrução completa usa o MassIndexer do Hibernate Search; a
+ * reconstrução de uma organização reindexa somente os registros cujo oi
+ * começa com o da organização corrente, em lotes processados em paralelo.
+ *
+ * @author Equipe Gumga
+ */
+@Service
+public class GumgaIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaIndexService.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int MAX_PROGRESSES = 100;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private GumgaUntypedRepository untypedRepository;
+
+    private final Map<String, GumgaIndexProgress> progresses = new ConcurrentHashMap<>();
+
+    private ExecutorService coordinator;
+
+    @PostConstruct
+    public void start() {
+        coordinator = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "gumga-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    /**
+     * @return nomes das entidades @Indexed
+     */
+    public List<String> getIndexedEntities() {
+        return untypedRepository.getAllIndexedEntities().stream().map(Class::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Agenda a reconstrução dos índices. As reconstruções são executadas uma
+     * de cada vez, na ordem em que foram pedidas.
+     *
+     * @param entities nomes (completos ou simples) das entidades, todas as
+     * entidades @Indexed quando vazio ou null
+     * @param batchSize registros carregados por vez
+     * @param threads threads que carregam os registros e montam os documentos
+     * @param tenantScoped reindexa somente os registros da organização
+     * corrente; entidades sem {@link GumgaMultitenancy} são ignoradas
+     * @return andamento da reconstrução
+     */
+    public GumgaIndexProgress rebuild(Collection<String> entities, int batchSize, int threads, boolean tenantScoped) {
+        if (batchSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("batchSize e threads devem ser maiores que zero");
+        }
+        List<Class<?>> classes = resolve(entities);
+        Map<Class<?>, String> patterns = new LinkedHashMap<>();
+        if (tenantScoped) {
+            for (Class<?> classe : classes) {
+                GumgaMultitenancy tenancy = classe.getAnnotation(GumgaMultitenancy.class);
+                if (tenancy != null) {
+                    patterns.put(classe, GumgaMultitenancyUtil.getMultitenancyPattern(tenancy));
+                }
+            }
+            classes = new ArrayList<>(patterns.keySet());
+        }
+        String organizationCode = tenantScoped ? String.valueOf(GumgaThreadScope.organizationCode.get()) : null;
+        GumgaIndexProgress progress = new GumgaIndexProgress(UUID.randomUUID().toString(), classes.stream().map(Class::getName).collect(Collectors.toList()), organizationCode);
+        evictFinished();
+        progresses.put(progress.getId(), progress);
+        List<Class<?>> toIndex = classes;
+        coordinator.execute(() -> run(progress, toIndex, patterns, batchSize, threads, tenantScoped));
+        return progress;
+    }
+
+    /**
+     * @param id identificador devolvido por
+     * {@link #rebuild(Collection, int, int, boolean)}
+     * @return andamento da reconstrução ou null se não existir
+     */
+    public GumgaIndexProgress find(String id) {
+        return progresses.get(id);
+    }
+
+    public List<GumgaIndexProgress> findAll() {
+        return progresses.values().stream().sorted((a, b) -> b.getCreated().compareTo(a.getCreated())).collect(Collectors.toList());
+    }
+
+    private List<Class<?>> resolve(Collection<String> entities) {
+        List<Class<?>> indexed = untypedRepository.getAllIndexedEntities();
+        if (entities == null || entities.isEmpty()) {
+            return indexed;
+        }
+        List<Class<?>> toReturn = new ArrayList<>();
+        for (String name : entities) {
+            Class<?> classe = indexed.stream().filter(c -> c.getName().equals(name) || c.getSimpleName().equals(name)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Entidade @Indexed inexistente: " + name));
+            if (!toReturn.contains(classe)) {
+                toReturn.add(classe);
+            }
+        }
+        return toReturn;
+    }
+
+    private void run(GumgaIndexProgress progress, List<Class<?>> classes, Map<Class<?>, String> patterns, int batchSize, int threads, boolean tenantScoped) {
+        progress.running();
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            if (classes.isEmpty()) {
+                progress.done();
+                return;
+            }
+            if (tenantScoped) {
+                SessionFactory sessionFactory = em.unwrap(Session.class).getSessionFactory();
+                for (Class<?> classe : classes) {
+                    rebuildTenant(sessionFactory, classe, patterns.get(classe), progress, batchSize, threads);
+                }
+            } else {
+                Search.getFullTextEntityManager(em).createIndexer(classes.toArray(new Class<?>[classes.size()]))
+                        .batchSizeToLoadObjects(batchSize)
+                        .threadsToLoadObjects(threads)
+                        .idFetchSize(batchSize * threads)
+                        .cacheMode(CacheMode.IGNORE)
+                        .purgeAllOnStart(true)
+                        .optimizeOnFinish(true)
+                        .progressMonitor(progress)
+                        .startAndWait();
+            }
+            progress.done();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            progress.failed("Interrompido");
+        } catch (Exception ex) {
+            log.error("erro ao reconstruir os indices de " + progress.getEntities(), ex);
+            progress.failed(ex.toString());
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Os ids são lidos em ordem por uma única consulta e os lotes são
+     * carregados e indexados por threads próprias, cada uma com a sua sessão.
+     * No máximo duas vezes o número de threads de lotes ficam em memória.
+     */
+    private void rebuildTenant(SessionFactory sessionFactory, Class<?> classe, String oi, GumgaIndexProgress progress, int batchSize, int threads) throws Exception {
+        String entityName = classe.getName();
+        String idName = sessionFactory.getClassMetadata(classe).getIdentifierPropertyName();
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gumga-reindex-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore pending = new Semaphore(threads * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        String where = " from " + entityName + " obj where obj.oi like '" + oi.replace("'", "''") + "%'";
+        StatelessSession ids = sessionFactory.openStatelessSession();
+        try {
+            Number total = (Number) ids.createQuery("select count(obj)" + where).uniqueResult();
+            progress.addToTotalCount(total.longValue());
+            ScrollableResults scroll = ids.createQuery("select obj." + idName + where + " order by obj." + idName)
+                    .setFetchSize(batchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                List<Serializable> batch = new ArrayList<>(batchSize);
+                while (failure.get() == null && scroll.next()) {
+                    batch.add((Serializable) scroll.get(0));
+                    if (batch.size() == batchSize) {
+                        submit(pool, pending, failure, sessionFactory, entityName, idName, batch, progress);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty() && failure.get() == null) {
+                    submit(pool, pending, failure, sessionFactory, entityName, idName, batch, progress);
+                }
+            } finally {
+                scroll.close();
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // aguarda os lotes restantes
+            }
+        } finally {
+            pool.shutdownNow();
+            ids.close();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void submit(ExecutorService pool, Semaphore pending, AtomicReference<Exception> failure, SessionFactory sessionFactory,
+            String entityName, String idName, List<Serializable> batch, GumgaIndexProgress progress) throws InterruptedException {
+        pending.acquire();
+        pool.execute(() -> {
+            try {
+                index(sessionFactory, entityName, idName, batch, progress);
+            } catch (Exception ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    private void index(SessionFactory sessionFactory, String entityName, String idName, List<Serializable> batch, GumgaIndexProgress progress) {
+        FullTextSession session = org.hibernate.search.Search.getFullTextSession(sessionFactory.openSession());
+        try {
+            session.setFlushMode(FlushMode.MANUAL);
+            session.setCacheMode(CacheMode.IGNORE);
+            Transaction transaction = session.beginTransaction();
+            List<?> entities = session.createQuery("from " + entityName + " obj where obj." + idName + " in (:ids)")
+                    .setParameterList("ids", batch).list();
+            progress.entitiesLoaded(entities.size());
+            entities.forEach(session::index);
+            session.flushToIndexes();
+            transaction.commit();
+            progress.documentsAdded(entities.size());
+        } finally {
+            session.close();
+        }
+    }
+
+    private void evictFinished() {
+        if (progresses.size() < MAX_PROGRESSES) {
+            return;
+        }
+        progresses.values().stream()
+                .filter(p -> p.getStatus() == GumgaIndexProgress.Status.DONE || p.getStatus() == GumgaIndexProgress.Status.FAILED)
+                .sorted((a, b) -> a.getCreated().compareTo(b.getCreated()))
+                .limit(progresses.size() - MAX_PROGRESSES + 1)
+                .forEach(p -> progresses.remove(p.getId()));
+    }
+
+}
@@ -0,0 +1,111 @@
+package gumga.framework.application;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+/**
+ * Relatório ou exportação processado em segundo plano pelo
+ * {@link GumgaJobService}. O resultado pode ser baixado quando o status for
+ * DONE.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final String key;
+    private final String organizationCode;
+    private final String fileName;
+    private final String contentType;
+    private final Date created = new Date();
+    private volatile Status status = Status.QUEUED;
+    private volatile Date started;
+    private volatile Date finished;
+    private volatile long size;
+    private volatile String error;
+    private volatile Path result;
+
+    GumgaJob(String id, String key, String organizationCode, String fileName, String contentType) {
+        this.id = id;
+        this.key = key;
+        this.organizationCode = organizationCode;
+        this.fileName = fileName;
+        this.contentType = contentType;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public Date getFinished() {
+        return finished;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getOrganizationCode() {
+        return organizationCode;
+    }
+
+    Path getResult() {
+        return result;
+    }
+
+    void running() {
+        started = new Date();
+        status = Status.RUNNING;
+    }
+
+    void done(Path result, long size) {
+        this.result = result;
+        this.size = size;
+        finished = new Date();
+        status = Status.DONE;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finished = new Date();
+        status = Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return "GumgaJob{" + "id=" + id + ", status=" + status + ", fileName=" + fileName + '}';
+    }
+
+}
@@ -0,0 +1,319 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import gumga.framework.core.GumgaValues;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Processa relatórios e exportações fora da thread da requisição. Um número
+ * fixo de threads atende todas as organizações e cada organização processa no
+ * máximo {@link GumgaValues#getJobsPerOrganization()} ao mesmo tempo. O
+ * resultado é gravado em disco e pedidos iguais da mesma organização recebem
+ * o mesmo job enquanto ele estiver na fila, processando ou dentro de
+ * {@link GumgaValues#getJobResultTimeToLive()}.
+ *
+ * @author Equipe Gumga
+ */
+@Service
+public class GumgaJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaJobService.class);
+
+    private static final String EXTENSION = ".result";
+
+    /**
+     * Gera o conteúdo do job. É executado com o {@link GumgaThreadScope} de
+     * quem fez o pedido.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        void write(OutputStream out) throws Exception;
+    }
+
+    @Autowired
+    private GumgaValues gumgaValues;
+
+    private final Map<String, GumgaJob> jobs = new ConcurrentHashMap<>();
+
+    private final Map<String, GumgaJob> jobsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Jobs aguardando e quantidade em processamento por organização, sempre
+     * acessados com o lock do serviço
+     */
+    private final Map<String, Deque<Runnable>> waiting = new HashMap<>();
+    private final Map<String, Integer> running = new HashMap<>();
+
+    private ExecutorService workers;
+
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, gumgaValues.getJobThreads()), r -> {
+            Thread thread = new Thread(r, "gumga-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gumga-job-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(TimeUnit.MINUTES.toMillis(1), gumgaValues.getJobResultTimeToLive() / 4);
+        cleaner.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * Coloca o job na fila ou retorna o job de um pedido igual da mesma
+     * organização.
+     *
+     * @param key identifica o pedido, por exemplo o relatório e os parâmetros
+     * @param fileName nome do arquivo gerado
+     * @param contentType tipo do conteúdo gerado
+     * @param task gera o conteúdo
+     * @return o job, consultado por {@link #find(String)}
+     */
+    public GumgaJob submit(String key, String fileName, String contentType, Task task) {
+        String organizationCode = GumgaThreadScope.organizationCode.get();
+        Scope scope = new Scope();
+        GumgaJob[] created = {null};
+        GumgaJob job = jobsByKey.compute(organizationCode + "|" + key, (k, current) -> {
+            if (current != null && isReusable(current)) {
+                return current;
+            }
+            if (current != null) {
+                remove(current);
+            }
+            created[0] = new GumgaJob(UUID.randomUUID().toString(), k, organizationCode, fileName, contentType);
+            return created[0];
+        });
+        if (created[0] != null) {
+            jobs.put(job.getId(), job);
+            schedule(String.valueOf(organizationCode), () -> execute(job, scope, task));
+        }
+        return job;
+    }
+
+    /**
+     * @param id id do job
+     * @return o job ou null se não existir, tiver expirado ou for de outra
+     * organização
+     */
+    public GumgaJob find(String id) {
+        GumgaJob job = id == null ? null : jobs.get(id);
+        if (job == null || !Objects.equals(job.getOrganizationCode(), GumgaThreadScope.organizationCode.get())) {
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * @param id id do job
+     * @return o conteúdo gerado ou null se o job não existir ou não tiver
+     * terminado
+     */
+    public InputStream openResult(String id) throws IOException {
+        GumgaJob job = find(id);
+        if (job == null || job.getStatus() != GumgaJob.Status.DONE) {
+            return null;
+        }
+        return Files.newInputStream(job.getResult());
+    }
+
+    /**
+     * Remove os jobs e os resultados terminados há mais tempo que
+     * {@link GumgaValues#getJobResultTimeToLive()}.
+     *
+     * @return quantidade de jobs removidos
+     */
+    public int evictExpired() {
+        long limit = System.currentTimeMillis() - gumgaValues.getJobResultTimeToLive();
+        int removed = 0;
+        for (GumgaJob job : jobs.values()) {
+            if (job.getFinished() != null && job.getFinished().getTime() < limit) {
+                jobsByKey.remove(job.getKey(), job);
+                remove(job);
+                removed++;
+            }
+        }
+        //Resultados de execuções anteriores da aplicação
+        Path folder = Paths.get(gumgaValues.getJobDir());
+        if (Files.isDirectory(folder)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    if (Files.getLastModifiedTime(file).toMillis() < limit) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException ex) {
+                log.warn("erro ao remover resultados de " + folder, ex);
+            }
+        }
+        return removed;
+    }
+
+    private boolean isReusable(GumgaJob job) {
+        switch (job.getStatus()) {
+            case QUEUED:
+            case RUNNING:
+                return true;
+            case DONE:
+                return job.getFinished().getTime() + gumgaValues.getJobResultTimeToLive() > System.currentTimeMillis()
+                        && Files.exists(job.getResult());
+            default:
+                return false;
+        }
+    }
+
+    private void remove(GumgaJob job) {
+        jobs.remove(job.getId(), job);
+        if (job.getResult() != null) {
+            try {
+                Files.deleteIfExists(job.getResult());
+            } catch (IOException ex) {
+                log.warn("erro ao remover resultado do job " + job.getId(), ex);
+            }
+        }
+    }
+
+    private synchronized void schedule(String organizationCode, Runnable job) {
+        int current = running.getOrDefault(organizationCode, 0);
+        if (current < Math.max(1, gumgaValues.getJobsPerOrganization())) {
+            running.put(organizationCode, current + 1);
+            workers.execute(() -> runAndNext(organizationCode, job));
+        } else {
+            waiting.computeIfAbsent(organizationCode, k -> new ArrayDeque<>()).add(job);
+        }
+    }
+
+    private void runAndNext(String organizationCode, Runnable job) {
+        try {
+            job.run();
+        } finally {
+            next(organizationCode);
+        }
+    }
+
+    /**
+     * Passa a vaga da organização ao próximo job da fila dela
+     */
+    private synchronized void next(String organizationCode) {
+        Deque<Runnable> queue = waiting.get(organizationCode);
+        Runnable job = queue == null ? null : queue.poll();
+        if (queue != null && queue.isEmpty()) {
+            waiting.remove(organizationCode);
+        }
+        if (job != null) {
+            workers.execute(() -> runAndNext(organizationCode, job));
+        } else {
+            running.computeIfPresent(organizationCode, (k, current) -> current > 1 ? current - 1 : null);
+        }
+    }
+
+    private void execute(GumgaJob job, Scope scope, Task task) {
+        job.running();
+        Path result = Paths.get(gumgaValues.getJobDir(), job.getId() + EXTENSION);
+        scope.apply();
+        try {
+            Files.createDirectories(result.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(result, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                task.write(out);
+            }
+            job.done(result, Files.size(result));
+        } catch (Throwable ex) {
+            //Erros também encerram o job, senão ele ficaria em RUNNING e seria reaproveitado para sempre
+            log.error("erro ao processar o job " + job, ex);
+            try {
+                Files.deleteIfExists(result);
+            } catch (IOException e) {
+                log.warn("erro ao remover resultado do job " + job.getId(), e);
+            }
+            job.failed(ex.toString());
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+        } finally {
+            Scope.clear();
+        }
+    }
+
+    /**
+     * {@link GumgaThreadScope} de quem fez o pedido, aplicado na thread que
+     * processa o job
+     */
+    private static final class Scope {
+
+        private final String ip = GumgaThreadScope.ip.get();
+        private final String login = GumgaThreadScope.login.get();
+        private final String organization = GumgaThreadScope.organization.get();
+        private final String organizationCode = GumgaThreadScope.organizationCode.get();
+        private final String operationKey = GumgaThreadScope.operationKey.get();
+        private final Boolean ignoreCheckOwnership = GumgaThreadScope.ignoreCheckOwnership.get();
+        private final String gumgaToken = GumgaThreadScope.gumgaToken.get();
+        private final String softwareName = GumgaThreadScope.softwareName.get();
+        private final Long organizationId = GumgaThreadScope.organizationId.get();
+        private final Map authorizationResponse = GumgaThreadScope.authorizationResponse.get();
+
+        private void apply() {
+            GumgaThreadScope.ip.set(ip);
+            GumgaThreadScope.login.set(login);
+            GumgaThreadScope.organization.set(organization);
+            GumgaThreadScope.organizationCode.set(organizationCode);
+            GumgaThreadScope.operationKey.set(operationKey);
+            GumgaThreadScope.ignoreCheckOwnership.set(ignoreCheckOwnership);
+            GumgaThreadScope.gumgaToken.set(gumgaToken);
+            GumgaThreadScope.softwareName.set(softwareName);
+            GumgaThreadScope.organizationId.set(organizationId);
+            GumgaThreadScope.authorizationResponse.set(authorizationResponse);
+        }
+
+        private static void clear() {
+            GumgaThreadScope.ip.remove();
+            GumgaThreadScope.login.remove();
+            GumgaThreadScope.organization.remove();
+            GumgaThreadScope.organizationCode.remove();
+            GumgaThreadScope.operationKey.remove();
+            GumgaThreadScope.ignoreCheckOwnership.remove();
+            GumgaThreadScope.gumgaToken.remove();
+            GumgaThreadScope.softwareName.remove();
+            GumgaThreadScope.organizationId.remove();
+            GumgaThreadScope.authorizationResponse.remove();
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaLogOverflowPolicy;
+import gumga.framework.core.GumgaValues;
+import gumga.framework.domain.GumgaLog;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Grava os logs das requisições ({@link GumgaLog}) em segundo plano. Os logs
+ * são colocados em uma fila limitada e uma thread os grava em lotes de até
+ * {@link GumgaValues#getLogBatchSize()}, aguardando no máximo
+ * {@link GumgaValues#getLogFlushInterval()} para completar cada lote. Com a
+ * fila cheia vale a {@link GumgaValues#getLogOverflowPolicy()}. No
+ * encerramento da aplicação os logs pendentes são gravados, inclusive os
+ * colocados na fila enquanto a thread terminava.
+ *
+ * A gravação em segundo plano só é usada com {@link GumgaValues#isLogAsync()}
+ * ligado; por padrão o log é gravado na própria requisição.
+ *
+ * @author Equipe Gumga
+ */
+@Service
+public class GumgaLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaLogWriter.class);
+
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    @Autowired
+    private GumgaValues gumgaValues;
+
+    @Autowired
+    private GumgaLogRepository repository;
+
+    private BlockingQueue<GumgaLog> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong overflow = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, gumgaValues.getLogQueueCapacity()));
+        if (!gumgaValues.isLogAsync()) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "gumga-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Encerra a gravação em segundo plano gravando os logs pendentes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * Agenda a gravação do log, ou grava imediatamente se o log assíncrono
+     * estiver desligado.
+     *
+     * @param gumgaLog log da requisição
+     */
+    public void write(GumgaLog gumgaLog) {
+        if (!gumgaValues.isLogAsync() || !running) {
+            repository.save(gumgaLog);
+            written.incrementAndGet();
+            return;
+        }
+
+        pending.incrementAndGet();
+        if (enqueue(gumgaLog)) {
+            if (!running) {
+                drain();
+            }
+            return;
+        }
+        pending.decrementAndGet();
+        dropped.incrementAndGet();
+    }
+
+    private boolean enqueue(GumgaLog gumgaLog) {
+        if (queue.offer(gumgaLog)) {
+            return true;
+        }
+        long overflowCount = overflow.incrementAndGet();
+        GumgaLogOverflowPolicy policy = gumgaValues.getLogOverflowPolicy();
+        if (policy == GumgaLogOverflowPolicy.SAMPLE) {
+            return overflowCount % Math.max(1, gumgaValues.getLogSampleRate()) == 0 && queue.offer(gumgaLog);
+        }
+        if (policy != GumgaLogOverflowPolicy.BLOCK) {
+            return false;
+        }
+        try {
+            while (running) {
+                if (queue.offer(gumgaLog, gumgaValues.getLogFlushInterval(), TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return queue.offer(gumgaLog);
+    }
+
+    /**
+     * Grava na thread corrente os logs que ficaram na fila depois que a
+     * gravação em segundo plano terminou. A escrita verifica
+     * {@code running} depois de colocar o log na fila, então um log colocado
+     * enquanto a thread terminava é gravado aqui.
+     */
+    private void drain() {
+        int batchSize = Math.max(1, gumgaValues.getLogBatchSize());
+        List<GumgaLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            save(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * Aguarda a gravação de todos os logs agendados até o momento.
+     *
+     * @param timeout tempo máximo de espera em milisegundos
+     * @return se todos os logs foram processados
+     */
+    public boolean flush(long timeout) {
+        long limit = System.currentTimeMillis() + timeout;
+        while (pending.get() > 0 && System.currentTimeMillis() < limit) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return pending.get() == 0;
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, gumgaValues.getLogBatchSize());
+        while (running || !queue.isEmpty()) {
+            List<GumgaLog> batch = new ArrayList<>(batchSize);
+            try {
+                GumgaLog first = queue.poll(gumgaValues.getLogFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long limit = System.currentTimeMillis() + gumgaValues.getLogFlushInterval();
+                while (running && batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = limit - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    GumgaLog next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                save(batch);
+            }
+        }
+    }
+
+    private void save(List<GumgaLog> batch) {
+        try {
+            repository.save(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException ex) {
+            failed.addAndGet(batch.size());
+            log.error("Problema ao gravar " + batch.size() + " logs", ex);
+        } finally {
+            pending.addAndGet(-batch.size());
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+}
@@ -0,0 +1,212 @@
+package gumga.framework.application;
+
+import gumga.framework.domain.GumgaMessage;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Distribui as mensagens ({@link GumgaMessage}) para as conexões abertas de
+ * cada login, sem consultar o banco; mensagens sem destinationLogin são
+ * entregues a todos.
+ *
+ * Cada conexão tem uma fila limitada a {@link #MAX_PENDING} eventos, entregues
+ * em ordem por um pool de threads, então uma conexão lenta não atrasa as
+ * demais. A conexão cuja fila enche é encerrada; o cliente reconecta e recebe
+ * novamente as mensagens pendentes. Um heartbeat periódico detecta conexões
+ * encerradas.
+ *
+ * @author Equipe Gumga
+ */
+@Component
+public class GumgaMessageHub {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaMessageHub.class);
+
+    private static final long HEARTBEAT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Eventos aguardando entrega em cada conexão
+     */
+    public static final int MAX_PENDING = 100;
+
+    /**
+     * Alteração publicada de uma mensagem
+     */
+    public enum Change {
+        CREATED, UPDATED, VIEWED
+    }
+
+    /**
+     * Conexão que recebe as mensagens de um login. As chamadas de uma mesma
+     * conexão nunca são concorrentes.
+     */
+    public interface Listener {
+
+        void onMessage(GumgaMessage message, Change change) throws Exception;
+
+        default void onHeartbeat() throws Exception {
+        }
+    }
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService heartbeat;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gumga-message-hub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+        AtomicInteger count = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "gumga-message-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * @param login login que receberá as mensagens
+     * @param listener conexão
+     * @return ação que encerra a inscrição
+     */
+    public Runnable subscribe(String login, Listener listener) {
+        Subscriber subscriber = new Subscriber(String.valueOf(login), listener);
+        subscribers.compute(subscriber.login, (k, targets) -> {
+            Set<Subscriber> toReturn = targets == null ? ConcurrentHashMap.newKeySet() : targets;
+            toReturn.add(subscriber);
+            return toReturn;
+        });
+        return () -> unsubscribe(subscriber);
+    }
+
+    /**
+     * Entrega a alteração da mensagem às conexões do destinatário. Dentro de
+     * uma transação a entrega acontece somente após o commit.
+     *
+     * @param message mensagem
+     * @param change alteração
+     */
+    public void publish(GumgaMessage message, Change change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    deliver(message, change);
+                }
+            });
+        } else {
+            deliver(message, change);
+        }
+    }
+
+    /**
+     * @return número de conexões abertas
+     */
+    public int getConnections() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void deliver(GumgaMessage message, Change change) {
+        if (message.getDestinationLogin() == null) {
+            subscribers.values().forEach(targets -> targets.forEach(s -> s.offer(l -> l.onMessage(message, change))));
+        } else {
+            Set<Subscriber> targets = subscribers.get(message.getDestinationLogin());
+            if (targets != null) {
+                targets.forEach(s -> s.offer(l -> l.onMessage(message, change)));
+            }
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(targets -> targets.forEach(s -> s.offer(Listener::onHeartbeat)));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.login, (k, targets) -> {
+            targets.remove(subscriber);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    private interface Event {
+
+        void send(Listener listener) throws Exception;
+    }
+
+    /**
+     * Fila de uma conexão, esvaziada por no máximo uma thread por vez
+     */
+    private final class Subscriber {
+
+        private final String login;
+        private final Listener listener;
+        private final BlockingQueue<Event> pending = new ArrayBlockingQueue<>(MAX_PENDING);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(String login, Listener listener) {
+            this.login = login;
+            this.listener = listener;
+        }
+
+        private void offer(Event event) {
+            if (!pending.offer(event)) {
+                log.warn("Conexao de " + login + " encerrada, " + MAX_PENDING + " eventos aguardando entrega");
+                unsubscribe(this);
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                Event event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        event.send(listener);
+                    } catch (Exception ex) {
+                        log.debug("Conexao de " + login + " encerrada", ex);
+                        unsubscribe(this);
+                        pending.clear();
+                    }
+                }
+            } finally {
+                sending.set(false);
+            }
+            //Evento colocado na fila depois do último poll e antes de liberar o envio
+            if (!pending.isEmpty() && sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+    }
+
+}
@@ -1,19 +1,62 @@
 package gumga.framework.application;
 
+import gumga.framework.core.exception.ForbiddenException;
 import gumga.framework.domain.GumgaMessage;
 import java.io.Serializable;
+import java.util.Date;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class GumgaMessageService extends GumgaService<GumgaMessage, Long> implements Serializable {
 
     private GumgaMessageRepository repository;
 
+    @Autowired(required = false)
+    private GumgaMessageHub hub;
+
     @Autowired
     public GumgaMessageService(GumgaMessageRepository repository) {
         super(repository);
         this.repository = repository;
     }
 
+    @Override
+    public void afterSave(GumgaMessage entity) {
+        publish(entity, GumgaMessageHub.Change.CREATED);
+    }
+
+    @Override
+    public void afterUpdate(GumgaMessage entity) {
+        publish(entity, GumgaMessageHub.Change.UPDATED);
+    }
+
+    /**
+     * Remove a mensagem visualizada pelo destinatário e avisa as suas
+     * conexões.
+     *
+     * @param id id da mensagem
+     * @param login login de quem visualizou
+     * @throws ForbiddenException se a mensagem não for destinada ao login
+     */
+    @Transactional
+    public void viewed(Long id, String login) {
+        GumgaMessage message = repository.findOne(id);
+        if (login == null || !login.equals(message.getDestinationLogin())) {
+            throw new ForbiddenException("A mensagem " + id + " não é destinada a " + login);
+        }
+        repository.delete(message);
+        GumgaMessage viewed = new GumgaMessage(id);
+        viewed.setDestinationLogin(login);
+        viewed.setViewedIn(new Date());
+        publish(viewed, GumgaMessageHub.Change.VIEWED);
+    }
+
+    private void publish(GumgaMessage message, GumgaMessageHub.Change change) {
+        if (hub != null) {
+            hub.publish(message, change);
+        }
+    }
+
 }
@@ -0,0 +1,233 @@
+package gumga.framework.application;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Obtém o total das pesquisas paginadas sem avaliar os filtros duas vezes em
+ * sequência. Nos bancos com funções de janela a página e o total vêm da mesma
+ * consulta, através de {@link #COUNT_OVER}; nas pesquisas por Criteria essa
+ * consulta traz somente os ids e o total, e as entidades são carregadas em
+ * seguida pela chave primária. Nos demais bancos o count pode ser
+ * executado em paralelo à página, em outra conexão. O count paralelo roda em
+ * outra transação e por isso só é feito quando a transação corrente é somente
+ * leitura ou não há transação, casos em que não existem escritas ainda não
+ * confirmadas que o count deixaria de ver.
+ * <p>
+ * Cada count paralelo ocupa uma segunda conexão enquanto a pesquisa ainda
+ * segura a sua, por isso ele precisa ser ativado com
+ * {@link #setParallelEnabled(boolean)} e fica limitado a
+ * {@link #getMaxParallelCounts()} counts simultâneos, valor que deve ficar bem
+ * abaixo do tamanho do pool de conexões. Sem vaga o count é feito na própria
+ * pesquisa.
+ *
+ * @author Equipe Gumga
+ */
+public final class GumgaPagedCount {
+
+    /**
+     * Função HQL registrada por {@link GumgaCountOverIntegrator}, gera
+     * <code>count(*) over()</code>
+     */
+    public static final String COUNT_OVER = "gumga_count_over";
+
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    private static final ExecutorService counters = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+        Thread thread = new Thread(r, "gumga-count-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile boolean windowEnabled = true;
+
+    private static volatile boolean parallelEnabled = false;
+
+    private static volatile int maxParallelCounts = 4;
+
+    private static volatile Semaphore permits = new Semaphore(maxParallelCounts);
+
+    private GumgaPagedCount() {
+    }
+
+    /**
+     * @param entityManager entityManager da pesquisa
+     * @return se o total pode ser obtido junto com a página
+     */
+    public static boolean supportsWindow(EntityManager entityManager) {
+        if (!windowEnabled) {
+            return false;
+        }
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) entityManager.unwrap(Session.class).getSessionFactory();
+        return factory.getSqlFunctionRegistry().hasFunction(COUNT_OVER);
+    }
+
+    /**
+     * @return se o count pode ser executado em paralelo, em outra transação
+     */
+    public static boolean canCountInParallel() {
+        return parallelEnabled
+                && (TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    /**
+     * Inicia o count em outra conexão. A consulta é montada na thread corrente,
+     * que tem a organização e os demais dados da requisição, e executada em
+     * uma transação somente leitura descartada em seguida. Sem vaga para mais
+     * um count paralelo, ou se nenhuma thread do pool o iniciou quando o
+     * resultado é pedido, o count é feito por <code>local</code>, na sessão da
+     * própria pesquisa.
+     *
+     * @param factory fábrica dos entityManagers
+     * @param prepare recebe o entityManager do count e devolve a consulta
+     * @param local count na sessão da pesquisa
+     * @return o count pendente
+     */
+    public static <R> Pending<R> inParallel(EntityManagerFactory factory, Function<EntityManager, Supplier<R>> prepare, Supplier<R> local) {
+        Semaphore semaphore = permits;
+        if (!semaphore.tryAcquire()) {
+            return new Pending<>(null, null, null, local);
+        }
+        EntityManager entityManager;
+        try {
+            entityManager = factory.createEntityManager();
+        } catch (RuntimeException ex) {
+            semaphore.release();
+            throw ex;
+        }
+        Runnable release = () -> {
+            entityManager.close();
+            semaphore.release();
+        };
+        Supplier<R> count;
+        try {
+            count = prepare.apply(entityManager);
+        } catch (RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<R> task = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                //Já executado pela pesquisa
+                return null;
+            }
+            EntityTransaction transaction = entityManager.getTransaction();
+            try {
+                transaction.begin();
+                return count.get();
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                release.run();
+            }
+        });
+        try {
+            counters.execute(task);
+        } catch (RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+        return new Pending<>(task, claimed, release, local);
+    }
+
+    public static boolean isWindowEnabled() {
+        return windowEnabled;
+    }
+
+    /**
+     * @param windowEnabled obtém o total com count(*) over() quando o banco
+     * suporta
+     */
+    public static void setWindowEnabled(boolean windowEnabled) {
+        GumgaPagedCount.windowEnabled = windowEnabled;
+    }
+
+    public static boolean isParallelEnabled() {
+        return parallelEnabled;
+    }
+
+    /**
+     * @param parallelEnabled executa o count em paralelo à página quando o
+     * banco não suporta funções de janela, desativado por padrão
+     */
+    public static void setParallelEnabled(boolean parallelEnabled) {
+        GumgaPagedCount.parallelEnabled = parallelEnabled;
+    }
+
+    public static int getMaxParallelCounts() {
+        return maxParallelCounts;
+    }
+
+    /**
+     * @param maxParallelCounts counts paralelos simultâneos, cada um com uma
+     * conexão além da conexão da pesquisa
+     */
+    public static void setMaxParallelCounts(int maxParallelCounts) {
+        GumgaPagedCount.maxParallelCounts = maxParallelCounts;
+        GumgaPagedCount.permits = new Semaphore(maxParallelCounts);
+    }
+
+    /**
+     * Count iniciado em paralelo
+     */
+    public static final class Pending<R> {
+
+        private final FutureTask<R> task;
+        private final AtomicBoolean claimed;
+        private final Runnable release;
+        private final Supplier<R> local;
+
+        private Pending(FutureTask<R> task, AtomicBoolean claimed, Runnable release, Supplier<R> local) {
+            this.task = task;
+            this.claimed = claimed;
+            this.release = release;
+            this.local = local;
+        }
+
+        /**
+         * Aguarda o count. Se nenhuma thread do pool o iniciou ainda ele é
+         * executado na sessão da pesquisa, liberando a outra conexão.
+         *
+         * @return o resultado do count
+         */
+        public R get() {
+            if (task == null) {
+                return local.get();
+            }
+            if (claimed.compareAndSet(false, true)) {
+                release.run();
+                return local.get();
+            }
+            try {
+                return task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                if (ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+    }
+
+}
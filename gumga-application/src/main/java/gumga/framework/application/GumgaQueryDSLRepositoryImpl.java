@@ -1,10 +1,15 @@
 package gumga.framework.application;
 
+import com.mysema.query.Tuple;
+import com.mysema.query.jpa.JPAQueryBase;
 import com.mysema.query.jpa.JPQLQuery;
+import com.mysema.query.support.Expressions;
 import com.mysema.query.types.*;
 import com.mysema.query.types.expr.BooleanExpression;
+import com.mysema.query.types.expr.NumberExpression;
 import com.mysema.query.types.path.ComparablePath;
 import com.mysema.query.types.path.PathBuilder;
+import gumga.framework.application.GumgaQueryStatistics.Phase;
 import gumga.framework.core.SearchResult;
 import gumga.framework.domain.GumgaMultitenancy;
 import gumga.framework.domain.domains.GumgaOi;
@@ -12,6 +17,7 @@ import gumga.framework.domain.repository.GumgaMultitenancyUtil;
 import gumga.framework.domain.repository.GumgaQueryDSLRepository;
 import gumga.framework.domain.repository.ISpecification;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import javax.persistence.EntityManager;
@@ -28,13 +34,14 @@ import org.springframework.data.repository.NoRepositoryBean;
 public class GumgaQueryDSLRepositoryImpl<T, ID extends Serializable> extends GumgaGenericRepository<T, ID> implements GumgaQueryDSLRepository<T, ID> {
 
     private final EntityPath<T> path;
+    private final PathBuilder<T> builder;
     private final Querydsl querydsl;
 
     public GumgaQueryDSLRepositoryImpl(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
         super(entityInformation, entityManager);
 
         this.path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
-        PathBuilder<T> builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.builder = new PathBuilder<>(path.getType(), path.getMetadata());
         this.querydsl = new Querydsl(entityManager, builder);
     }
 
@@ -63,7 +70,8 @@ public class GumgaQueryDSLRepositoryImpl<T, ID extends Serializable> extends Gum
 
     @Override
     public <A> List<A> findAll(ISpecification specification, Expression<A> projection) {
-        return createQuery(specification).list(projection);
+        JPQLQuery query = createQuery(specification);
+        return measure(queryShape(query), Phase.PAGE, () -> query.list(projection));
     }
 
     @Override
@@ -73,11 +81,31 @@ public class GumgaQueryDSLRepositoryImpl<T, ID extends Serializable> extends Gum
 
     @Override
     public <A> Page<A> findAll(ISpecification specification, Pageable page, Expression<A> projection) {
-        long total = createQuery(specification).count();
+        JPQLQuery countQuery = createQuery(specification);
+        String shape = queryShape(countQuery);
+        if (GumgaPagedCount.supportsWindow(entityManager) && !isDistinct(countQuery)) {
+            NumberExpression<Long> countOver = Expressions.numberTemplate(Long.class, GumgaPagedCount.COUNT_OVER + "()");
+            JPQLQuery query = querydsl.applyPagination(page, createQuery(specification));
+            List<Tuple> rows = measure(shape, Phase.PAGE, () -> query.list(projection, countOver));
+            //Uma página vazia além da primeira não traz o total
+            if (!rows.isEmpty() || page.getOffset() == 0) {
+                List<A> content = new ArrayList<>(rows.size());
+                rows.forEach(row -> content.add(row.get(projection)));
+                return new PageImpl<>(content, page, rows.isEmpty() ? 0 : rows.get(0).get(countOver));
+            }
+        } else if (GumgaPagedCount.canCountInParallel()) {
+            GumgaPagedCount.Pending<Long> pending = GumgaPagedCount.inParallel(entityManager.getEntityManagerFactory(), other -> {
+                JPQLQuery otherQuery = createQuery(new Querydsl(other, builder), specification);
+                return () -> measure(shape, Phase.COUNT, otherQuery::count);
+            }, () -> measure(shape, Phase.COUNT, countQuery::count));
+            JPQLQuery query = querydsl.applyPagination(page, createQuery(specification));
+            List<A> content = measure(shape, Phase.PAGE, () -> query.list(projection));
+            return new PageImpl<>(content, page, pending.get());
+        }
+        long total = measure(shape, Phase.COUNT, countQuery::count);
 
-        JPQLQuery query = createQuery(specification);
-        query = querydsl.applyPagination(page, query);
-        List<A> content = total > page.getOffset() ? query.list(projection) : Collections.<A>emptyList();
+        JPQLQuery query = querydsl.applyPagination(page, createQuery(specification));
+        List<A> content = total > page.getOffset() ? measure(shape, Phase.PAGE, () -> query.list(projection)) : Collections.<A>emptyList();
 
         return new PageImpl<>(content, page, total);
     }
@@ -114,7 +142,8 @@ public class GumgaQueryDSLRepositoryImpl<T, ID extends Serializable> extends Gum
 
     @Override
     public long count(Predicate predicate) {
-        return createQuery(predicate).count();
+        JPQLQuery query = createQuery(predicate);
+        return measure(queryShape(query), Phase.COUNT, query::count);
     }
 
     private <A> SearchResult<A> createResultFromPageResult(Pageable page, Page<A> result) {
@@ -125,11 +154,30 @@ public class GumgaQueryDSLRepositoryImpl<T, ID extends Serializable> extends Gum
         return createQuery(toSpecification(predicate));
     }
 
+    /**
+     * Forma da consulta em {@link GumgaQueryStatistics}: o JPQL gerado, sem os
+     * valores literais.
+     */
+    private String queryShape(JPQLQuery query) {
+        return "querydsl|" + GumgaQueryStatistics.normalize(query.toString());
+    }
+
+    /**
+     * count(*) over() é calculado antes do distinct e contaria as repetições
+     */
+    private boolean isDistinct(JPQLQuery query) {
+        return !(query instanceof JPAQueryBase) || ((JPAQueryBase<?>) query).getMetadata().isDistinct();
+    }
+
     private ISpecification toSpecification(Predicate... predicate) {
         return query -> query.where(predicate);
     }
 
     private JPQLQuery createQuery(ISpecification specification) {
+        return createQuery(querydsl, specification);
+    }
+
+    private JPQLQuery createQuery(Querydsl querydsl, ISpecification specification) {
         JPQLQuery query = specification.createQuery(querydsl.createQuery(path));
 
         if (this.hasMultitenancy()) {
@@ -0,0 +1,222 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import gumga.framework.core.utils.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tempos das consultas feitas pelos repositórios, agrupados por entidade e
+ * pela forma normalizada da consulta (campos pesquisados, ordenação e aq sem
+ * os valores literais). As consultas de página e de count são medidas
+ * separadamente; as que passam de {@link #getSlowQueryThreshold()} são
+ * registradas no log com a organização e a operação. As que falham, como as
+ * canceladas por timeout, também entram nos tempos e são contadas à parte.
+ *
+ * @author Equipe Gumga
+ */
+public final class GumgaQueryStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaQueryStatistics.class);
+
+    public enum Phase {
+        PAGE, COUNT
+    }
+
+    /**
+     * Forma usada quando o número de formas chega a {@link #getMaxShapes()}
+     */
+    public static final String OTHERS = "*";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.:?])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * Consultas já normalizadas, descartadas quando chegam ao limite
+     */
+    private static final int MAX_NORMALIZED = 1000;
+
+    private static final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    private static volatile long slowQueryThreshold = 1000;
+
+    private static volatile int maxShapes = 1000;
+
+    private static volatile long since = System.currentTimeMillis();
+
+    private GumgaQueryStatistics() {
+    }
+
+    /**
+     * Registra a execução de uma consulta.
+     *
+     * @param entity entidade consultada
+     * @param shape forma normalizada da consulta
+     * @param phase página ou count
+     * @param nanos tempo de execução
+     * @param rows registros retornados
+     */
+    public static void record(Class<?> entity, String shape, Phase phase, long nanos, long rows) {
+        register(entity, shape, phase, nanos, rows, null);
+    }
+
+    /**
+     * Registra a execução de uma consulta que falhou.
+     *
+     * @param entity entidade consultada
+     * @param shape forma normalizada da consulta
+     * @param phase página ou count
+     * @param nanos tempo até a falha
+     * @param failure erro da consulta
+     */
+    public static void recordFailure(Class<?> entity, String shape, Phase phase, long nanos, Throwable failure) {
+        register(entity, shape, phase, nanos, 0, failure);
+    }
+
+    private static void register(Class<?> entity, String shape, Phase phase, long nanos, long rows, Throwable failure) {
+        String key = entity.getName() + "|" + shape;
+        Shape statistics = shapes.get(key);
+        if (statistics == null) {
+            if (shapes.size() >= maxShapes) {
+                key = entity.getName() + "|" + OTHERS;
+                shape = OTHERS;
+            }
+            String shapeName = shape;
+            statistics = shapes.computeIfAbsent(key, k -> new Shape(entity.getName(), shapeName));
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        if (failure != null) {
+            statistics.failed.increment();
+        }
+        if (phase == Phase.COUNT) {
+            statistics.count.record(micros);
+        } else {
+            statistics.page.record(micros);
+            statistics.rows.add(rows);
+            statistics.maxRows.accumulateAndGet(rows, Math::max);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis >= slowQueryThreshold) {
+            statistics.slow.increment();
+            String outcome = failure == null ? "linhas[" + rows + "]" : "falhou[" + failure + "]";
+            log.warn(String.format("Consulta lenta %s %dms %s - %s %s - organizacao[%s] operacao[%s]", phase, millis, outcome,
+                    entity.getSimpleName(), shape, GumgaThreadScope.organizationCode.get(), GumgaThreadScope.operationKey.get()));
+        }
+    }
+
+    /**
+     * Substitui os valores literais por ? e remove os espaços repetidos. O
+     * resultado é guardado e reaproveitado pelas consultas com o mesmo texto.
+     *
+     * @param query hql ou aq
+     * @return modelo da consulta
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String toReturn = normalized.get(query);
+        if (toReturn == null) {
+            toReturn = replaceLiterals(query);
+            if (normalized.size() >= MAX_NORMALIZED) {
+                normalized.clear();
+            }
+            normalized.put(query, toReturn);
+        }
+        return toReturn;
+    }
+
+    private static String replaceLiterals(String query) {
+        String toReturn = STRING_LITERAL.matcher(query).replaceAll("?");
+        toReturn = NUMBER_LITERAL.matcher(toReturn).replaceAll("?");
+        toReturn = LIST.matcher(toReturn).replaceAll("?");
+        return SPACES.matcher(toReturn).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return estatísticas por entidade e forma, da que consumiu mais tempo
+     * para a que consumiu menos; tempos em milisegundos
+     */
+    public static List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> toReturn = new ArrayList<>();
+        for (Shape shape : shapes.values()) {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("entity", shape.entity);
+            statistics.put("shape", shape.shape);
+            statistics.put("totalTime", (shape.page.getSum() + shape.count.getSum()) / 1000d);
+            statistics.put("slow", shape.slow.sum());
+            statistics.put("failed", shape.failed.sum());
+            statistics.put("rows", shape.rows.sum());
+            statistics.put("maxRows", shape.maxRows.get());
+            statistics.put("page", shape.page.toMap());
+            statistics.put("count", shape.count.toMap());
+            toReturn.add(statistics);
+        }
+        toReturn.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) m.get("totalTime")).reversed());
+        return toReturn;
+    }
+
+    /**
+     * @return início do período medido
+     */
+    public static long getSince() {
+        return since;
+    }
+
+    public static void reset() {
+        shapes.clear();
+        since = System.currentTimeMillis();
+    }
+
+    public static long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * @param slowQueryThreshold tempo em milisegundos a partir do qual a
+     * consulta é registrada no log
+     */
+    public static void setSlowQueryThreshold(long slowQueryThreshold) {
+        GumgaQueryStatistics.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public static int getMaxShapes() {
+        return maxShapes;
+    }
+
+    public static void setMaxShapes(int maxShapes) {
+        GumgaQueryStatistics.maxShapes = maxShapes;
+    }
+
+    private static final class Shape {
+
+        private final String entity;
+        private final String shape;
+        private final LatencyHistogram page = new LatencyHistogram();
+        private final LatencyHistogram count = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxRows = new AtomicLong();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private Shape(String entity, String shape) {
+            this.entity = entity;
+            this.shape = shape;
+        }
+    }
+
+}
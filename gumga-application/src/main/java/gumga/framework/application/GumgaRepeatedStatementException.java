@@ -0,0 +1,17 @@
+package gumga.framework.application;
+
+/**
+ * Lançada por {@link GumgaStatementCounter} quando uma mesma instrução SQL é
+ * executada mais vezes que o limite em uma requisição (N+1).
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaRepeatedStatementException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public GumgaRepeatedStatementException(String message) {
+        super(message);
+    }
+
+}
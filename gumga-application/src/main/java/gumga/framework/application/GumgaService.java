@@ -6,11 +6,19 @@ import gumga.framework.core.QueryObject;
 import gumga.framework.core.SearchResult;
 import gumga.framework.domain.GumgaObjectAndRevision;
 import gumga.framework.domain.GumgaServiceable;
+import gumga.framework.domain.domains.GumgaFileStreamHandler;
 import gumga.framework.domain.repository.GumgaCrudRepository;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -35,6 +43,35 @@ public abstract class GumgaService<T extends GumgaIdable<ID>, ID extends Seriali
         return result;
     }
 
+    /**
+     * Percorre todos os registros da pesquisa sem paginação, utilizado em
+     * exportações. A cada chunkSize registros os já percorridos são retirados
+     * da sessão.
+     *
+     * @param query pesquisa com os filtros e a ordenação
+     * @param chunkSize registros buscados do banco por vez
+     * @param action ação executada para cada registro
+     */
+    @Transactional(readOnly = true)
+    public void percorre(QueryObject query, int chunkSize, Consumer<T> action) {
+        beforePesquisa(query);
+        repository.scroll(query, chunkSize, action);
+    }
+
+    /**
+     * Registros da pesquisa lidos conforme consumidos, utilizado em relatórios.
+     * Deve ser consumido e fechado dentro da transação de quem chama.
+     *
+     * @param query pesquisa com os filtros e a ordenação
+     * @param chunkSize registros buscados do banco por vez
+     * @return registros da pesquisa
+     */
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<T> stream(QueryObject query, int chunkSize) {
+        beforePesquisa(query);
+        return repository.stream(query, chunkSize);
+    }
+
     public void beforeView(ID id) {
     }
 
@@ -57,6 +94,32 @@ public abstract class GumgaService<T extends GumgaIdable<ID>, ID extends Seriali
         return entity;
     }
 
+    /**
+     * Busca vários objetos de uma classe com uma consulta por lote de ids.
+     *
+     * @param clazz classe a ser pesquisada
+     * @param ids ids a serem pesquisados
+     * @return mapa de id para objeto encontrado
+     */
+    @Transactional(readOnly = true)
+    public Map<Object, Object> genericViewAll(Class clazz, Collection<?> ids) {
+        return repository.genericFindAll(clazz, ids);
+    }
+
+    /**
+     * Executa a ação em uma transação própria, confirmada ao seu término mesmo
+     * que haja uma transação em andamento. Utilizado para gravar importações
+     * em lotes independentes.
+     *
+     * @param <R> retorno da ação
+     * @param action ação a ser executada
+     * @return o retorno da ação
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public <R> R executeInNewTransaction(Supplier<R> action) {
+        return action.get();
+    }
+
     public void beforeDelete(T entity) {
     }
 
@@ -125,4 +188,18 @@ public abstract class GumgaService<T extends GumgaIdable<ID>, ID extends Seriali
         return oldVersions;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public SearchResult<GumgaObjectAndRevision> listOldVersions(Long id, int start, int pageSize, boolean diff) {
+        return repository.listOldVersions((ID) id, start, pageSize, diff);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public boolean streamFile(Long id, String property, GumgaFileStreamHandler handler) throws IOException {
+        return repository.streamFile((ID) id, property, handler);
+    }
+
 }
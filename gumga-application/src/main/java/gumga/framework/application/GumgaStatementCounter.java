@@ -0,0 +1,182 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.hibernate.EmptyInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Conta as instruções SQL executadas em cada requisição, agrupadas pela forma
+ * normalizada, para encontrar consultas N+1 (associações lazy carregadas uma a
+ * uma). É registrado como interceptor do Hibernate por
+ * {@link gumga.framework.application.spring.config.DatabaseConfigSupport} quando
+ * a propriedade de sistema
+ * {@value gumga.framework.application.spring.config.DatabaseConfigSupport#STATEMENT_COUNTER_PROPERTY}
+ * é true; sem o interceptor {@link #begin(int, boolean)} não faz nada.
+ *
+ * Os filtros de requisição chamam {@link #begin(int, boolean)},
+ * {@link #check(int, boolean)} e {@link #end()}; fora deles a contagem pode ser
+ * feita da mesma forma, por exemplo em testes. No modo de falha a exceção é
+ * lançada ao preparar a instrução que passou do limite, antes da resposta ser
+ * escrita; o {@link #check(int, boolean)} no fim da requisição apenas registra
+ * no log, pois a resposta já foi enviada.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaStatementCounter extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LoggerFactory.getLogger(GumgaStatementCounter.class);
+
+    /**
+     * Formas distintas contadas por requisição, as demais são somadas em
+     * {@link GumgaQueryStatistics#OTHERS}
+     */
+    private static final int MAX_SHAPES = 1000;
+
+    private static final ThreadLocal<Result> current = new ThreadLocal<>();
+
+    private static volatile boolean active;
+
+    public GumgaStatementCounter() {
+        active = true;
+    }
+
+    /**
+     * @return se o interceptor foi registrado em alguma fábrica de sessões
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        Result result = current.get();
+        if (result != null) {
+            result.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Inicia a contagem na thread corrente, sem verificação ao preparar as
+     * instruções.
+     */
+    public static void begin() {
+        begin(0, false);
+    }
+
+    /**
+     * Inicia a contagem na thread corrente, descartando uma contagem anterior.
+     * Não faz nada se o interceptor não está registrado.
+     *
+     * @param limit execuções permitidas de uma mesma forma, 0 não verifica
+     * @param fail lança {@link GumgaRepeatedStatementException} ao preparar a
+     * instrução que passar do limite
+     */
+    public static void begin(int limit, boolean fail) {
+        if (!active) {
+            return;
+        }
+        current.set(new Result(fail ? limit : 0));
+    }
+
+    /**
+     * Verifica as formas que passaram do limite e ainda não foram apontadas.
+     *
+     * @param limit execuções permitidas de uma mesma forma, 0 não verifica
+     * @param fail lança {@link GumgaRepeatedStatementException} em vez de
+     * registrar no log
+     */
+    public static void check(int limit, boolean fail) {
+        Result result = current.get();
+        if (result == null || limit <= 0) {
+            return;
+        }
+        Map<String, Integer> repeated = result.getRepeated(limit);
+        repeated.keySet().removeAll(result.reported.keySet());
+        if (repeated.isEmpty()) {
+            return;
+        }
+        result.reported.putAll(repeated);
+        String message = message(repeated);
+        if (fail) {
+            throw new GumgaRepeatedStatementException(message);
+        }
+        log.warn(message);
+    }
+
+    private static String message(Map<String, Integer> repeated) {
+        return String.format("Instrucoes repetidas (N+1) na operacao[%s] organizacao[%s]: %s",
+                GumgaThreadScope.operationKey.get(), GumgaThreadScope.organizationCode.get(), repeated);
+    }
+
+    /**
+     * Encerra a contagem na thread corrente.
+     *
+     * @return instruções contadas desde {@link #begin()} ou null se a contagem
+     * não foi iniciada
+     */
+    public static Result end() {
+        Result result = current.get();
+        current.remove();
+        return result;
+    }
+
+    /**
+     * Instruções executadas por forma
+     */
+    public static final class Result {
+
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Integer> reported = new HashMap<>();
+        private final int failLimit;
+        private int total;
+
+        private Result(int failLimit) {
+            this.failLimit = failLimit;
+        }
+
+        private void add(String sql) {
+            total++;
+            String shape = GumgaQueryStatistics.normalize(sql);
+            if (counts.size() >= MAX_SHAPES && !counts.containsKey(shape)) {
+                shape = GumgaQueryStatistics.OTHERS;
+            }
+            int count = counts.merge(shape, 1, Integer::sum);
+            if (failLimit > 0 && count > failLimit && !GumgaQueryStatistics.OTHERS.equals(shape)
+                    && !reported.containsKey(shape)) {
+                reported.put(shape, count);
+                throw new GumgaRepeatedStatementException(message(Collections.singletonMap(shape, count)));
+            }
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<String, Integer> getCounts() {
+            return Collections.unmodifiableMap(counts);
+        }
+
+        /**
+         * @param limit execuções permitidas de uma mesma forma
+         * @return formas executadas mais vezes que o limite, da mais repetida
+         * para a menos repetida
+         */
+        public Map<String, Integer> getRepeated(int limit) {
+            Map<String, Integer> toReturn = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                    .filter(e -> e.getValue() > limit && !GumgaQueryStatistics.OTHERS.equals(e.getKey()))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> toReturn.put(e.getKey(), e.getValue()));
+            return toReturn;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package gumga.framework.application;
+
+import gumga.framework.domain.domains.GumgaFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivo temporário de upload armazenado em disco pelo
+ * {@link GumgaTempFileService}. O conteúdo é lido sob demanda, por stream ou
+ * mapeado em memória, sem carregar um array no heap.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaTempFile {
+
+    private final String id;
+    private final String name;
+    private final String mimeType;
+    private final long size;
+    private final Class<? extends GumgaFile> type;
+    private final Path path;
+
+    GumgaTempFile(String id, String name, String mimeType, long size, Class<? extends GumgaFile> type, Path path) {
+        this.id = id;
+        this.name = name;
+        this.mimeType = mimeType;
+        this.size = size;
+        this.type = type;
+        this.path = path;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return classe do arquivo enviado, {@link GumgaFile} ou uma subclasse
+     * como GumgaImage
+     */
+    public Class<? extends GumgaFile> getType() {
+        return type;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return stream do conteúdo, que deve ser fechado por quem o utilizar
+     */
+    public InputStream openStream() throws IOException {
+        return Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @return conteúdo mapeado em memória, somente leitura
+     */
+    public MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Carrega o conteúdo em um {@link GumgaFile}, para gravação na entidade.
+     *
+     * @return o arquivo com os bytes
+     */
+    public GumgaFile toGumgaFile() throws IOException {
+        GumgaFile toReturn;
+        try {
+            toReturn = type.newInstance();
+        } catch (InstantiationException | IllegalAccessException ex) {
+            toReturn = new GumgaFile();
+        }
+        byte[] bytes = new byte[(int) size];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+        }
+        toReturn.setName(name);
+        toReturn.setMimeType(mimeType);
+        toReturn.setSize(size);
+        toReturn.setBytes(bytes);
+        return toReturn;
+    }
+
+}
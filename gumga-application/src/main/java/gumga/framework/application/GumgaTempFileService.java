@@ -7,69 +7,249 @@ package gumga.framework.application;
 
 import gumga.framework.core.GumgaValues;
 import gumga.framework.domain.domains.GumgaFile;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.Random;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Armazena os arquivos de upload até que a entidade seja gravada. O conteúdo
+ * é gravado em disco por um {@link FileChannel} em um arquivo .data e os
+ * metadados em um arquivo .meta ao lado. Arquivos não utilizados são removidos
+ * após {@link GumgaValues#getUploadTempTimeToLive()}.
+ */
 @Service
 public class GumgaTempFileService {
     
     private static final Logger log=LoggerFactory.getLogger(GumgaTempFileService.class);
 
+    private static final String PREFIX = "uploadData";
+
+    private static final Pattern VALID_NAME = Pattern.compile(PREFIX + "[0-9a-f\\-]+");
+
+    private static final String DATA = ".data";
+
+    private static final String META = ".meta";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     private GumgaValues gumgaValues;
 
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gumga-temp-file-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(TimeUnit.MINUTES.toMillis(1), gumgaValues.getUploadTempTimeToLive() / 4);
+        cleaner.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
     public String create(GumgaFile gumgaFile) {
-        String tempFileName = "uploadData" + (System.currentTimeMillis() * 1000 + new Random().nextInt(1000));
-
-        try { //TODO Arrumar o tratamento da Exception
-            File folder = new File(gumgaValues.getUploadTempDir());
-            folder.mkdirs();
-            FileOutputStream fos = new FileOutputStream(gumgaValues.getUploadTempDir() + "/" + tempFileName);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(gumgaFile);
-            oos.close();
-            fos.close();
-            return tempFileName;
-        } catch (Exception ex) {
-            log.error("erro ao criar arquivo temporario "+tempFileName, ex);
+        try {
+            byte[] bytes = gumgaFile.getBytes() == null ? new byte[0] : gumgaFile.getBytes();
+            return store(gumgaFile.getClass(), gumgaFile.getName(), gumgaFile.getMimeType(), channel -> {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                return bytes.length;
+            });
+        } catch (IOException ex) {
+            log.error("erro ao criar arquivo temporario de " + gumgaFile.getName(), ex);
         }
         return "error";
     }
 
+    /**
+     * Grava o conteúdo do upload em disco à medida que é lido, sem mantê-lo
+     * em memória.
+     *
+     * @param type classe do arquivo, {@link GumgaFile} ou uma subclasse
+     * @param name nome do arquivo
+     * @param mimeType tipo do conteúdo
+     * @param content conteúdo, não é fechado
+     * @return identificador do arquivo temporário
+     */
+    public String create(Class<? extends GumgaFile> type, String name, String mimeType, InputStream content) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(content);
+        return store(type, name, mimeType, channel -> {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long size = 0;
+            int read;
+            while ((read = source.read(buffer)) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+                size += read;
+            }
+            return size;
+        });
+    }
+
     public String delete(String fileName) {
-        try { //TODO Arrumar o tratamento da Exception
-            File file = new File(gumgaValues.getUploadTempDir() + "/" + fileName);
-            file.delete();
+        if (!isValid(fileName)) {
+            return "error";
+        }
+        try {
+            Files.deleteIfExists(path(fileName, META));
+            Files.deleteIfExists(path(fileName, DATA));
             return "OK";
-        } catch (Exception ex) {
+        } catch (IOException ex) {
             log.error("erro ao excluir arquivo temporario "+fileName, ex);
         }
         return "error";
     }
 
+    /**
+     * Carrega o arquivo temporário com o conteúdo em memória. Para arquivos
+     * grandes prefira {@link #open(String)}.
+     *
+     * @param tempFileName identificador retornado na criação
+     * @return o arquivo ou null se não existir
+     */
     public GumgaFile find(String tempFileName) {
-        if (tempFileName == null||tempFileName.isEmpty()){
+        GumgaTempFile tempFile = open(tempFileName);
+        if (tempFile == null) {
+            return null;
+        }
+        try {
+            return tempFile.toGumgaFile();
+        } catch (IOException ex) {
+            log.error("erro ao recuperar arquivo temporario "+tempFileName, ex);
+        }
+        return null;
+    }
+
+    /**
+     * @param tempFileName identificador retornado na criação
+     * @return os metadados e o acesso ao conteúdo em disco ou null se não
+     * existir
+     */
+    public GumgaTempFile open(String tempFileName) {
+        if (!isValid(tempFileName)) {
+            return null;
+        }
+        Path meta = path(tempFileName, META);
+        if (!Files.exists(meta)) {
             return null;
         }
-        try { //TODO Melhorar o tratamento da Exception para FileNotFound
-            FileInputStream fis = new FileInputStream(gumgaValues.getUploadTempDir() + "/" + tempFileName);
-            ObjectInputStream ois = new ObjectInputStream(fis);
-            GumgaFile gf = (GumgaFile) ois.readObject();
-            ois.close();
-            fis.close();
-            return gf;
-        } catch (Exception ex) {
+        try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            Class<? extends GumgaFile> type = Class.forName(properties.getProperty("type")).asSubclass(GumgaFile.class);
+            return new GumgaTempFile(tempFileName, properties.getProperty("name"), properties.getProperty("mimeType"),
+                    Long.parseLong(properties.getProperty("size")), type, path(tempFileName, DATA));
+        } catch (IOException | ClassNotFoundException | RuntimeException ex) {
             log.error("erro ao recuperar arquivo temporario "+tempFileName, ex);
         }
         return null;
     }
 
+    /**
+     * Remove os arquivos temporários criados há mais tempo que
+     * {@link GumgaValues#getUploadTempTimeToLive()}.
+     *
+     * @return quantidade de arquivos removidos
+     */
+    public int evictExpired() {
+        Path folder = Paths.get(gumgaValues.getUploadTempDir());
+        if (!Files.isDirectory(folder)) {
+            return 0;
+        }
+        long limit = System.currentTimeMillis() - gumgaValues.getUploadTempTimeToLive();
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, PREFIX + "*")) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < limit && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                } catch (IOException ex) {
+                    log.warn("erro ao remover arquivo temporario " + file, ex);
+                }
+            }
+        } catch (IOException ex) {
+            log.error("erro ao remover arquivos temporarios de " + folder, ex);
+        }
+        return removed;
+    }
+
+    private String store(Class<? extends GumgaFile> type, String name, String mimeType, ContentWriter writer) throws IOException {
+        Files.createDirectories(Paths.get(gumgaValues.getUploadTempDir()));
+        String tempFileName = PREFIX + UUID.randomUUID();
+        Path data = path(tempFileName, DATA);
+        long size;
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            size = writer.write(channel);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(data);
+            throw ex;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("type", type.getName());
+        properties.setProperty("size", String.valueOf(size));
+        if (name != null) {
+            properties.setProperty("name", name);
+        }
+        if (mimeType != null) {
+            properties.setProperty("mimeType", mimeType);
+        }
+        //Os metadados só aparecem depois de completos
+        Path partial = path(tempFileName, META + ".tmp");
+        try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            properties.store(out, null);
+        }
+        Files.move(partial, path(tempFileName, META), StandardCopyOption.ATOMIC_MOVE);
+        return tempFileName;
+    }
+
+    private Path path(String tempFileName, String extension) {
+        return Paths.get(gumgaValues.getUploadTempDir(), tempFileName + extension);
+    }
+
+    private static boolean isValid(String tempFileName) {
+        return tempFileName != null && VALID_NAME.matcher(tempFileName).matches();
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+
+        long write(FileChannel channel) throws IOException;
+    }
+
 }
@@ -5,11 +5,25 @@
  */
 package gumga.framework.application;
 
+import gumga.framework.core.utils.EntityMetadata;
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.persistence.Entity;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -18,26 +32,64 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.engine.ProjectionConstants;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.Search;
 import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.engine.spi.EntityInfo;
+import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.spi.SearchIntegrator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
+ * Pesquisa textual em todas as entidades @Indexed. As entidades são
+ * pesquisadas em paralelo no índice, o resultado é ordenado pela relevância e
+ * somente a página pedida é carregada do banco.
  *
  * @author wlademir
  */
 @Service
 public class GumgaUntypedRepository {
 
+    /**
+     * Ocorrências retornadas por {@link #fullTextSearch(String)}
+     */
+    public static final int DEPRECATED_SEARCH_LIMIT = 1000;
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
     @PersistenceContext
     private EntityManager em;
 
+    /**
+     * Atributos @Field e construtor de consultas de cada entidade
+     */
+    private final Map<Class<?>, Target> targets = new ConcurrentHashMap<>();
+
+    private volatile List<Class<?>> indexedEntities;
+
+    private ExecutorService searchers;
+
     public GumgaUntypedRepository() {
 
     }
 
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        searchers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "gumga-fulltext-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchers.shutdownNow();
+    }
+
     @Transactional
     public void save(Object obj) {
         em.persist(obj);
@@ -50,39 +102,137 @@ public class GumgaUntypedRepository {
         return fullTextEntityManager.createFullTextQuery(query, entidade).getResultList();
     }
 
+    /**
+     * @deprecated retorna somente as {@value #DEPRECATED_SEARCH_LIMIT}
+     * ocorrências mais relevantes, utilize
+     * {@link #fullTextSearch(String, int, int)}
+     */
+    @Deprecated
+    @Transactional(readOnly = true)
     public List<Object> fullTextSearch(String text) {
-        List aRetornar = new ArrayList();
-
-        for (Class entidade : getAllIndexedEntities()) {
-            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
-            QueryBuilder qb = fullTextEntityManager.getSearchFactory().buildQueryBuilder().forEntity(entidade).get();
-            String atributos = "";
-            List<Field> todosAtributos = getTodosAtributos(entidade);
-            for (Field f : todosAtributos) {
-                if (f.isAnnotationPresent(org.hibernate.search.annotations.Field.class)) {
-                    atributos += f.getName() + ",";
+        return fullTextSearch(text, 0, DEPRECATED_SEARCH_LIMIT).getValues();
+    }
+
+    /**
+     * Pesquisa o texto nos atributos @Field de todas as entidades @Indexed.
+     *
+     * @param text texto pesquisado
+     * @param start primeira ocorrência da página, na ordem de relevância
+     * @param pageSize quantidade máxima de ocorrências
+     * @return a página com as ocorrências por entidade
+     */
+    @Transactional(readOnly = true)
+    public GumgaFullTextResult<Object> fullTextSearch(String text, int start, int pageSize) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+        SearchIntegrator integrator = fullTextEntityManager.getSearchFactory().unwrap(SearchIntegrator.class);
+        int top = (int) Math.min(Integer.MAX_VALUE, (long) start + pageSize);
+
+        Map<Class<?>, Future<EntityHits>> searches = new LinkedHashMap<>();
+        for (Class<?> entidade : getAllIndexedEntities()) {
+            Target target = targets.computeIfAbsent(entidade, k -> new Target(fullTextEntityManager, k));
+            if (target.fields.length == 0) {
+                continue;
+            }
+            Query query = target.queryBuilder.keyword().onFields(target.fields).matching(text).createQuery();
+            searches.put(entidade, searchers.submit(() -> {
+                HSQuery hsQuery = integrator.createHSQuery()
+                        .luceneQuery(query)
+                        .targetedEntities(Collections.<Class<?>>singletonList(entidade))
+                        .projection(ProjectionConstants.SCORE, ProjectionConstants.ID)
+                        .maxResults(top);
+                List<EntityInfo> infos = hsQuery.queryEntityInfos();
+                return new EntityHits(infos, hsQuery.queryResultSize());
+            }));
+        }
+
+        Map<String, Long> facets = new LinkedHashMap<>();
+        Map<String, EntityInfo> hits = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<Class<?>, Future<EntityHits>> search : searches.entrySet()) {
+            EntityHits entityHits = get(search.getValue());
+            facets.put(search.getKey().getName(), (long) entityHits.count);
+            total += entityHits.count;
+            for (EntityInfo info : entityHits.infos) {
+                //Subclasses indexadas também aparecem na pesquisa da superclasse
+                hits.putIfAbsent(key(info), info);
+            }
+        }
+        List<EntityInfo> page = hits.values().stream()
+                .sorted(Comparator.comparing((EntityInfo info) -> (Float) info.getProjection()[0]).reversed())
+                .skip(start)
+                .limit(pageSize)
+                .collect(Collectors.toList());
+        return load(page, start, pageSize, total, facets);
+    }
+
+    /**
+     * Carrega as entidades da página com uma consulta por classe, mantendo a
+     * ordem de relevância
+     */
+    private GumgaFullTextResult<Object> load(List<EntityInfo> page, int start, int pageSize, long total, Map<String, Long> facets) {
+        Session session = em.unwrap(Session.class);
+        Map<Class<?>, List<Serializable>> idsByClass = new LinkedHashMap<>();
+        for (EntityInfo info : page) {
+            idsByClass.computeIfAbsent(info.getClazz(), k -> new ArrayList<>()).add((Serializable) info.getProjection()[1]);
+        }
+        Map<String, Object> loaded = new HashMap<>();
+        for (Map.Entry<Class<?>, List<Serializable>> entry : idsByClass.entrySet()) {
+            String idName = session.getSessionFactory().getClassMetadata(entry.getKey()).getIdentifierPropertyName();
+            List<Serializable> ids = entry.getValue();
+            for (int i = 0; i < ids.size(); i += IN_CLAUSE_LIMIT) {
+                List<Serializable> part = ids.subList(i, Math.min(i + IN_CLAUSE_LIMIT, ids.size()));
+                List<?> entities = session.createQuery("from " + entry.getKey().getName() + " obj where obj." + idName + " in (:ids)")
+                        .setParameterList("ids", part)
+                        .list();
+                for (Object entity : entities) {
+                    loaded.put(entry.getKey().getName() + "#" + session.getIdentifier(entity), entity);
                 }
             }
-            if (!atributos.isEmpty()) {
-                atributos = atributos.substring(0, atributos.length() - 1);
-                Query query = qb.keyword().onFields(atributos.split(",")).matching(text).createQuery();
-                aRetornar.addAll(fullTextEntityManager.createFullTextQuery(query, entidade).getResultList());
+        }
+        List<Object> values = new ArrayList<>();
+        List<Float> scores = new ArrayList<>();
+        for (EntityInfo info : page) {
+            //Registros excluídos que ainda estão no índice são ignorados
+            Object entity = loaded.get(key(info));
+            if (entity != null) {
+                values.add(entity);
+                scores.add((Float) info.getProjection()[0]);
             }
         }
-        return aRetornar;
+        return new GumgaFullTextResult<>(start, pageSize, total, values, scores, facets);
     }
 
-    public static List<Field> getTodosAtributos(Class classe) throws SecurityException {
-        List<Field> aRetornar = new ArrayList<>();
-        if (!classe.getSuperclass().equals(Object.class)) {
-            aRetornar.addAll(getTodosAtributos(classe.getSuperclass()));
+    private static String key(EntityInfo info) {
+        return info.getClazz().getName() + "#" + info.getProjection()[1];
+    }
+
+    private static EntityHits get(Future<EntityHits> search) {
+        try {
+            return search.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pesquisa interrompida", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
         }
-        aRetornar.addAll(Arrays.asList(classe.getDeclaredFields()));
-        return aRetornar;
     }
 
-    private List<Class> getAllIndexedEntities() {
-        List<Class> aRetornar = new ArrayList<>();
+    public static List<Field> getTodosAtributos(Class classe) throws SecurityException {
+        return EntityMetadata.of(classe).getFields();
+    }
+
+    /**
+     * @return entidades @Indexed mapeadas, ordenadas pelo nome
+     */
+    public List<Class<?>> getAllIndexedEntities() {
+        List<Class<?>> aRetornar = indexedEntities;
+        if (aRetornar != null) {
+            return aRetornar;
+        }
+        aRetornar = new ArrayList<>();
         Session session = em.unwrap(Session.class);
         SessionFactory sessionFactory = session.getSessionFactory();
         Map<String, ClassMetadata> map = (Map<String, ClassMetadata>) sessionFactory.getAllClassMetadata();
@@ -92,7 +242,34 @@ public class GumgaUntypedRepository {
                 aRetornar.add(mappedClass);
             }
         }
-        return aRetornar;
+        aRetornar.sort(Comparator.comparing(Class::getName));
+        indexedEntities = Collections.unmodifiableList(aRetornar);
+        return indexedEntities;
+    }
+
+    private static final class Target {
+
+        private final QueryBuilder queryBuilder;
+        private final String[] fields;
+
+        private Target(FullTextEntityManager fullTextEntityManager, Class<?> entidade) {
+            queryBuilder = fullTextEntityManager.getSearchFactory().buildQueryBuilder().forEntity(entidade).get();
+            fields = getTodosAtributos(entidade).stream()
+                    .filter(f -> f.isAnnotationPresent(org.hibernate.search.annotations.Field.class))
+                    .map(Field::getName)
+                    .toArray(String[]::new);
+        }
+    }
+
+    private static final class EntityHits {
+
+        private final List<EntityInfo> infos;
+        private final int count;
+
+        private EntityHits(List<EntityInfo> infos, int count) {
+            this.infos = infos;
+            this.count = count;
+        }
     }
 
 }
@@ -1,11 +1,15 @@
 package gumga.framework.application.customfields;
 
 import gumga.framework.core.GumgaIdable;
-import gumga.framework.domain.GumgaModel;
 import gumga.framework.domain.customfields.GumgaCustomField;
 import gumga.framework.domain.customfields.GumgaCustomFieldValue;
 import gumga.framework.domain.customfields.GumgaCustomizableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -43,14 +47,45 @@ public class GumgaCustomEnhancerService {
         if (!(gumgaModel instanceof GumgaCustomizableModel)) {
             return;
         }
-        GumgaCustomizableModel gumgaCustomizable = (GumgaCustomizableModel) gumgaModel;
-        List<GumgaCustomField> customFields = customFieldService.findByClass(gumgaModel.getClass());
-        for (GumgaCustomField cf : customFields) {
-            Object value = customFieldValueService.getValue(cf, (GumgaModel) gumgaModel);
-            if (value == null) {
-                value = newValue(cf);
+        loadCustomFields(Collections.singletonList(gumgaModel));
+    }
+
+    /**
+     * Carrega os atributos genéricos de vários objetos com uma consulta de
+     * valores por classe, utilizado em listagens e exportações.
+     *
+     * @param gumgaModels objetos, os que não são {@link GumgaCustomizableModel}
+     * são ignorados
+     */
+    public void loadCustomFields(Collection<?> gumgaModels) {
+        Map<Class, List<GumgaCustomizableModel>> byClass = new HashMap<>();
+        for (Object gumgaModel : gumgaModels) {
+            if (gumgaModel instanceof GumgaCustomizableModel) {
+                byClass.computeIfAbsent(gumgaModel.getClass(), k -> new ArrayList<>()).add((GumgaCustomizableModel) gumgaModel);
+            }
+        }
+        for (Map.Entry<Class, List<GumgaCustomizableModel>> entry : byClass.entrySet()) {
+            List<GumgaCustomField> customFields = customFieldService.findByClass(entry.getKey());
+            if (customFields.isEmpty()) {
+                continue;
+            }
+            List<Long> ids = new ArrayList<>();
+            for (GumgaCustomizableModel gumgaCustomizable : entry.getValue()) {
+                if (gumgaCustomizable.getId() != null) {
+                    ids.add((Long) gumgaCustomizable.getId());
+                }
+            }
+            Map<Long, Map<GumgaCustomField, GumgaCustomFieldValue>> values = customFieldValueService.getValues(customFields, ids);
+            for (GumgaCustomizableModel gumgaCustomizable : entry.getValue()) {
+                Map<GumgaCustomField, GumgaCustomFieldValue> modelValues = values.getOrDefault(gumgaCustomizable.getId(), Collections.emptyMap());
+                for (GumgaCustomField cf : customFields) {
+                    GumgaCustomFieldValue value = modelValues.get(cf);
+                    if (value == null) {
+                        value = newValue(cf);
+                    }
+                    gumgaCustomizable.getGumgaCustomFields().put(cf.getName(), value);
+                }
             }
-            gumgaCustomizable.getGumgaCustomFields().put(cf.getName(), value);
         }
     }
 
@@ -59,15 +94,15 @@ public class GumgaCustomEnhancerService {
             return;
         }
         GumgaCustomizableModel gumgaCustomizable = (GumgaCustomizableModel) gumgaModel;
-        Set<String> keySet = gumgaCustomizable.getGumgaCustomFields().keySet();
-        for (String s : keySet) {
-            GumgaCustomFieldValue value = (GumgaCustomFieldValue) gumgaCustomizable.getGumgaCustomFields().get(s);
+        List<GumgaCustomFieldValue> values = new ArrayList<>();
+        for (Object value : gumgaCustomizable.getGumgaCustomFields().values()) {
             if (value != null) {
-                value.setGumgaModelId((Long) gumgaModel.getId());
-                customFieldValueService.save(value);
+                values.add((GumgaCustomFieldValue) value);
             }
         }
-
+        if (!values.isEmpty()) {
+            customFieldValueService.saveAll((Long) gumgaModel.getId(), values);
+        }
     }
 
     public void deleteCustomFields(GumgaIdable gumgaModel) {
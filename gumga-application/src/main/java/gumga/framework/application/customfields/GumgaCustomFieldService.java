@@ -1,17 +1,35 @@
 package gumga.framework.application.customfields;
 
 import gumga.framework.application.GumgaService;
+import gumga.framework.core.CountStrategy;
 import gumga.framework.core.QueryObject;
+import gumga.framework.domain.GumgaMultitenancy;
 import gumga.framework.domain.customfields.GumgaCustomField;
+import gumga.framework.domain.repository.GumgaMultitenancyUtil;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class GumgaCustomFieldService extends GumgaService<GumgaCustomField, Long> {
 
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(1);
+
     private final GumgaCustomFieldRepository repository;
 
+    /**
+     * Definições por organização e classe. Invalidado a cada alteração de
+     * {@link GumgaCustomField}; o tempo de vida limita a defasagem causada por
+     * alterações feitas em outros nós.
+     */
+    private final Map<String, Definitions> definitions = new ConcurrentHashMap<>();
+
     @Autowired
     public GumgaCustomFieldService(GumgaCustomFieldRepository repository) {
         super(repository);
@@ -19,8 +37,14 @@ public class GumgaCustomFieldService extends GumgaService<GumgaCustomField, Long
     }
 
     List<GumgaCustomField> findByClass(String clazzName) {
-        return repository.search(getQueryObject(clazzName)).getValues();
-
+        String key = GumgaMultitenancyUtil.getMultitenancyPattern(GumgaCustomField.class.getAnnotation(GumgaMultitenancy.class)) + "|" + clazzName;
+        Definitions cached = definitions.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.created <= TIME_TO_LIVE) {
+            return cached.fields;
+        }
+        List<GumgaCustomField> fields = Collections.unmodifiableList(repository.search(getQueryObject(clazzName)).getValues());
+        definitions.put(key, new Definitions(fields));
+        return fields;
     }
 
     List<GumgaCustomField> findByClass(Class c) {
@@ -31,12 +55,55 @@ public class GumgaCustomFieldService extends GumgaService<GumgaCustomField, Long
         return findByClass(obj.getClass());
     }
 
+    @Override
+    public void afterSave(GumgaCustomField entity) {
+        invalidate();
+    }
+
+    @Override
+    public void afterUpdate(GumgaCustomField entity) {
+        invalidate();
+    }
+
+    @Override
+    public void afterDelete() {
+        invalidate();
+    }
+
+    /**
+     * Descarta as definições armazenadas, novamente após o commit para que uma
+     * leitura concorrente não mantenha a versão anterior.
+     */
+    public void invalidate() {
+        definitions.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    definitions.clear();
+                }
+            });
+        }
+    }
+
     private QueryObject getQueryObject(String clazzName) {
         QueryObject qo = new QueryObject();
         qo.setAq("obj.clazz='" + clazzName + "'");
         qo.setSortField("visualizationOrder");
+        qo.setPageSize(Integer.MAX_VALUE);
+        qo.setCountStrategy(CountStrategy.NONE);
         return qo;
 
     }
 
+    private static final class Definitions {
+
+        private final List<GumgaCustomField> fields;
+        private final long created = System.currentTimeMillis();
+
+        private Definitions(List<GumgaCustomField> fields) {
+            this.fields = fields;
+        }
+    }
+
 }
@@ -3,9 +3,13 @@ package gumga.framework.application.customfields;
 import gumga.framework.domain.customfields.GumgaCustomField;
 import gumga.framework.domain.customfields.GumgaCustomFieldValue;
 import gumga.framework.domain.repository.GumgaCrudRepository;
+import java.util.Collection;
+import java.util.List;
 
 public interface GumgaCustomFieldValueRepository extends GumgaCrudRepository<GumgaCustomFieldValue, Long> {
 
     GumgaCustomFieldValue findByFieldAndGumgaModelId(GumgaCustomField field, Long gumgaModelId);
 
+    List<GumgaCustomFieldValue> findByFieldInAndGumgaModelIdIn(Collection<GumgaCustomField> fields, Collection<Long> gumgaModelIds);
+
 }
@@ -4,12 +4,25 @@ import gumga.framework.application.GumgaService;
 import gumga.framework.domain.GumgaModel;
 import gumga.framework.domain.customfields.GumgaCustomField;
 import gumga.framework.domain.customfields.GumgaCustomFieldValue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class GumgaCustomFieldValueService extends GumgaService<GumgaCustomFieldValue, Long> {
 
+    /**
+     * Quantidade máxima de ids em cada cláusula IN
+     */
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
     private final GumgaCustomFieldValueRepository repository;
 
     @Autowired
@@ -22,6 +35,30 @@ public class GumgaCustomFieldValueService extends GumgaService<GumgaCustomFieldV
         return repository.findByFieldAndGumgaModelId(cf, (Long) obj.getId());
     }
 
+    /**
+     * Busca os valores dos atributos genéricos de vários objetos com uma
+     * consulta por lote de ids.
+     *
+     * @param fields atributos genéricos
+     * @param gumgaModelIds ids dos objetos
+     * @return mapa de id do objeto para os valores de cada atributo
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<GumgaCustomField, GumgaCustomFieldValue>> getValues(Collection<GumgaCustomField> fields, Collection<Long> gumgaModelIds) {
+        Map<Long, Map<GumgaCustomField, GumgaCustomFieldValue>> toReturn = new HashMap<>();
+        if (fields.isEmpty() || gumgaModelIds.isEmpty()) {
+            return toReturn;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(gumgaModelIds));
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_LIMIT) {
+            List<Long> part = ids.subList(i, Math.min(i + IN_CLAUSE_LIMIT, ids.size()));
+            for (GumgaCustomFieldValue value : repository.findByFieldInAndGumgaModelIdIn(fields, part)) {
+                toReturn.computeIfAbsent(value.getGumgaModelId(), k -> new HashMap<>()).put(value.getField(), value);
+            }
+        }
+        return toReturn;
+    }
+
     @Override
     public GumgaCustomFieldValue save(GumgaCustomFieldValue newValue) {
         GumgaCustomFieldValue oldValue = repository.findByFieldAndGumgaModelId(newValue.getField(), newValue.getGumgaModelId());
@@ -31,6 +68,36 @@ public class GumgaCustomFieldValueService extends GumgaService<GumgaCustomFieldV
         oldValue.setValue(newValue.getValue());
         return super.save(oldValue); 
     }
-    
+
+    /**
+     * Grava os valores dos atributos genéricos de um objeto, buscando os
+     * valores já gravados com uma única consulta. As inserções e alterações
+     * são enviadas em lote no flush.
+     *
+     * @param gumgaModelId id do objeto
+     * @param newValues valores a serem gravados
+     * @return os valores gravados
+     */
+    @Transactional
+    public List<GumgaCustomFieldValue> saveAll(Long gumgaModelId, Collection<GumgaCustomFieldValue> newValues) {
+        List<GumgaCustomField> fields = new ArrayList<>();
+        for (GumgaCustomFieldValue newValue : newValues) {
+            newValue.setGumgaModelId(gumgaModelId);
+            fields.add(newValue.getField());
+        }
+        Map<GumgaCustomField, GumgaCustomFieldValue> oldValues = getValues(fields, Collections.singleton(gumgaModelId))
+                .getOrDefault(gumgaModelId, Collections.emptyMap());
+        List<GumgaCustomFieldValue> toSave = new ArrayList<>();
+        for (GumgaCustomFieldValue newValue : newValues) {
+            GumgaCustomFieldValue oldValue = oldValues.get(newValue.getField());
+            if (oldValue == null || oldValue == newValue) {
+                toSave.add(newValue);
+            } else {
+                oldValue.setValue(newValue.getValue());
+                toSave.add(oldValue);
+            }
+        }
+        return repository.save(toSave);
+    }
     
 }
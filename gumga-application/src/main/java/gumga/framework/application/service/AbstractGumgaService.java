@@ -5,12 +5,21 @@ import gumga.framework.core.utils.ReflectionUtils;
 import gumga.framework.domain.customfields.GumgaCustomizableModel;
 import gumga.framework.domain.repository.GumgaCrudRepository;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.transaction.annotation.Transactional;
 
 public abstract class AbstractGumgaService<T, ID extends Serializable> {
 
+    private static final ConversionService ID_CONVERSION = new DefaultConversionService();
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     protected final GumgaCrudRepository<T, ID> repository;
 
@@ -26,6 +35,30 @@ public abstract class AbstractGumgaService<T, ID extends Serializable> {
         return (Class<T>) ReflectionUtils.inferGenericType(getClass());
     }
 
+    /**
+     * Busca vários objetos com uma consulta por lote de ids, na ordem
+     * informada. Ids inexistentes ou de outra organização são ignorados. Os
+     * ids são convertidos para o tipo do id da entidade.
+     *
+     * @param ids ids a serem buscados
+     * @return objetos encontrados
+     */
+    @Transactional(readOnly = true)
+    public List<T> viewAll(List<Long> ids) {
+        List<T> entities = repository.findAll(ids.stream().map(this::toId).collect(Collectors.toList()));
+        loadGumgaCustomFields(entities);
+        return entities;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ID toId(Object id) {
+        Class<?>[] types = GenericTypeResolver.resolveTypeArguments(getClass(), AbstractGumgaService.class);
+        if (id == null || types == null || types[1] == null || types[1].isInstance(id)) {
+            return (ID) id;
+        }
+        return (ID) ID_CONVERSION.convert(id, types[1]);
+    }
+
     public void loadGumgaCustomFields(Object entity) {
         if (entity instanceof GumgaCustomizableModel) {
             gces.loadCustomFields((GumgaCustomizableModel) entity);
@@ -33,4 +66,14 @@ public abstract class AbstractGumgaService<T, ID extends Serializable> {
 
     }
 
+    /**
+     * Carrega os atributos genéricos de uma lista de objetos com uma consulta
+     * de valores, evitando uma consulta por objeto e atributo.
+     *
+     * @param entities objetos
+     */
+    public void loadGumgaCustomFields(Collection<?> entities) {
+        gces.loadCustomFields(entities);
+    }
+
 }
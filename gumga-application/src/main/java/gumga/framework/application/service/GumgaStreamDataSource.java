@@ -0,0 +1,41 @@
+package gumga.framework.application.service;
+
+import java.util.Iterator;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.data.JRAbstractBeanDataSource;
+
+/**
+ * Fonte de dados de relatório que lê os registros conforme o preenchimento
+ * avança, sem manter a lista inteira em memória. Os campos são lidos como no
+ * JRBeanCollectionDataSource. Só pode ser percorrida uma vez.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaStreamDataSource extends JRAbstractBeanDataSource {
+
+    private final Iterator<?> iterator;
+    private Object current;
+
+    public GumgaStreamDataSource(Iterator<?> iterator) {
+        super(true);
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        current = iterator.hasNext() ? iterator.next() : null;
+        return current != null;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        return getFieldValue(current, field);
+    }
+
+    @Override
+    public void moveFirst() throws JRException {
+        throw new JRException("GumgaStreamDataSource não pode ser percorrida novamente");
+    }
+
+}
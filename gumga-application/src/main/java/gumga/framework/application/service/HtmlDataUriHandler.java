@@ -0,0 +1,33 @@
+package gumga.framework.application.service;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import net.sf.jasperreports.engine.export.HtmlResourceHandler;
+import net.sf.jasperreports.engine.type.ImageTypeEnum;
+import net.sf.jasperreports.engine.util.JRTypeSniffer;
+
+/**
+ * Inclui as imagens do relatório HTML no próprio documento, como data URI,
+ * para que ele possa ser escrito direto na resposta sem arquivos auxiliares.
+ * Uma instância por exportação.
+ *
+ * @author Equipe Gumga
+ */
+class HtmlDataUriHandler implements HtmlResourceHandler {
+
+    private final Map<String, String> paths = new HashMap<>();
+
+    @Override
+    public void handleResource(String id, byte[] data) {
+        ImageTypeEnum type = JRTypeSniffer.getImageTypeValue(data);
+        String mimeType = type == null || type.getMimeType() == null ? "application/octet-stream" : type.getMimeType();
+        paths.put(id, "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(data));
+    }
+
+    @Override
+    public String getResourcePath(String id) {
+        return paths.getOrDefault(id, id);
+    }
+
+}
@@ -5,21 +5,44 @@
  */
 package gumga.framework.application.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import gumga.framework.application.GumgaService;
+import gumga.framework.core.GumgaValues;
+import gumga.framework.core.QueryObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizer;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
 import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  *
@@ -28,6 +51,77 @@ import org.springframework.stereotype.Service;
 @Service(value = "reportService")
 public class JasperReportService {
 
+    /**
+     * Registros buscados do banco por vez nos relatórios preenchidos a partir
+     * de uma pesquisa
+     */
+    public static final int STREAM_CHUNK_SIZE = 500;
+
+    /**
+     * Relatórios compilados mantidos em cache, os menos usados são descartados
+     */
+    public static final int MAX_CACHED_REPORTS = 100;
+
+    /**
+     * Origem do arquivo .jasper, aberta somente quando o relatório não estiver
+     * em cache ou tiver sido alterado
+     */
+    public interface ReportSource {
+
+        InputStream open() throws IOException;
+    }
+
+    @Autowired
+    private GumgaValues gumgaValues;
+
+    private final Cache<String, CompiledReport> reports = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_REPORTS)
+            .build();
+
+    /**
+     * Relatório compilado mantido em cache pelo nome, carregado novamente
+     * quando a data de modificação mudar.
+     *
+     * @param name nome do relatório
+     * @param lastModified data de modificação do arquivo .jasper
+     * @param source origem do arquivo .jasper
+     * @return o relatório compilado
+     * @throws JRException Quando houver erro no jasper
+     * @throws IOException Quando houver erro no arquivo informado
+     */
+    public JasperReport loadReport(String name, long lastModified, ReportSource source) throws JRException, IOException {
+        CompiledReport cached = reports.getIfPresent(name);
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.report;
+        }
+        try (InputStream reportStream = source.open()) {
+            if (reportStream == null) {
+                throw new FileNotFoundException(name);
+            }
+            JasperReport report = (JasperReport) JRLoader.loadObject(reportStream);
+            reports.put(name, new CompiledReport(report, lastModified));
+            return report;
+        }
+    }
+
+    /**
+     * Relatório compilado mantido em cache pela url, como em
+     * {@link #loadReport(String, long, ReportSource)}.
+     *
+     * @param url url do arquivo .jasper
+     * @return o relatório compilado
+     * @throws JRException Quando houver erro no jasper
+     * @throws IOException Quando houver erro no arquivo informado
+     */
+    public JasperReport loadReport(URL url) throws JRException, IOException {
+        if ("file".equals(url.getProtocol())) {
+            File file = new File(URI.create(url.toString()));
+            return loadReport(url.toString(), file.lastModified(), () -> new FileInputStream(file));
+        }
+        URLConnection connection = url.openConnection();
+        return loadReport(url.toString(), connection.getLastModified(), connection::getInputStream);
+    }
+
     /**
      * Gera o relatorio com os dados e parametros informados. Chamando este
      * metodo o programador pode exportar da forma como quiser a partir do
@@ -42,16 +136,25 @@ public class JasperReportService {
      */
     public JasperPrint generateReport(InputStream reportStream,
             List data, Map<String, Object> params) throws JRException, IOException {
+        JasperReport jasperReport = (JasperReport) JRLoader.loadObject(reportStream);
+        return generateReport(jasperReport, data, params);
+    }
+
+    /**
+     * Gera o relatorio com os dados e parametros informados.
+     *
+     * @param jasperReport O relatorio compilado
+     * @param data Os dados a serem populados no relatorio
+     * @param params Os parametros do relatorio. Opcional
+     * @return O relatorio populado mas nao renderizado
+     * @throws JRException Quando houver erro no jasper
+     */
+    public JasperPrint generateReport(JasperReport jasperReport,
+            List data, Map<String, Object> params) throws JRException {
         if (data == null){
             data = Collections.emptyList();
         }
-        if (params == null) {
-            params = new HashMap<>();
-        }
-        JasperReport jasperReport = (JasperReport) JRLoader.loadObject(reportStream);
-        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport,
-                params, new JRBeanCollectionDataSource(data));
-        return jasperPrint;
+        return fill(jasperReport, params, new JRBeanCollectionDataSource(data), null);
     }
     
     /**
@@ -66,13 +169,34 @@ public class JasperReportService {
      */
     public void exportReportToHtmlFile(InputStream reportStream,
             List data, Map<String, Object> params, String destFile) throws JRException, IOException {
-        JasperPrint jp = generateReport(reportStream, data, params);
-        JasperExportManager.exportReportToHtmlFile(jp, destFile);
+        exportReportToHtmlFile((JasperReport) JRLoader.loadObject(reportStream), data, params, destFile);
     }
 
     /**
-     * Gera e exporta o relatorio de acordo com o tipo informado. OBS: Nao
-     * exporta para HTML.
+     * Gera o relatorio com os dados e parametros informados e exporta para
+     * HTML. As paginas que excederem o limite em memoria sao gravadas em disco
+     * durante o preenchimento.
+     *
+     * @param jasperReport O relatorio compilado
+     * @param data Os dados a serem populados no relatorio
+     * @param params Os parametros do relatorio. Opcional
+     * @param destFile O arquivo de destino
+     * @throws JRException Quando houver erro no jasper
+     */
+    public void exportReportToHtmlFile(JasperReport jasperReport,
+            List data, Map<String, Object> params, String destFile) throws JRException {
+        JRVirtualizer virtualizer = createVirtualizer();
+        try {
+            JasperPrint jp = fill(jasperReport, params, new JRBeanCollectionDataSource(data == null ? Collections.emptyList() : data), virtualizer);
+            JasperExportManager.exportReportToHtmlFile(jp, destFile);
+        } finally {
+            virtualizer.cleanup();
+        }
+    }
+
+    /**
+     * Gera e exporta o relatorio de acordo com o tipo informado. O HTML é
+     * escrito na stream com as imagens incluídas no documento.
      *
      * @param reportStream A input stream contendo o arquivo .jasper
      * @param data Os dados a serem populados no relatorio
@@ -84,15 +208,106 @@ public class JasperReportService {
      */
     public void exportReport(InputStream reportStream, OutputStream outStream,
             List data, Map<String, Object> params, ReportType type) throws JRException, IOException {
-        if (!ReportType.HTML.equals(type)) {
-            JasperPrint jasperPrint = generateReport(reportStream, data, params);
+        exportReport((JasperReport) JRLoader.loadObject(reportStream), outStream, data, params, type);
+    }
+
+    /**
+     * Gera e exporta o relatorio compilado de acordo com o tipo informado.
+     *
+     * @param jasperReport O relatorio compilado
+     * @param outStream A output stream onde será salvo o relatório
+     * @param data Os dados a serem populados no relatorio
+     * @param params Os parametros do relatorio. Opcional
+     * @param type O tipo do relatorio
+     * @throws JRException Quando houver erro no jasper
+     */
+    public void exportReport(JasperReport jasperReport, OutputStream outStream,
+            List data, Map<String, Object> params, ReportType type) throws JRException {
+        export(jasperReport, outStream, new JRBeanCollectionDataSource(data == null ? Collections.emptyList() : data), params, type);
+    }
+
+    /**
+     * Gera e exporta o relatorio com os registros da pesquisa, lidos do banco
+     * conforme o preenchimento avanca em vez de carregados em uma lista.
+     *
+     * @param jasperReport O relatorio compilado
+     * @param outStream A output stream onde será salvo o relatório
+     * @param service O servico da entidade do relatorio
+     * @param query A pesquisa com os filtros e a ordenacao
+     * @param params Os parametros do relatorio. Opcional
+     * @param type O tipo do relatorio
+     * @throws JRException Quando houver erro no jasper
+     */
+    @Transactional(readOnly = true)
+    public void exportReport(JasperReport jasperReport, OutputStream outStream,
+            GumgaService<?, ?> service, QueryObject query, Map<String, Object> params, ReportType type) throws JRException {
+        try (Stream<?> records = service.stream(query, STREAM_CHUNK_SIZE)) {
+            export(jasperReport, outStream, new GumgaStreamDataSource(records.iterator()), params, type);
+        }
+    }
+
+    private void export(JasperReport jasperReport, OutputStream outStream, JRDataSource dataSource,
+            Map<String, Object> params, ReportType type) throws JRException {
+        JRVirtualizer virtualizer = createVirtualizer();
+        try {
+            JasperPrint jasperPrint = fill(jasperReport, params, dataSource, virtualizer);
             switch (type) {
                 case PDF:
                     JasperExportManager.exportReportToPdfStream(jasperPrint, outStream);
                     break;
+                case HTML:
+                    exportHtml(jasperPrint, outStream);
+                    break;
                 default:
                     JasperExportManager.exportReportToXmlStream(jasperPrint, outStream);
             }
+        } finally {
+            virtualizer.cleanup();
+        }
+    }
+
+    /**
+     * Escreve o HTML direto na stream, com as imagens incluídas no documento
+     */
+    private void exportHtml(JasperPrint jasperPrint, OutputStream outStream) throws JRException {
+        HtmlExporter exporter = new HtmlExporter();
+        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+        SimpleHtmlExporterOutput output = new SimpleHtmlExporterOutput(outStream, "UTF-8");
+        output.setImageHandler(new HtmlDataUriHandler());
+        exporter.setExporterOutput(output);
+        exporter.exportReport();
+    }
+
+    private JasperPrint fill(JasperReport jasperReport, Map<String, Object> params,
+            JRDataSource dataSource, JRVirtualizer virtualizer) throws JRException {
+        Map<String, Object> parameters = params == null ? new HashMap<>() : new HashMap<>(params);
+        if (virtualizer != null) {
+            parameters.putIfAbsent(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
+        if (virtualizer instanceof JRAbstractLRUVirtualizer) {
+            ((JRAbstractLRUVirtualizer) virtualizer).setReadOnly(true);
+        }
+        return jasperPrint;
+    }
+
+    /**
+     * Mantém em memória até getReportVirtualizerMaxPages páginas, as demais
+     * vão para um arquivo de troca removido no cleanup.
+     */
+    private JRVirtualizer createVirtualizer() {
+        JRSwapFile swapFile = new JRSwapFile(gumgaValues.getReportSwapDir(), 4096, 64);
+        return new JRSwapFileVirtualizer(gumgaValues.getReportVirtualizerMaxPages(), swapFile, true);
+    }
+
+    private static final class CompiledReport {
+
+        private final JasperReport report;
+        private final long lastModified;
+
+        private CompiledReport(JasperReport report, long lastModified) {
+            this.report = report;
+            this.lastModified = lastModified;
         }
     }
 
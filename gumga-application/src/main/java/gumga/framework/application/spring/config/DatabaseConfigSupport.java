@@ -1,5 +1,6 @@
 package gumga.framework.application.spring.config;
 
+import gumga.framework.application.GumgaStatementCounter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -20,6 +21,12 @@ public class DatabaseConfigSupport {
 		H2, MYSQL, POSTGRES, ORACLE
 	}
 	
+	/**
+	 * Propriedade de sistema que registra o {@link GumgaStatementCounter} como
+	 * interceptor do Hibernate, para apontar consultas N+1 por requisição
+	 */
+	public static final String STATEMENT_COUNTER_PROPERTY = "gumga.statementCounter";
+
 	private static final Map<Database, DataSourceProvider> dsProviderMap = new HashMap<>();
 	{
 		dsProviderMap.put(Database.H2, new H2DataSourceProvider());
@@ -59,6 +66,11 @@ public class DatabaseConfigSupport {
         properties.put("hibernate.connection.characterEncoding", "UTF-8");
         properties.put("hibernate.connection.useUnicode", "true");
         properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        if (Boolean.getBoolean(STATEMENT_COUNTER_PROPERTY)) {
+            properties.put("hibernate.ejb.interceptor", GumgaStatementCounter.class.getName());
+        }
         return properties;
 	}
 	
@@ -1,16 +1,31 @@
 package gumga.framework.application;
 
+import gumga.framework.core.CountStrategy;
+import gumga.framework.core.GumgaThreadScope;
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.SearchResult;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {SpringConfig.class})
@@ -19,6 +34,18 @@ public class GumgaFinderTest {
     @Autowired
     private CompanyService service;
 
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     public void injectionSanityCheck() {
         assertNotNull(service);
@@ -69,4 +96,256 @@ public class GumgaFinderTest {
         assertFalse(pesquisa.getValues().isEmpty());
     }
 
+    @Test
+    @Transactional
+    public void paginaPorCursorNaPesquisaSimplesEAvancada() {
+        for (String name : new String[]{"Keyset C", "Keyset A", "Keyset E", "Keyset B", "Keyset D"}) {
+            service.save(new Company(name));
+        }
+
+        QueryObject simple = new QueryObject();
+        simple.setQ("Keyset");
+        simple.setSearchFields("name");
+        simple.setSortField("name");
+        simple.setSortDir("desc");
+        assertEquals(5, pageThrough(simple).size());
+        assertEquals("Keyset E", pageThrough(simple).get(0));
+        assertEquals("Keyset A", pageThrough(simple).get(4));
+
+        QueryObject advanced = new QueryObject();
+        advanced.setAq("obj.name like 'Keyset%'");
+        advanced.setSortField("obj.name");
+        List<String> names = pageThrough(advanced);
+        assertEquals(5, names.size());
+        assertEquals("Keyset A", names.get(0));
+        assertEquals("Keyset E", names.get(4));
+    }
+
+    @Test
+    @Transactional
+    public void paginaPorCursorComValoresDeOrdenacaoNulos() {
+        long first = service.save(new Company("Nulos B")).getId();
+        service.save(new Company(null));
+        service.save(new Company("Nulos A"));
+        service.save(new Company(null));
+        service.save(new Company("Nulos C"));
+
+        QueryObject query = new QueryObject();
+        query.setAq("(obj.name like 'Nulos%' or obj.name is null) and obj.id >= " + first);
+        query.setSortField("obj.name");
+        List<String> names = pageThrough(query);
+        assertEquals(Arrays.asList("Nulos A", "Nulos B", "Nulos C", null, null), names);
+
+        query.setSortDir("desc");
+        assertEquals(Arrays.asList("Nulos C", "Nulos B", "Nulos A", null, null), pageThrough(query));
+    }
+
+    @Test
+    @Transactional
+    public void reutilizaCountEmCacheAteUmaEscrita() {
+        GumgaCountCache.invalidateAll();
+        service.save(new Company("Cached A"));
+        service.save(new Company("Cached B"));
+
+        QueryObject query = new QueryObject();
+        query.setAq("obj.name like 'Cached%'");
+        query.setCountStrategy(CountStrategy.CACHED);
+
+        SearchResult<Company> first = service.pesquisa(query);
+        assertEquals(2L, first.getCount().longValue());
+        assertTrue(first.isExactCount());
+
+        SearchResult<Company> second = service.pesquisa(query);
+        assertEquals(2L, second.getCount().longValue());
+        assertFalse(second.isExactCount());
+
+        service.save(new Company("Cached C"));
+        SearchResult<Company> afterSave = service.pesquisa(query);
+        assertEquals(3L, afterSave.getCount().longValue());
+        assertTrue(afterSave.isExactCount());
+    }
+
+    @Test
+    public void descartaCountArmazenadoAntesDoCommit() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            service.save(new Company("Commit A"));
+            //Count concorrente, feito antes do commit
+            GumgaCountCache.put(Company.class, "|aq|obj.name like 'Commit%'", 0);
+            return null;
+        });
+        assertNull(GumgaCountCache.get(Company.class, "|aq|obj.name like 'Commit%'"));
+    }
+
+    @Test
+    @Transactional
+    public void registraOsTemposPorFormaDaConsulta() {
+        GumgaQueryStatistics.reset();
+        service.save(new Company("Stats A"));
+        service.save(new Company("Stats B"));
+        //Sem count(*) over() a página e o count são registrados separadamente
+        GumgaPagedCount.setWindowEnabled(false);
+        try {
+            for (String prefix : new String[]{"Stats", "Stats A"}) {
+                QueryObject query = new QueryObject();
+                query.setAq("obj.name like '" + prefix + "%' and obj.id > 0");
+                query.setCountStrategy(CountStrategy.EXACT);
+                service.pesquisa(query);
+            }
+        } finally {
+            GumgaPagedCount.setWindowEnabled(true);
+        }
+
+        List<Map<String, Object>> statistics = GumgaQueryStatistics.getStatistics();
+        assertEquals(1, statistics.size());
+        Map<String, Object> shape = statistics.get(0);
+        assertEquals(Company.class.getName(), shape.get("entity"));
+        assertEquals("aq|obj.name like ? and obj.id > ?", shape.get("shape"));
+        assertEquals(3L, shape.get("rows"));
+        assertEquals(2L, ((Map) shape.get("page")).get("count"));
+        assertEquals(2L, ((Map) shape.get("count")).get("count"));
+        assertEquals("from Car obj where obj.id in (?) and obj.oi like :oi", GumgaQueryStatistics.normalize("from Car obj  where obj.id in (1, 2,3) and obj.oi like :oi"));
+    }
+
+    @Test
+    @Transactional
+    public void registraAsConsultasQueFalham() {
+        GumgaQueryStatistics.reset();
+        QueryObject query = new QueryObject();
+        //Divisão por zero, erro na execução da consulta
+        query.setAq("obj.id / 0 > 1");
+        try {
+            service.pesquisa(query);
+            fail();
+        } catch (RuntimeException ex) {
+        }
+
+        Map<String, Object> shape = GumgaQueryStatistics.getStatistics().get(0);
+        assertEquals("aq|obj.id / ? > ?", shape.get("shape"));
+        assertEquals(1L, shape.get("failed"));
+        assertEquals(1L, ((Map) shape.get("page")).get("count"));
+        assertEquals(0L, shape.get("rows"));
+    }
+
+    @Test
+    @Transactional
+    public void naoContaComCountStrategyNone() {
+        for (String name : new String[]{"None A", "None B", "None C"}) {
+            service.save(new Company(name));
+        }
+        QueryObject query = new QueryObject();
+        query.setAq("obj.name like 'None%'");
+        query.setCountStrategy(CountStrategy.NONE);
+        query.setPageSize(2);
+
+        SearchResult<Company> firstPage = service.pesquisa(query);
+        assertEquals(2L, firstPage.getCount().longValue());
+        assertFalse(firstPage.isExactCount());
+
+        query.setStart(2);
+        SearchResult<Company> lastPage = service.pesquisa(query);
+        assertEquals(3L, lastPage.getCount().longValue());
+        assertTrue(lastPage.isExactCount());
+    }
+
+    @Test
+    @Transactional
+    public void percorreTodosOsRegistrosDaPesquisaSemPaginacao() {
+        for (String name : new String[]{"Scroll C", "Scroll A", "Scroll B", "Outra"}) {
+            Company empresa = new Company();
+            empresa.setName(name);
+            service.save(empresa);
+        }
+        QueryObject query = new QueryObject();
+        query.setQ("Scroll");
+        query.setSearchFields("name");
+        query.setSortField("name");
+        query.setSortDir("asc");
+        List<String> names = new ArrayList<>();
+        service.percorre(query, 2, c -> names.add(c.getName()));
+        assertEquals(Arrays.asList("Scroll A", "Scroll B", "Scroll C"), names);
+
+        query = new QueryObject();
+        query.setAq("obj.name like 'Scroll%'");
+        names.clear();
+        service.percorre(query, 2, c -> names.add(c.getName()));
+        assertEquals(3, names.size());
+    }
+
+    @Test
+    @Transactional
+    public void buscaVariosObjetosPorIdEmUmaConsulta() {
+        Company a = new Company();
+        a.setName("Lote A");
+        a = service.save(a);
+        Company b = new Company();
+        b.setName("Lote B");
+        b = service.save(b);
+
+        Map<Object, Object> found = service.genericViewAll(Company.class, Arrays.asList(a.getId(), b.getId(), a.getId(), -1L));
+        assertEquals(2, found.size());
+        assertEquals("Lote B", ((Company) found.get(b.getId())).getName());
+    }
+
+    @Test
+    @Transactional
+    public void buscaVariosIdsNaOrdemInformadaSomenteDaOrganizacao() {
+        try {
+            GumgaThreadScope.organizationCode.set("1.");
+            Task a = taskRepository.save(new Task("Org 1 A"));
+            Task b = taskRepository.save(new Task("Org 1 B"));
+            GumgaThreadScope.organizationCode.set("2.");
+            Task c = taskRepository.save(new Task("Org 2"));
+
+            GumgaThreadScope.organizationCode.set("1.");
+            List<Task> found = taskRepository.findAll(Arrays.asList(b.getId(), c.getId(), -1L, a.getId()));
+            assertEquals(Arrays.asList(b, a), found);
+        } finally {
+            GumgaThreadScope.organizationCode.remove();
+        }
+    }
+
+    @Test
+    @Transactional
+    public void serviceBuscaVariosIdsNaOrdemInformada() {
+        Company a = service.save(new Company("Service A"));
+        Company b = service.save(new Company("Service B"));
+        List<Company> found = service.viewAll(Arrays.asList(b.getId(), -1L, a.getId()));
+        assertEquals(Arrays.asList(b.getId(), a.getId()), Arrays.asList(found.get(0).getId(), found.get(1).getId()));
+        assertEquals(2, found.size());
+    }
+
+    @Test
+    @Transactional
+    public void percorreRetirandoDaSessaoSomenteOsRegistrosPercorridos() {
+        Company alterada = service.save(new Company("Fora do percurso"));
+        for (int i = 0; i < 5; i++) {
+            service.save(new Company("Percurso " + i));
+        }
+        QueryObject query = new QueryObject();
+        query.setAq("obj.name like 'Percurso%'");
+        query.setSortField("obj.name");
+
+        List<Company> percorridas;
+        try (Stream<Company> stream = companyRepository.stream(query, 2)) {
+            percorridas = stream.collect(Collectors.toList());
+        }
+        assertEquals(5, percorridas.size());
+        assertFalse(em.contains(percorridas.get(0)));
+        assertFalse(em.contains(percorridas.get(3)));
+        assertTrue(em.contains(alterada));
+    }
+
+    private List<String> pageThrough(QueryObject query) {
+        List<String> names = new ArrayList<>();
+        query.setPageSize(2);
+        query.setAfter("");
+        SearchResult<Company> page;
+        do {
+            page = service.pesquisa(query);
+            page.getValues().forEach(c -> names.add(c.getName()));
+            query.setAfter(page.getNext());
+        } while (page.getNext() != null);
+        return names;
+    }
+
 }
@@ -0,0 +1,116 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.util.StreamUtils;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaJobServiceTest {
+
+    @Autowired
+    private GumgaJobService service;
+
+    @After
+    public void after() {
+        GumgaThreadScope.organizationCode.remove();
+    }
+
+    private GumgaJob aguarda(GumgaJob job) throws InterruptedException {
+        long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (job.getStatus() != GumgaJob.Status.DONE && job.getStatus() != GumgaJob.Status.FAILED && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    @Test
+    public void reaproveitaOResultadoDePedidosIguaisDaMesmaOrganizacao() throws Exception {
+        GumgaThreadScope.organizationCode.set("1.");
+        AtomicInteger execucoes = new AtomicInteger();
+        GumgaJobService.Task task = out -> {
+            execucoes.incrementAndGet();
+            out.write(GumgaThreadScope.organizationCode.get().getBytes(StandardCharsets.UTF_8));
+        };
+
+        GumgaJob job = aguarda(service.submit("relatorio|igual", "relatorio.pdf", "application/pdf", task));
+        assertEquals(GumgaJob.Status.DONE, job.getStatus());
+        assertSame(job, service.submit("relatorio|igual", "relatorio.pdf", "application/pdf", task));
+        assertEquals(1, execucoes.get());
+        try (InputStream in = service.openResult(job.getId())) {
+            assertEquals("1.", StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        }
+
+        GumgaThreadScope.organizationCode.set("2.");
+        assertNull(service.find(job.getId()));
+        GumgaJob outraOrganizacao = aguarda(service.submit("relatorio|igual", "relatorio.pdf", "application/pdf", task));
+        assertNotSame(job, outraOrganizacao);
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    public void limitaOsJobsSimultaneosDeCadaOrganizacao() throws Exception {
+        GumgaThreadScope.organizationCode.set("3.");
+        CountDownLatch libera = new CountDownLatch(1);
+        GumgaJob primeiro = service.submit("primeiro", "a.csv", "text/csv", out -> libera.await());
+        GumgaJob segundo = service.submit("segundo", "b.csv", "text/csv", out -> out.write(1));
+
+        Thread.sleep(200);
+        assertEquals(GumgaJob.Status.RUNNING, primeiro.getStatus());
+        assertEquals(GumgaJob.Status.QUEUED, segundo.getStatus());
+
+        GumgaThreadScope.organizationCode.set("4.");
+        assertEquals(GumgaJob.Status.DONE, aguarda(service.submit("outra", "c.csv", "text/csv", out -> out.write(1))).getStatus());
+
+        libera.countDown();
+        assertEquals(GumgaJob.Status.DONE, aguarda(primeiro).getStatus());
+        assertEquals(GumgaJob.Status.DONE, aguarda(segundo).getStatus());
+        assertEquals(1, segundo.getSize());
+    }
+
+    @Test
+    public void registraAFalhaEProcessaNovamenteNoProximoPedido() throws Exception {
+        GumgaThreadScope.organizationCode.set("5.");
+        GumgaJob falhou = aguarda(service.submit("falha", "a.csv", "text/csv", out -> {
+            throw new IllegalStateException("sem dados");
+        }));
+        assertEquals(GumgaJob.Status.FAILED, falhou.getStatus());
+        assertTrue(falhou.getError().contains("sem dados"));
+        assertNull(service.openResult(falhou.getId()));
+
+        GumgaJob novo = aguarda(service.submit("falha", "a.csv", "text/csv", out -> out.write(1)));
+        assertNotSame(falhou, novo);
+        assertEquals(GumgaJob.Status.DONE, novo.getStatus());
+        assertNull(service.find(falhou.getId()));
+    }
+
+    @Test
+    public void encerraOJobQuandoOcorreUmErro() throws Exception {
+        GumgaThreadScope.organizationCode.set("6.");
+        GumgaJob falhou = aguarda(service.submit("erro", "a.csv", "text/csv", out -> {
+            throw new StackOverflowError("simulado");
+        }));
+        assertEquals(GumgaJob.Status.FAILED, falhou.getStatus());
+        assertTrue(falhou.getError().contains("simulado"));
+
+        GumgaJob novo = aguarda(service.submit("erro", "a.csv", "text/csv", out -> out.write(1)));
+        assertNotSame(falhou, novo);
+        assertEquals(GumgaJob.Status.DONE, novo.getStatus());
+    }
+
+}
@@ -0,0 +1,33 @@
+package gumga.framework.application;
+
+import gumga.framework.domain.GumgaLog;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaLogWriterTest {
+
+    @Autowired
+    private GumgaLogWriter writer;
+
+    @Autowired
+    private GumgaLogRepository repository;
+
+    @Test
+    public void gravaLogsEmSegundoPlanoEmLotes() {
+        long before = repository.count();
+        for (int i = 0; i < 250; i++) {
+            writer.write(new GumgaLog("gumga", "127.0.0.1", "1.", "Gumga", "test", "OP", "/api/test", "GET", true));
+        }
+        assertTrue(writer.flush(10000));
+        assertEquals(before + 250, repository.count());
+        assertEquals(0, writer.getQueueSize());
+    }
+
+}
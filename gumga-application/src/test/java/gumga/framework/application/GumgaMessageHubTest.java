@@ -0,0 +1,82 @@
+package gumga.framework.application;
+
+import gumga.framework.domain.GumgaMessage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GumgaMessageHubTest {
+
+    private GumgaMessageHub hub;
+
+    @Before
+    public void start() {
+        hub = new GumgaMessageHub();
+        hub.start();
+    }
+
+    @After
+    public void shutdown() {
+        hub.shutdown();
+    }
+
+    @Test
+    public void entregaSomenteParaODestinatarioEDescartaConexaoEncerrada() throws InterruptedException {
+        List<String> recebidas = new CopyOnWriteArrayList<>();
+        CountDownLatch entregues = new CountDownLatch(2);
+        hub.subscribe("maria", (m, change) -> {
+            recebidas.add(m.getMessage() + " " + change);
+            entregues.countDown();
+        });
+        hub.subscribe("joao", (m, change) -> {
+            throw new IllegalStateException("conexao encerrada");
+        });
+        assertEquals(2, hub.getConnections());
+
+        hub.publish(message("joao", "para joao"), GumgaMessageHub.Change.CREATED);
+        hub.publish(message("maria", "para maria"), GumgaMessageHub.Change.CREATED);
+        hub.publish(message(null, "para todos"), GumgaMessageHub.Change.UPDATED);
+
+        assertTrue(entregues.await(5, TimeUnit.SECONDS));
+        assertEquals("[para maria CREATED, para todos UPDATED]", recebidas.toString());
+        waitConnections(1);
+    }
+
+    @Test
+    public void conexaoLentaNaoAtrasaAsDemaisEEncerradaQuandoAFilaEnche() throws InterruptedException {
+        CountDownLatch liberaLenta = new CountDownLatch(1);
+        hub.subscribe("lenta", (m, change) -> liberaLenta.await());
+        Semaphore entregues = new Semaphore(0);
+        hub.subscribe("rapida", (m, change) -> entregues.release());
+
+        for (int i = 0; i < GumgaMessageHub.MAX_PENDING + 2; i++) {
+            hub.publish(message(null, "mensagem " + i), GumgaMessageHub.Change.CREATED);
+            assertTrue(entregues.tryAcquire(5, TimeUnit.SECONDS));
+        }
+        waitConnections(1);
+        liberaLenta.countDown();
+    }
+
+    private void waitConnections(int expected) throws InterruptedException {
+        long limit = System.currentTimeMillis() + 5000;
+        while (hub.getConnections() != expected && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, hub.getConnections());
+    }
+
+    private GumgaMessage message(String destination, String text) {
+        GumgaMessage message = new GumgaMessage();
+        message.setDestinationLogin(destination);
+        message.setMessage(text);
+        return message;
+    }
+
+}
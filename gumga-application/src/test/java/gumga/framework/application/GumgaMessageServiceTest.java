@@ -0,0 +1,51 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import gumga.framework.core.exception.ForbiddenException;
+import gumga.framework.domain.GumgaMessage;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaMessageServiceTest {
+
+    @Autowired
+    private GumgaMessageService service;
+
+    @Autowired
+    private GumgaMessageRepository repository;
+
+    @After
+    public void tearDown() {
+        GumgaThreadScope.organizationCode.remove();
+    }
+
+    @Test
+    public void somenteODestinatarioMarcaComoVisualizada() {
+        GumgaThreadScope.organizationCode.set("1.");
+        GumgaMessage message = new GumgaMessage();
+        message.setSenderLogin("joao");
+        message.setDestinationLogin("maria");
+        message.setMessage("Mensagem para maria");
+        Long id = service.save(message).getId();
+
+        try {
+            service.viewed(id, "joao");
+            fail("Somente o destinatário pode marcar a mensagem como visualizada");
+        } catch (ForbiddenException ex) {
+            assertTrue(repository.exists(id));
+        }
+
+        service.viewed(id, "maria");
+        assertFalse(repository.exists(id));
+    }
+
+}
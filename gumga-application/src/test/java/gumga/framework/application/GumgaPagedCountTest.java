@@ -0,0 +1,204 @@
+package gumga.framework.application;
+
+import gumga.framework.core.CountStrategy;
+import gumga.framework.core.QueryObject;
+import gumga.framework.core.SearchResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaPagedCountTest {
+
+    @Autowired
+    private CompanyRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void reconheceOsBancosComFuncoesDeJanela() {
+        assertTrue(GumgaCountOverIntegrator.supportsCountOver("PostgreSQL", "9.6.3", 9, 6));
+        assertTrue(GumgaCountOverIntegrator.supportsCountOver("PostgreSQL", "8.4.0", 8, 4));
+        assertFalse(GumgaCountOverIntegrator.supportsCountOver("PostgreSQL", "8.3.5", 8, 3));
+        assertTrue(GumgaCountOverIntegrator.supportsCountOver("Oracle", "Oracle Database 11g", 11, 2));
+        assertTrue(GumgaCountOverIntegrator.supportsCountOver("H2", "1.4.200 (2019-10-14)", 1, 4));
+        assertTrue(GumgaCountOverIntegrator.supportsCountOver("H2", "2.1.214 (2022-06-13)", 2, 1));
+        assertFalse(GumgaCountOverIntegrator.supportsCountOver("H2", "1.4.178 (2014-05-02)", 1, 4));
+        assertFalse(GumgaCountOverIntegrator.supportsCountOver("MySQL", "5.7.20", 5, 7));
+    }
+
+    @After
+    public void after() {
+        GumgaPagedCount.setParallelEnabled(false);
+        GumgaPagedCount.setMaxParallelCounts(4);
+    }
+
+    @Test
+    public void contaEmParaleloNaTransacaoSomenteLeitura() {
+        for (int i = 0; i < 3; i++) {
+            repository.save(new Company("Paralela " + i));
+        }
+        GumgaPagedCount.setParallelEnabled(true);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        QueryObject query = new QueryObject();
+        query.setQ("Paralela");
+        query.setSearchFields("name");
+        query.setPageSize(2);
+        SearchResult<Company> result = readOnly.execute(status -> repository.search(query));
+        assertEquals(2, result.getValues().size());
+        assertEquals(3L, result.getCount().longValue());
+
+        query.setStart(10);
+        result = readOnly.execute(status -> repository.search(query));
+        assertTrue(result.getValues().isEmpty());
+        assertEquals(3L, result.getCount().longValue());
+
+        QueryObject advanced = new QueryObject();
+        advanced.setAq("obj.name like 'Paralela%'");
+        advanced.setPageSize(1);
+        result = readOnly.execute(status -> repository.search(advanced));
+        assertEquals(1, result.getValues().size());
+        assertEquals(3L, result.getCount().longValue());
+    }
+
+    @Test
+    public void contaNaPropriaPesquisaSemVagaParaOCountParalelo() throws Exception {
+        GumgaPagedCount.setMaxParallelCounts(1);
+        CountDownLatch libera = new CountDownLatch(1);
+        GumgaPagedCount.Pending<Long> ocupada = GumgaPagedCount.inParallel(entityManagerFactory, other -> () -> {
+            try {
+                libera.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return 1L;
+        }, () -> 1L);
+        Thread.sleep(100);
+
+        AtomicBoolean preparada = new AtomicBoolean();
+        GumgaPagedCount.Pending<Long> semVaga = GumgaPagedCount.inParallel(entityManagerFactory, other -> {
+            preparada.set(true);
+            return () -> 2L;
+        }, () -> 3L);
+        assertEquals(3L, semVaga.get().longValue());
+        assertFalse(preparada.get());
+
+        libera.countDown();
+        assertEquals(1L, ocupada.get().longValue());
+    }
+
+    /**
+     * Executado somente com um banco que tem funções de janela:
+     * mvn -Pwindow-functions test
+     */
+    @Test
+    public void obtemOTotalJuntoComAPaginaQuandoOBancoSuporta() {
+        assumeTrue(suportaFuncoesDeJanela());
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Company("Janela " + i));
+        }
+
+        QueryObject query = new QueryObject();
+        query.setQ("Janela");
+        query.setSearchFields("name");
+        query.setSortField("name");
+        query.setSortDir("desc");
+        query.setCountStrategy(CountStrategy.EXACT);
+        query.setPageSize(2);
+        verificaPaginas(query);
+
+        QueryObject advanced = new QueryObject();
+        advanced.setAq("obj.name like 'Janela%'");
+        advanced.setSortField("obj.name");
+        advanced.setSortDir("desc");
+        advanced.setCountStrategy(CountStrategy.EXACT);
+        advanced.setPageSize(2);
+        verificaPaginas(advanced);
+    }
+
+    private void verificaPaginas(QueryObject query) {
+        List<String> statements = pesquisa(query, "Janela 4", "Janela 3");
+        assertEquals(statements.toString(), 0, contaSelectCount(statements));
+        assertTrue(statements.toString(), statements.stream().anyMatch(sql -> sql.contains("count(*) over()")));
+
+        query.setStart(4);
+        statements = pesquisa(query, "Janela 0");
+        assertEquals(statements.toString(), 0, contaSelectCount(statements));
+
+        //A página vazia não traz o total da função de janela, que então é contado
+        query.setStart(10);
+        statements = pesquisa(query);
+        assertEquals(statements.toString(), 1, contaSelectCount(statements));
+    }
+
+    private List<String> pesquisa(QueryObject query, String... nomes) {
+        GumgaStatementCounter.begin();
+        SearchResult<Company> result = new TransactionTemplate(transactionManager).execute(status -> repository.search(query));
+        List<String> statements = new ArrayList<>(GumgaStatementCounter.end().getCounts().keySet());
+
+        List<String> encontrados = new ArrayList<>();
+        for (Company company : result.getValues()) {
+            encontrados.add(company.getName());
+        }
+        assertEquals(Arrays.asList(nomes), encontrados);
+        assertEquals(5L, result.getCount().longValue());
+        return statements;
+    }
+
+    private int contaSelectCount(List<String> statements) {
+        int toReturn = 0;
+        for (String sql : statements) {
+            if (sql.startsWith("select count(")) {
+                toReturn++;
+            }
+        }
+        return toReturn;
+    }
+
+    private boolean suportaFuncoesDeJanela() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return GumgaPagedCount.supportsWindow(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    public void contaNaMesmaTransacaoQuandoHaEscritasPendentes() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> {
+            repository.save(new Company("Pendente"));
+            QueryObject query = new QueryObject();
+            query.setQ("Pendente");
+            query.setSearchFields("name");
+            assertEquals(1L, repository.search(query).getCount().longValue());
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+}
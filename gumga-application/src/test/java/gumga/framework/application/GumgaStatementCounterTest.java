@@ -0,0 +1,91 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaThreadScope;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaStatementCounterTest {
+
+    @Autowired
+    private CompanyRepository repository;
+
+    @After
+    public void tearDown() {
+        GumgaStatementCounter.end();
+        GumgaThreadScope.operationKey.remove();
+    }
+
+    @Test
+    public void agrupaAsInstrucoesRepetidasPelaForma() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(repository.save(new Company("Contada " + i)).getId());
+        }
+
+        GumgaStatementCounter.begin();
+        ids.forEach(repository::findOne);
+        GumgaStatementCounter.Result result = GumgaStatementCounter.end();
+
+        assertEquals(5, result.getTotal());
+        Map<String, Integer> repeated = result.getRepeated(3);
+        assertEquals(1, repeated.size());
+        assertEquals(Integer.valueOf(5), repeated.values().iterator().next());
+        assertTrue(result.getRepeated(5).isEmpty());
+        assertNull(GumgaStatementCounter.end());
+    }
+
+    @Test
+    public void falhaQuandoPassaDoLimiteEmModoDeTeste() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(repository.save(new Company("Limite " + i)).getId());
+        }
+        GumgaThreadScope.operationKey.set("CompanyAPI_load");
+
+        GumgaStatementCounter.begin();
+        ids.subList(0, 3).forEach(repository::findOne);
+        GumgaStatementCounter.check(3, true);
+        repository.findOne(ids.get(3));
+        try {
+            GumgaStatementCounter.check(3, true);
+            fail("Deveria apontar a instrução repetida");
+        } catch (GumgaRepeatedStatementException ex) {
+            assertTrue(ex.getMessage().contains("CompanyAPI_load"));
+        }
+        GumgaStatementCounter.check(3, true);
+    }
+
+    @Test
+    public void falhaAoPrepararAInstrucaoQuePassaDoLimite() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(repository.save(new Company("Preparada " + i)).getId());
+        }
+        assertTrue(GumgaStatementCounter.isActive());
+
+        GumgaStatementCounter.begin(3, true);
+        ids.subList(0, 3).forEach(repository::findOne);
+        try {
+            repository.findOne(ids.get(3));
+            fail("Deveria falhar antes de executar a quarta instrução");
+        } catch (GumgaRepeatedStatementException ex) {
+            assertTrue(ex.getMessage().contains("N+1"));
+        }
+        GumgaStatementCounter.check(3, true);
+        assertEquals(4, GumgaStatementCounter.end().getTotal());
+    }
+
+}
@@ -0,0 +1,89 @@
+package gumga.framework.application;
+
+import gumga.framework.core.GumgaValues;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaImage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaTempFileServiceTest {
+
+    @Autowired
+    private GumgaTempFileService service;
+
+    @Autowired
+    private GumgaValues gumgaValues;
+
+    @Test
+    public void gravaERecuperaOArquivoComOsMetadados() throws Exception {
+        byte[] bytes = "conteúdo da imagem".getBytes(StandardCharsets.UTF_8);
+        String id = service.create(new GumgaImage("foto ção.png", bytes.length, "image/png", bytes));
+        assertNotEquals(id, service.create(new GumgaImage("foto ção.png", bytes.length, "image/png", bytes)));
+
+        GumgaFile found = service.find(id);
+        assertTrue(found instanceof GumgaImage);
+        assertEquals("foto ção.png", found.getName());
+        assertEquals("image/png", found.getMimeType());
+        assertArrayEquals(bytes, found.getBytes());
+
+        assertEquals("OK", service.delete(id));
+        assertNull(service.find(id));
+    }
+
+    @Test
+    public void gravaOUploadPorStreamERetornaOConteudoMapeado() throws Exception {
+        byte[] bytes = new byte[200 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        String id = service.create(GumgaFile.class, "dados.bin", "application/octet-stream", new ByteArrayInputStream(bytes));
+
+        GumgaTempFile tempFile = service.open(id);
+        assertEquals(bytes.length, tempFile.getSize());
+        MappedByteBuffer mapped = tempFile.map();
+        byte[] read = new byte[bytes.length];
+        mapped.get(read);
+        assertArrayEquals(bytes, read);
+        try (InputStream in = tempFile.openStream()) {
+            assertEquals(0, in.read());
+            assertEquals(1, in.read());
+        }
+        service.delete(id);
+    }
+
+    @Test
+    public void ignoraIdentificadoresInvalidos() {
+        assertNull(service.find("../../etc/passwd"));
+        assertNull(service.open(null));
+        assertEquals("error", service.delete("uploadData/../x"));
+    }
+
+    @Test
+    public void removeArquivosExpirados() throws Exception {
+        String id = service.create(new GumgaFile("velho.txt", 1, "text/plain", new byte[]{1}));
+        FileTime antigo = FileTime.fromMillis(System.currentTimeMillis() - gumgaValues.getUploadTempTimeToLive() - 1000);
+        Files.setLastModifiedTime(Paths.get(gumgaValues.getUploadTempDir(), id + ".data"), antigo);
+        Files.setLastModifiedTime(Paths.get(gumgaValues.getUploadTempDir(), id + ".meta"), antigo);
+
+        assertTrue(service.evictExpired() >= 2);
+        assertNull(service.open(id));
+    }
+
+}
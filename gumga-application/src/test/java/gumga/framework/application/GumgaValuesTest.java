@@ -5,5 +5,10 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class GumgaValuesTest implements GumgaValues{
-    
+
+    @Override
+    public boolean isLogAsync() {
+        return true;
+    }
+
 }
@@ -44,6 +44,8 @@ public class SpringConfig {
 
         Properties properties = new Properties();
         properties.put("eclipselink.weaving", "false");
+        properties.put("hibernate.search.default.directory_provider", "ram");
+        properties.put("hibernate.ejb.interceptor", GumgaStatementCounter.class.getName());
 
         LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
         factory.setJpaVendorAdapter(vendorAdapter);
@@ -0,0 +1,41 @@
+package gumga.framework.application.audit;
+
+import gumga.framework.domain.GumgaModel;
+import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
+import org.hibernate.envers.Audited;
+
+@Entity
+@Audited
+@SequenceGenerator(name = GumgaModel.SEQ_NAME, sequenceName = "SEQ_CONTRACT")
+public class Contract extends GumgaModel<Long> {
+
+    private String description;
+
+    private Integer amount;
+
+    public Contract() {
+    }
+
+    public Contract(String description, Integer amount) {
+        this.description = description;
+        this.amount = amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+}
@@ -0,0 +1,7 @@
+package gumga.framework.application.audit;
+
+import gumga.framework.domain.repository.GumgaCrudRepository;
+
+public interface ContractRepository extends GumgaCrudRepository<Contract, Long> {
+
+}
@@ -0,0 +1,15 @@
+package gumga.framework.application.audit;
+
+import gumga.framework.application.GumgaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ContractService extends GumgaService<Contract, Long> {
+
+    @Autowired
+    public ContractService(ContractRepository repository) {
+        super(repository);
+    }
+
+}
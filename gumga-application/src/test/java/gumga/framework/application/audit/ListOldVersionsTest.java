@@ -0,0 +1,61 @@
+package gumga.framework.application.audit;
+
+import gumga.framework.application.SpringConfig;
+import gumga.framework.core.SearchResult;
+import gumga.framework.domain.GumgaObjectAndRevision;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class ListOldVersionsTest {
+
+    @Autowired
+    private ContractService service;
+
+    private Contract criaComTresVersoes() {
+        Contract contract = service.save(new Contract("Inicial", 10));
+        contract.setAmount(20);
+        contract = service.save(contract);
+        contract.setDescription("Final");
+        return service.save(contract);
+    }
+
+    @Test
+    public void listaAsVersoesDaMaisAntigaParaAMaisRecente() {
+        Contract contract = criaComTresVersoes();
+
+        List<GumgaObjectAndRevision> versions = service.listOldVersions(contract.getId());
+        assertEquals(3, versions.size());
+        assertEquals(10, ((Contract) versions.get(0).getObject()).getAmount().intValue());
+        assertEquals("Final", ((Contract) versions.get(2).getObject()).getDescription());
+        assertNotNull(versions.get(2).getGumgaRevisionEntity().getId());
+    }
+
+    @Test
+    public void paginaAsVersoesDaMaisRecenteComAsDiferencas() {
+        Contract contract = criaComTresVersoes();
+
+        SearchResult<GumgaObjectAndRevision> page = service.listOldVersions(contract.getId(), 0, 2, true);
+        assertEquals(3, page.getCount().intValue());
+        assertEquals(2, page.getValues().size());
+        GumgaObjectAndRevision last = page.getValues().get(0);
+        assertNull(last.getObject());
+        assertEquals(1, last.getChanges().size());
+        assertEquals("Inicial", last.getChanges().get("description").getBefore());
+        assertEquals("Final", last.getChanges().get("description").getAfter());
+        assertEquals(20, page.getValues().get(1).getChanges().get("amount").getAfter());
+
+        GumgaObjectAndRevision first = service.listOldVersions(contract.getId(), 2, 2, true).getValues().get(0);
+        assertNull(first.getChanges());
+        assertEquals(10, ((Contract) first.getObject()).getAmount().intValue());
+    }
+
+}
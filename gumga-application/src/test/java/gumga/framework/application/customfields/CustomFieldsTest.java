@@ -104,4 +104,31 @@ public class CustomFieldsTest {
         assertEquals(2, size);
     }
     
+    @Test
+    @Transactional
+    public void carregaAtributosDeVariosObjetosEmLote() {
+        List<Car> result = carRepository.findAll();
+        enhancerService.loadCustomFields(result);
+        for (Car car : result) {
+            assertEquals(2, car.getGumgaCustomFields().size());
+            Object selection = car.getGumgaCustomFields().get("selectionField").getValue();
+            assertEquals("silver".equals(car.getColor()) ? "two doors" : "four doors", selection);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void gravaAtributosAlterandoOsValoresExistentes() {
+        Car car = carRepository.findAll().get(0);
+        enhancerService.loadCustomFields(car);
+        Long valueId = car.getGumgaCustomFields().get("logicField").getId();
+        car.getGumgaCustomFields().put("logicField", new GumgaCustomFieldValue(car.getGumgaCustomFields().get("logicField").getField(), null, Boolean.TRUE));
+        enhancerService.saveCustomFields(car);
+
+        car.getGumgaCustomFields().clear();
+        enhancerService.loadCustomFields(car);
+        assertEquals(valueId, car.getGumgaCustomFields().get("logicField").getId());
+        assertEquals(Boolean.TRUE, car.getGumgaCustomFields().get("logicField").getValue());
+    }
+
 }
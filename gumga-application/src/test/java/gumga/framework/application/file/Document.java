@@ -0,0 +1,69 @@
+package gumga.framework.application.file;
+
+import gumga.framework.domain.GumgaModel;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaImage;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
+import org.hibernate.annotations.Columns;
+import org.hibernate.annotations.Type;
+
+@Entity
+@SequenceGenerator(name = GumgaModel.SEQ_NAME, sequenceName = "SEQ_DOCUMENT")
+public class Document extends GumgaModel<Long> {
+
+    private String description;
+
+    @Columns(columns = {
+        @Column(name = "attachment_name"),
+        @Column(name = "attachment_size"),
+        @Column(name = "attachment_type"),
+        @Column(name = "attachment_bytes", length = 1024 * 1024)
+    })
+    @Type(type = "gumgalazyfile")
+    private GumgaFile attachment;
+
+    @Columns(columns = {
+        @Column(name = "photo_name"),
+        @Column(name = "photo_size"),
+        @Column(name = "photo_type"),
+        @Column(name = "photo_bytes", length = 1024 * 1024)
+    })
+    @Type(type = "gumgalazyimage")
+    private GumgaImage photo;
+
+    public Document() {
+    }
+
+    public Document(String description, GumgaFile attachment, GumgaImage photo) {
+        this.description = description;
+        this.attachment = attachment;
+        this.photo = photo;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public GumgaFile getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(GumgaFile attachment) {
+        this.attachment = attachment;
+    }
+
+    public GumgaImage getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(GumgaImage photo) {
+        this.photo = photo;
+    }
+
+}
@@ -0,0 +1,7 @@
+package gumga.framework.application.file;
+
+import gumga.framework.domain.repository.GumgaCrudRepository;
+
+public interface DocumentRepository extends GumgaCrudRepository<Document, Long> {
+
+}
@@ -0,0 +1,15 @@
+package gumga.framework.application.file;
+
+import gumga.framework.application.GumgaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DocumentService extends GumgaService<Document, Long> {
+
+    @Autowired
+    public DocumentService(DocumentRepository repository) {
+        super(repository);
+    }
+
+}
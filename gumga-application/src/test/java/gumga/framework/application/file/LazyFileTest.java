@@ -0,0 +1,157 @@
+package gumga.framework.application.file;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gumga.framework.application.GumgaStatementCounter;
+import gumga.framework.application.SpringConfig;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaImage;
+import gumga.framework.domain.domains.usertypes.GumgaLazyBytes;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.hibernate.LazyInitializationException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class LazyFileTest {
+
+    @Autowired
+    private DocumentService service;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final byte[] conteudo = "conteudo do arquivo".getBytes();
+
+    private Document criaDocumento() {
+        return service.save(new Document("contrato",
+                new GumgaFile("contrato.txt", conteudo.length, "text/plain", conteudo),
+                new GumgaImage("foto.png", 3, "image/png", new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    public void naoCarregaOConteudoAoBuscarAEntidade() throws Exception {
+        Long id = criaDocumento().getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> {
+            Document document = service.view(id);
+
+            assertEquals("contrato.txt", document.getAttachment().getName());
+            assertEquals(conteudo.length, document.getAttachment().getSize());
+            assertFalse(document.getAttachment().isBytesLoaded());
+            assertTrue(document.getPhoto() instanceof GumgaImage);
+            assertFalse(json(document).contains("\"bytes\":\""));
+
+            assertArrayEquals(conteudo, document.getAttachment().getBytes());
+            assertArrayEquals(new byte[]{1, 2, 3}, document.getPhoto().getBytes());
+            assertTrue(json(document).contains("\"bytes\":\""));
+            return null;
+        });
+    }
+
+    @Test
+    public void naoSelecionaAColunaDoConteudoComAEntidade() {
+        Long id = criaDocumento().getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> {
+            GumgaStatementCounter.begin();
+            Document document = service.view(id);
+            Map<String, Integer> consultas = GumgaStatementCounter.end().getCounts();
+            assertFalse(consultas.toString(), consultas.keySet().stream().anyMatch(sql -> sql.contains("attachment_bytes")));
+
+            GumgaStatementCounter.begin();
+            document.getAttachment().getBytes();
+            consultas = GumgaStatementCounter.end().getCounts();
+            assertTrue(consultas.toString(), consultas.keySet().stream().anyMatch(sql -> sql.contains("attachment_bytes")));
+            return null;
+        });
+    }
+
+    @Test(expected = LazyInitializationException.class)
+    public void naoCarregaOConteudoDepoisDeEncerrarASessao() {
+        service.view(criaDocumento().getId()).getAttachment().getBytes();
+    }
+
+    private static String json(Object value) {
+        try {
+            return new ObjectMapper().writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void mantemOConteudoAoAlterarSemEnviarOsBytes() throws Exception {
+        Document document = criaDocumento();
+        String json = json(service.view(document.getId()));
+
+        Document recebido = new ObjectMapper().readValue(json, Document.class);
+        recebido.setDescription("alterado");
+        service.save(recebido);
+
+        assertArrayEquals(conteudo, bytes(document.getId(), "alterado"));
+    }
+
+    @Test
+    public void naoCarregaOConteudoAoAlterarOutroAtributo() throws Exception {
+        Document document = criaDocumento();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        GumgaLazyBytes loader = transaction.execute(status -> {
+            Document gravado = service.view(document.getId());
+            gravado.setDescription("alterado");
+            return (GumgaLazyBytes) gravado.getAttachment().getBytesLoader();
+        });
+
+        assertNull(loader.getLoaded());
+        assertArrayEquals(conteudo, bytes(document.getId(), "alterado"));
+    }
+
+    private byte[] bytes(Long id, String description) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Document gravado = service.view(id);
+            assertEquals(description, gravado.getDescription());
+            return gravado.getAttachment().getBytes();
+        });
+    }
+
+    @Test
+    public void enviaOConteudoDiretamenteDoBanco() throws Exception {
+        Document document = criaDocumento();
+        AtomicReference<GumgaFile> metadados = new AtomicReference<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(service.streamFile(document.getId(), "attachment", (file, content) -> {
+            metadados.set(file);
+            StreamUtils.copy(content, out);
+        }));
+        assertEquals("text/plain", metadados.get().getMimeType());
+        assertArrayEquals(conteudo, out.toByteArray());
+
+        document.setPhoto(null);
+        service.save(document);
+        assertFalse(service.streamFile(document.getId(), "photo", (file, content) -> {
+        }));
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void recusaAtributoQueNaoEArquivo() throws Exception {
+        service.streamFile(criaDocumento().getId(), "description", (file, content) -> {
+        });
+    }
+
+}
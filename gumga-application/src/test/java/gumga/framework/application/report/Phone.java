@@ -0,0 +1,39 @@
+package gumga.framework.application.report;
+
+import gumga.framework.domain.GumgaModel;
+import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
+
+@Entity
+@SequenceGenerator(name = GumgaModel.SEQ_NAME, sequenceName = "SEQ_PHONE")
+public class Phone extends GumgaModel<Long> {
+
+    private String name;
+
+    private String phone;
+
+    public Phone() {
+    }
+
+    public Phone(String name, String phone) {
+        this.name = name;
+        this.phone = phone;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+}
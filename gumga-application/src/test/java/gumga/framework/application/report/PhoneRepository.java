@@ -0,0 +1,7 @@
+package gumga.framework.application.report;
+
+import gumga.framework.domain.repository.GumgaCrudRepository;
+
+public interface PhoneRepository extends GumgaCrudRepository<Phone, Long> {
+
+}
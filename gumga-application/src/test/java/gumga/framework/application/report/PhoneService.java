@@ -0,0 +1,15 @@
+package gumga.framework.application.report;
+
+import gumga.framework.application.GumgaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class PhoneService extends GumgaService<Phone, Long> {
+
+    @Autowired
+    public PhoneService(PhoneRepository repository) {
+        super(repository);
+    }
+
+}
@@ -8,12 +8,18 @@ package gumga.framework.application.report;
 import gumga.framework.application.SpringConfig;
 import gumga.framework.application.service.JasperReportService;
 import gumga.framework.application.service.ReportType;
+import gumga.framework.core.QueryObject;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
 import org.junit.After;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -34,6 +40,9 @@ public class ReportTest {
     @Autowired
     private JasperReportService reportService;
 
+    @Autowired
+    private PhoneService phoneService;
+
     @Before
     public void before() {
         assertNotNull("Report service is null", reportService);
@@ -73,6 +82,51 @@ public class ReportTest {
         assertTrue(new File(outputFile).exists());
     }
 
+    @Test
+    public void exportaOHtmlDiretoNaStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.exportReport(getInputStreamReportFile(), out, createContactList(), null, ReportType.HTML);
+        String html = new String(out.toByteArray(), "UTF-8");
+        assertTrue(html.contains("<html"));
+        assertTrue(html.contains("</html>"));
+    }
+
+    @Test
+    public void mantemORelatorioCompiladoEmCacheAteSerAlterado() throws Exception {
+        URL url = getClass().getResource("/reports/test.jasper");
+        JasperReport report = reportService.loadReport(url);
+        assertSame(report, reportService.loadReport(url));
+
+        long alteracao = new File(url.toURI()).lastModified() + 1;
+        JasperReport alterado = reportService.loadReport(url.toString(), alteracao, url::openStream);
+        assertNotSame(report, alterado);
+        assertSame(alterado, reportService.loadReport(url.toString(), alteracao, () -> {
+            throw new AssertionError("não deveria abrir o arquivo");
+        }));
+    }
+
+    @Test
+    public void geraORelatorioLendoOsRegistrosDaPesquisa() throws Exception {
+        for (Contact contact : createContactList()) {
+            phoneService.save(new Phone(contact.getName(), contact.getPhone()));
+        }
+        JasperReport report = reportService.loadReport(getClass().getResource("/reports/test.jasper"));
+        QueryObject query = new QueryObject();
+        query.setSortField("name");
+
+        assertEquals(2, pageCount(report, query));
+        query.setAq("obj.name like 'M%'");
+        assertEquals(1, pageCount(report, query));
+    }
+
+    private int pageCount(JasperReport report, QueryObject query) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.exportReport(report, out, phoneService, query, null, ReportType.TEXT);
+        Matcher matcher = Pattern.compile("page.count\" value=\"(\\d+)\"").matcher(new String(out.toByteArray(), "UTF-8"));
+        assertTrue(matcher.find());
+        return Integer.parseInt(matcher.group(1));
+    }
+
     private InputStream getInputStreamReportFile() throws Exception {
         InputStream is = ReportTest.this.getClass().getResourceAsStream("/reports/test.jasper");
         assertNotNull("Report input stream error", is);
@@ -0,0 +1,44 @@
+package gumga.framework.application.search;
+
+import gumga.framework.domain.GumgaModel;
+import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Indexed;
+
+@Entity
+@Indexed
+@SequenceGenerator(name = GumgaModel.SEQ_NAME, sequenceName = "SEQ_BOOK")
+public class Book extends GumgaModel<Long> {
+
+    @Field
+    private String title;
+
+    @Field
+    private String description;
+
+    public Book() {
+    }
+
+    public Book(String title, String description) {
+        this.title = title;
+        this.description = description;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+}
@@ -0,0 +1,45 @@
+package gumga.framework.application.search;
+
+import gumga.framework.application.GumgaFullTextResult;
+import gumga.framework.application.GumgaUntypedRepository;
+import gumga.framework.application.SpringConfig;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class FullTextSearchTest {
+
+    @Autowired
+    private GumgaUntypedRepository repository;
+
+    @Test
+    public void ordenaPelaRelevanciaEPaginaAsOcorrenciasDeTodasAsEntidades() {
+        repository.save(new Book("Gumga em ação", "framework gumga para java"));
+        repository.save(new Book("Java concorrente", "threads"));
+        repository.save(new Movie("Gumga", "gumga gumga gumga"));
+        repository.save(new Movie("Outro filme", "sem relação"));
+
+        GumgaFullTextResult<Object> result = repository.fullTextSearch("gumga", 0, 2);
+        assertEquals(2, result.getCount().intValue());
+        assertEquals(Long.valueOf(1), result.getFacets().get(Book.class.getName()));
+        assertEquals(Long.valueOf(1), result.getFacets().get(Movie.class.getName()));
+        assertEquals(2, result.getValues().size());
+        assertTrue(result.getValues().get(0) instanceof Movie);
+        assertTrue(result.getScores().get(0) >= result.getScores().get(1));
+
+        GumgaFullTextResult<Object> segundaPagina = repository.fullTextSearch("gumga", 1, 5);
+        assertEquals(1, segundaPagina.getValues().size());
+        assertTrue(segundaPagina.getValues().get(0) instanceof Book);
+
+        List<Object> todos = repository.fullTextSearch("java");
+        assertEquals(2, todos.size());
+    }
+
+}
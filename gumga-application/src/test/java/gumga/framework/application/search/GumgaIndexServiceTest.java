@@ -0,0 +1,102 @@
+package gumga.framework.application.search;
+
+import gumga.framework.application.GumgaIndexProgress;
+import gumga.framework.application.GumgaIndexService;
+import gumga.framework.application.GumgaUntypedRepository;
+import gumga.framework.application.SpringConfig;
+import gumga.framework.core.GumgaThreadScope;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import static org.junit.Assert.assertEquals;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SpringConfig.class})
+public class GumgaIndexServiceTest {
+
+    @Autowired
+    private GumgaIndexService indexService;
+
+    @Autowired
+    private GumgaUntypedRepository repository;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @After
+    public void tearDown() {
+        GumgaThreadScope.organizationCode.remove();
+    }
+
+    @Test
+    public void reconstroiOIndicePerdido() throws InterruptedException {
+        repository.save(new Book("Reindexado um", "primeiro"));
+        repository.save(new Book("Reindexado dois", "segundo"));
+        repository.save(new Book("Reindexado tres", "terceiro"));
+        purge(Book.class);
+        assertEquals(0, repository.fullTextSearch("reindexado").size());
+
+        GumgaIndexProgress progress = await(indexService.rebuild(Collections.singletonList("Book"), 2, 2, false));
+        assertEquals(GumgaIndexProgress.Status.DONE, progress.getStatus());
+        assertEquals(Arrays.asList(Book.class.getName()), progress.getEntities());
+        assertEquals(progress.getTotal(), progress.getIndexed());
+        assertEquals(100, progress.getPercent());
+        assertEquals(3, repository.fullTextSearch("reindexado").size());
+    }
+
+    @Test
+    public void reconstroiSomenteOsRegistrosDaOrganizacao() throws InterruptedException {
+        GumgaThreadScope.organizationCode.set("1.");
+        repository.save(new Article("Organizacional", "primeira organizacao"));
+        repository.save(new Article("Organizacional", "primeira organizacao"));
+        GumgaThreadScope.organizationCode.set("2.");
+        repository.save(new Article("Organizacional", "segunda organizacao"));
+        purge(Article.class);
+
+        GumgaThreadScope.organizationCode.set("1.");
+        GumgaIndexProgress progress = await(indexService.rebuild(null, 1, 2, true));
+        assertEquals(GumgaIndexProgress.Status.DONE, progress.getStatus());
+        assertEquals(Arrays.asList(Article.class.getName()), progress.getEntities());
+        assertEquals("1.", progress.getOrganizationCode());
+        assertEquals(2, progress.getTotal());
+        assertEquals(2, progress.getIndexed());
+        assertEquals(2, repository.fullTextSearch("organizacional").size());
+        assertEquals(progress, indexService.find(progress.getId()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recusaEntidadeNaoIndexada() {
+        indexService.rebuild(Collections.singletonList("Phone"), 10, 1, false);
+    }
+
+    private void purge(Class<?> classe) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+            em.getTransaction().begin();
+            fullTextEntityManager.purgeAll(classe);
+            fullTextEntityManager.flushToIndexes();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private GumgaIndexProgress await(GumgaIndexProgress progress) throws InterruptedException {
+        for (int i = 0; i < 100 && (progress.getStatus() == GumgaIndexProgress.Status.QUEUED || progress.getStatus() == GumgaIndexProgress.Status.RUNNING); i++) {
+            Thread.sleep(100);
+        }
+        return progress;
+    }
+
+}
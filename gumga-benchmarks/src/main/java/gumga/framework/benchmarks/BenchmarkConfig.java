@@ -0,0 +1,60 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.application.GumgaRepositoryFactoryBean;
+import gumga.framework.domain.GumgaQueryParserProvider;
+import java.util.Properties;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Contexto dos benchmarks de repositório: H2 em memória e somente os
+ * repositórios deste módulo.
+ *
+ * @author Equipe Gumga
+ */
+@Configuration
+@EnableJpaRepositories(repositoryFactoryBeanClass = GumgaRepositoryFactoryBean.class, basePackages = {"gumga.framework.benchmarks"})
+@EnableTransactionManagement(proxyTargetClass = true)
+public class BenchmarkConfig {
+
+    @Bean
+    public DataSource dataSource() {
+        return new EmbeddedDatabaseBuilder().setType(H2).setName("gumga-benchmarks").build();
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        GumgaQueryParserProvider.defaultMap = GumgaQueryParserProvider.getH2LikeMap();
+
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setGenerateDdl(true);
+        vendorAdapter.setShowSql(false);
+
+        Properties properties = new Properties();
+        properties.put("hibernate.search.autoregister_listeners", "false");
+        properties.put("hibernate.search.default.directory_provider", "ram");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setJpaVendorAdapter(vendorAdapter);
+        factory.setPackagesToScan("gumga.framework.benchmarks");
+        factory.setDataSource(dataSource);
+        factory.setJpaProperties(properties);
+        return factory;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+        return new JpaTransactionManager(emf);
+    }
+
+}
@@ -0,0 +1,50 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.core.utils.ReflectionUtils;
+import gumga.framework.domain.domains.GumgaMoney;
+import gumga.framework.presentation.api.CSVGeneratorAPI;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Geração das linhas da exportação CSV.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmark {
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = new Product("Produto 1", "Descricao do produto 1", GumgaMoney.valueOf(10.99), 7, new Date());
+        ReflectionUtils.setId(product, 1L);
+    }
+
+    @Benchmark
+    public StringBuilder line() {
+        return CSVGeneratorAPI.objectToCsvLine(product);
+    }
+
+    @Benchmark
+    public String title() {
+        return CSVGeneratorAPI.classToCsvTitle(Product.class);
+    }
+
+}
@@ -0,0 +1,79 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.core.utils.EntityMetadata;
+import gumga.framework.core.utils.FieldAccessor;
+import gumga.framework.domain.domains.GumgaMoney;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Metadados de entidade em cache ({@link EntityMetadata}) comparados à
+ * reflexão feita a cada chamada.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMetadataBenchmark {
+
+    private Product product;
+
+    private Field nameField;
+
+    private FieldAccessor nameAccessor;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        product = new Product("Produto 1", "Descricao do produto 1", GumgaMoney.valueOf(10.99), 7, new Date());
+        nameField = Product.class.getDeclaredField("name");
+        nameField.setAccessible(true);
+        nameAccessor = EntityMetadata.of(Product.class).getAccessor("name");
+    }
+
+    @Benchmark
+    public List<Field> cachedFields() {
+        return EntityMetadata.of(Product.class).getInstanceFields();
+    }
+
+    @Benchmark
+    public List<Field> reflectedFields() {
+        List<Field> toReturn = new ArrayList<>();
+        for (Class<?> c = Product.class; c != null && !Object.class.equals(c); c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    toReturn.add(f);
+                }
+            }
+        }
+        return toReturn;
+    }
+
+    @Benchmark
+    public Object accessorGet() {
+        return nameAccessor.get(product);
+    }
+
+    @Benchmark
+    public Object reflectionGet() throws IllegalAccessException {
+        return nameField.get(product);
+    }
+
+}
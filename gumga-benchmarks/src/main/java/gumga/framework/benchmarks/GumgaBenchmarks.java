@@ -0,0 +1,38 @@
+package gumga.framework.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa os benchmarks do framework. Aceita as mesmas opções da linha de
+ * comando do JMH; sem opções roda todos os benchmarks deste pacote e grava o
+ * resultado em JSON em target/jmh-result.json, para comparar versões.
+ *
+ * <pre>
+ * java -jar gumga-benchmarks/target/benchmarks.jar
+ * java -jar gumga-benchmarks/target/benchmarks.jar MoneyBenchmark -rff money.json
+ * </pre>
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (cmd.getIncludes().isEmpty()) {
+            options.include(GumgaBenchmarks.class.getPackage().getName());
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            options.result("target/jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+
+}
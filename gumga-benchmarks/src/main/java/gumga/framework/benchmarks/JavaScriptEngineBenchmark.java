@@ -0,0 +1,53 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.core.JavaScriptEngine;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Avaliação de scripts pelo {@link JavaScriptEngine}, que reaproveita os
+ * motores e os scripts compilados.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaScriptEngineBenchmark {
+
+    private Map<String, Object> objects;
+
+    @Setup
+    public void setUp() {
+        objects = new HashMap<>();
+        objects.put("a", 10);
+        objects.put("b", 32);
+    }
+
+    @Benchmark
+    public Object eval() {
+        return JavaScriptEngine.eval("a + b * 2", objects);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object evalConcurrent() {
+        return JavaScriptEngine.eval("a + b * 2", objects);
+    }
+
+}
@@ -0,0 +1,77 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.domain.CurrencyFormatter;
+import gumga.framework.domain.domains.GumgaMoney;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aritmética do {@link GumgaMoney} e formatação do {@link CurrencyFormatter}.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private GumgaMoney price;
+
+    private GumgaMoney quantity;
+
+    private BigDecimal discount;
+
+    private CurrencyFormatter formatter;
+
+    @Setup
+    public void setUp() {
+        price = GumgaMoney.valueOf("1234.56");
+        quantity = GumgaMoney.valueOf("3");
+        discount = new BigDecimal("12.5");
+        formatter = new CurrencyFormatter();
+    }
+
+    @Benchmark
+    public GumgaMoney add() {
+        return price.add(quantity);
+    }
+
+    @Benchmark
+    public GumgaMoney multiply() {
+        return price.multiply(quantity);
+    }
+
+    @Benchmark
+    public GumgaMoney divide() {
+        return price.divideBy(quantity);
+    }
+
+    @Benchmark
+    public GumgaMoney discount() {
+        return price.discountPercentage(discount);
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(price);
+    }
+
+    @Benchmark
+    public String formatWithoutSymbol() {
+        return formatter.format(price, false);
+    }
+
+}
@@ -0,0 +1,83 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.domain.GumgaModel;
+import gumga.framework.domain.domains.GumgaMoney;
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Entidade representativa das aplicações: texto, valor monetário, número e
+ * data.
+ *
+ * @author Equipe Gumga
+ */
+@Entity
+@SequenceGenerator(name = GumgaModel.SEQ_NAME, sequenceName = "SEQ_PRODUCT")
+public class Product extends GumgaModel<Long> {
+
+    private String name;
+
+    private String description;
+
+    private GumgaMoney price;
+
+    private int quantity;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date created;
+
+    public Product() {
+    }
+
+    public Product(String name, String description, GumgaMoney price, int quantity, Date created) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.quantity = quantity;
+        this.created = created;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public GumgaMoney getPrice() {
+        return price;
+    }
+
+    public void setPrice(GumgaMoney price) {
+        this.price = price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+}
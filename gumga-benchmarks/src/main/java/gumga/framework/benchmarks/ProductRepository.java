@@ -0,0 +1,7 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.domain.repository.GumgaCrudRepository;
+
+public interface ProductRepository extends GumgaCrudRepository<Product, Long> {
+
+}
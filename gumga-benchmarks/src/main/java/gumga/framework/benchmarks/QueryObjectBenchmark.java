@@ -0,0 +1,59 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.core.QueryObject;
+import gumga.framework.domain.GumgaQueryParserProvider;
+import gumga.framework.domain.HibernateQueryObject;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.criterion.Criterion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Montagem dos critérios da pesquisa simples pelo
+ * {@link HibernateQueryObject}.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryObjectBenchmark {
+
+    private QueryObject text;
+
+    private QueryObject number;
+
+    @Setup
+    public void setUp() {
+        GumgaQueryParserProvider.defaultMap = GumgaQueryParserProvider.getH2LikeMap();
+        text = new QueryObject();
+        text.setQ("Produto");
+        text.setSearchFields("name", "description");
+
+        number = new QueryObject();
+        number.setQ("42");
+        number.setSearchFields("name", "description", "quantity");
+    }
+
+    @Benchmark
+    public Criterion[] textFields() {
+        return new HibernateQueryObject(text).getCriterions(Product.class);
+    }
+
+    @Benchmark
+    public Criterion[] mixedFields() {
+        return new HibernateQueryObject(number).getCriterions(Product.class);
+    }
+
+}
@@ -0,0 +1,115 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.core.CountStrategy;
+import gumga.framework.core.QueryObject;
+import gumga.framework.core.SearchResult;
+import gumga.framework.domain.domains.GumgaMoney;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Pesquisas do {@link gumga.framework.application.GumgaGenericRepository}
+ * contra o H2 em memória: simples (q + searchFields), avançada (aq) e
+ * somente o count.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ProductRepository repository;
+
+    private TransactionTemplate readOnly;
+
+    private QueryObject simple;
+
+    private QueryObject advanced;
+
+    private QueryObject count;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+        repository = context.getBean(ProductRepository.class);
+        TransactionTemplate write = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        write.execute(status -> {
+            List<Product> products = new ArrayList<>(1000);
+            for (int i = 0; i < rows; i++) {
+                products.add(new Product("Produto " + i, "Descricao do produto " + i, GumgaMoney.valueOf(i % 1000 + 0.99), i % 100, new Date()));
+                if (products.size() == 1000) {
+                    repository.save(products);
+                    repository.flush();
+                    products.clear();
+                }
+            }
+            repository.save(products);
+            return null;
+        });
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        simple = new QueryObject();
+        simple.setQ("Produto 12");
+        simple.setSearchFields("name", "description");
+        simple.setSortField("name");
+        simple.setCountStrategy(CountStrategy.NONE);
+
+        advanced = new QueryObject();
+        advanced.setAq("obj.quantity > 50 and obj.name like 'Produto 1%'");
+        advanced.setSortField("obj.quantity");
+        advanced.setCountStrategy(CountStrategy.NONE);
+
+        count = new QueryObject();
+        count.setAq("obj.quantity > 50");
+        count.setCountOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SearchResult<Product> simpleSearch() {
+        return readOnly.execute(status -> repository.search(simple));
+    }
+
+    @Benchmark
+    public SearchResult<Product> advancedSearch() {
+        return readOnly.execute(status -> repository.search(advanced));
+    }
+
+    @Benchmark
+    public SearchResult<Product> countOnly() {
+        return readOnly.execute(status -> repository.search(count));
+    }
+
+}
@@ -0,0 +1,108 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.domain.domains.GumgaAddress;
+import gumga.framework.domain.domains.GumgaMoney;
+import gumga.framework.domain.domains.GumgaOi;
+import gumga.framework.domain.domains.usertypes.GumgaAddressUserType;
+import gumga.framework.domain.domains.usertypes.GumgaMoneyUserType;
+import gumga.framework.domain.domains.usertypes.GumgaOiUserType;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leitura e escrita dos UserTypes sobre o ResultSet e o PreparedStatement do
+ * H2, sem executar a consulta a cada chamada.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserTypeBenchmark {
+
+    private static final String[] MONEY = {"PRICE"};
+    private static final String[] OI = {"OI"};
+    private static final String[] ADDRESS = {"ZIP", "PREMISSETYPE", "PREMISSE", "NUMBER", "INFORMATION", "NEIGHBOURHOOD", "LOCALIZATION", "STATE", "COUNTRY"};
+
+    private final GumgaMoneyUserType moneyType = new GumgaMoneyUserType();
+    private final GumgaOiUserType oiType = new GumgaOiUserType();
+    private final GumgaAddressUserType addressType = new GumgaAddressUserType();
+
+    private Connection connection;
+    private ResultSet resultSet;
+    private PreparedStatement statement;
+
+    private GumgaMoney money;
+    private GumgaOi oi;
+    private GumgaAddress address;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:usertypes");
+        resultSet = connection.createStatement().executeQuery("SELECT CAST(1234.56 AS DECIMAL(19,2)) PRICE, '1.2.' OI, "
+                + "'87000-000' ZIP, 'Avenida' PREMISSETYPE, 'Brasil' PREMISSE, '100' NUMBER, 'Sala 1' INFORMATION, "
+                + "'Centro' NEIGHBOURHOOD, 'Maringa' LOCALIZATION, 'PR' STATE, 'Brasil' COUNTRY");
+        resultSet.next();
+        statement = connection.prepareStatement("SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?");
+        money = GumgaMoney.valueOf("1234.56");
+        oi = new GumgaOi("1.2.");
+        address = new GumgaAddress("87000-000", "Avenida", "Brasil", "100", "Sala 1", "Centro", "Maringa", "PR", "Brasil");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Object moneyGet() throws SQLException {
+        return moneyType.nullSafeGet(resultSet, MONEY, null, null);
+    }
+
+    @Benchmark
+    public PreparedStatement moneySet() throws SQLException {
+        moneyType.nullSafeSet(statement, money, 1, null);
+        return statement;
+    }
+
+    @Benchmark
+    public Object oiGet() throws SQLException {
+        return oiType.nullSafeGet(resultSet, OI, null, null);
+    }
+
+    @Benchmark
+    public PreparedStatement oiSet() throws SQLException {
+        oiType.nullSafeSet(statement, oi, 2, null);
+        return statement;
+    }
+
+    @Benchmark
+    public Object addressGet() throws SQLException {
+        return addressType.nullSafeGet(resultSet, ADDRESS, null, null);
+    }
+
+    @Benchmark
+    public PreparedStatement addressSet() throws SQLException {
+        addressType.nullSafeSet(statement, address, 3, null);
+        return statement;
+    }
+
+}
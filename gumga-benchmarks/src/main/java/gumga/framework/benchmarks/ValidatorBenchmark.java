@@ -0,0 +1,63 @@
+package gumga.framework.benchmarks;
+
+import gumga.framework.validation.GumgaValidator;
+import gumga.framework.validation.validator.GumgaStringValidation;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+/**
+ * Validação de um objeto com o {@link GumgaValidator}, com e sem erros.
+ *
+ * @author Equipe Gumga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private Product valid;
+
+    private Product invalid;
+
+    @Setup
+    public void setUp() {
+        valid = new Product("Produto 1", "Descricao do produto", null, 1, new Date());
+        invalid = new Product(" ", "Descricao com palavrao", null, 0, null);
+    }
+
+    @Benchmark
+    public Errors valid() {
+        return validate(valid);
+    }
+
+    @Benchmark
+    public Errors invalid() {
+        return validate(invalid);
+    }
+
+    private Errors validate(Product product) {
+        Errors errors = new BeanPropertyBindingResult(product, "product");
+        GumgaValidator.with(errors)
+                .check("name", product.getName(), GumgaStringValidation.notNullOrEmpty())
+                .check("description", product.getDescription(), GumgaStringValidation.notNullOrEmpty(), GumgaStringValidation.containsIllegalWords("palavrao", "proibido"))
+                .checkIsTrue("quantity", product.getQuantity() > 0)
+                .checkNotNull("created", product.getCreated());
+        return errors;
+    }
+
+}
@@ -0,0 +1,30 @@
+package gumga.framework.core;
+
+/**
+ * Estratégia utilizada para obter o total de registros de uma pesquisa
+ *
+ * @author Equipe Gumga
+ */
+public enum CountStrategy {
+
+    /**
+     * Executa o count a cada pesquisa
+     */
+    EXACT,
+    /**
+     * Reutiliza o count de uma pesquisa idêntica da mesma organização enquanto
+     * não houver escrita na entidade
+     */
+    CACHED,
+    /**
+     * Utiliza as estatísticas do banco de dados quando a pesquisa não possui
+     * filtros, senão se comporta como CACHED
+     */
+    ESTIMATED,
+    /**
+     * Não conta, o total informado é apenas o número de registros já
+     * percorridos
+     */
+    NONE
+
+}
@@ -0,0 +1,25 @@
+package gumga.framework.core;
+
+/**
+ * Comportamento do log assíncrono de requisições quando a fila de gravação
+ * está cheia
+ *
+ * @author Equipe Gumga
+ */
+public enum GumgaLogOverflowPolicy {
+
+    /**
+     * A requisição aguarda espaço na fila, nenhum log é perdido
+     */
+    BLOCK,
+    /**
+     * O log é descartado
+     */
+    DROP,
+    /**
+     * Apenas um a cada {@link GumgaValues#getLogSampleRate()} logs é mantido,
+     * se houver espaço na fila no momento, os demais são descartados
+     */
+    SAMPLE
+
+}
@@ -45,6 +45,23 @@ public interface GumgaValues {
         return 30l * 60l * 1000l;
     }
 
+    /**
+     * @return Tempo em milisegundos que uma autorização concedida pelo
+     * segurança é reaproveitada sem nova consulta, nunca maior que a duração do
+     * token. Também é o atraso máximo para que um token revogado em outro nó
+     * ou no segurança deixe de ser aceito. Zero desliga o cache.
+     */
+    default long getAuthorizationCacheDuration() {
+        return Math.min(getDefaultTokenDuration(), 5l * 60l * 1000l);
+    }
+
+    /**
+     * @return Quantidade máxima de autorizações mantidas em cache
+     */
+    default long getAuthorizationCacheMaxSize() {
+        return 10000;
+    }
+
     /**
      * @return se o log está ativo
      */
@@ -52,6 +69,51 @@ public interface GumgaValues {
         return true;
     }
 
+    /**
+     * @return se o log das requisições é gravado em segundo plano, em lotes;
+     * desligado, o log é gravado na própria requisição
+     */
+    default boolean isLogAsync() {
+        return false;
+    }
+
+    /**
+     * @return quantidade máxima de logs gravados por lote
+     */
+    default int getLogBatchSize() {
+        return 100;
+    }
+
+    /**
+     * @return tempo máximo em milisegundos que um log aguarda para completar o
+     * lote antes de ser gravado
+     */
+    default long getLogFlushInterval() {
+        return 1000l;
+    }
+
+    /**
+     * @return quantidade máxima de logs aguardando gravação
+     */
+    default int getLogQueueCapacity() {
+        return 10000;
+    }
+
+    /**
+     * @return o que fazer quando a fila de logs está cheia
+     */
+    default GumgaLogOverflowPolicy getLogOverflowPolicy() {
+        return GumgaLogOverflowPolicy.BLOCK;
+    }
+
+    /**
+     * @return com a política SAMPLE, mantém um a cada N logs enquanto a fila
+     * estiver cheia
+     */
+    default int getLogSampleRate() {
+        return 10;
+    }
+
     /**
      * Para não logar no banco
      *
@@ -78,6 +140,77 @@ public interface GumgaValues {
 
     }
 
+    /**
+     * @return tempo em milisegundos após o qual um arquivo temporário de
+     * upload não utilizado é removido
+     */
+    default long getUploadTempTimeToLive() {
+        return 6l * 60l * 60l * 1000l;
+    }
+
+    /**
+     * @return páginas de um relatório mantidas em memória durante o
+     * preenchimento, as demais são gravadas em disco
+     */
+    default int getReportVirtualizerMaxPages() {
+        return 100;
+    }
+
+    /**
+     * @return diretório do arquivo de troca dos relatórios
+     */
+    default String getReportSwapDir() {
+        return System.getProperty("java.io.tmpdir");
+    }
+
+    /**
+     * @return threads que processam relatórios e exportações em segundo plano
+     */
+    default int getJobThreads() {
+        return 2;
+    }
+
+    /**
+     * @return relatórios e exportações processados ao mesmo tempo para uma
+     * mesma organização, os demais aguardam na fila
+     */
+    default int getJobsPerOrganization() {
+        return 1;
+    }
+
+    /**
+     * @return diretório para armazenar os resultados dos relatórios e
+     * exportações processados em segundo plano
+     */
+    default String getJobDir() {
+        return System.getProperty("user.home").concat("/gumgafiles/jobs");
+    }
+
+    /**
+     * @return tempo em milisegundos em que o resultado de um relatório ou
+     * exportação fica disponível e é reaproveitado por pedidos iguais
+     */
+    default long getJobResultTimeToLive() {
+        return 30l * 60l * 1000l;
+    }
+
+    /**
+     * @return execuções permitidas de uma mesma instrução SQL em uma
+     * requisição antes de ser apontada como N+1, 0 desativa a verificação
+     */
+    default int getRepeatedStatementLimit() {
+        return 20;
+    }
+
+    /**
+     * @return falha a requisição que passar de
+     * {@link #getRepeatedStatementLimit()}, lançando a exceção ao preparar a
+     * instrução repetida, antes da resposta ser escrita; para uso em testes
+     */
+    default boolean isRepeatedStatementFailure() {
+        return false;
+    }
+
     /**
      * @return diretório para armazenar aquivos de log
      */
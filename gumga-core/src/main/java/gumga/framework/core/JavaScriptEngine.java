@@ -1,15 +1,28 @@
 package gumga.framework.core;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 /**
- * Interpretador Javascript para backend
+ * Interpretador Javascript para backend. Os motores são reaproveitados em um
+ * pool e cada motor mantém os scripts já compilados (LRU por código fonte);
+ * cada avaliação recebe um contexto global próprio, sem variáveis de
+ * avaliações anteriores.
  *
  * @author munif
  */
@@ -17,6 +30,14 @@ public class JavaScriptEngine {
 
     private static final ScriptEngineManager engineManager = new ScriptEngineManager();
 
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final BlockingQueue<PooledEngine> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
     /**
      * Avalia o valor do script com o contexto de objetos java passados no map e
      * retora um objeto.
@@ -26,16 +47,22 @@ public class JavaScriptEngine {
      * @return valor resultante
      */
     public static Object eval(String script, Map<String, Object> objects) {
+        PooledEngine pooled = pool.poll();
+        if (pooled == null) {
+            pooled = new PooledEngine(engineManager.getEngineByName("JavaScript"));
+        }
+        long start = System.nanoTime();
         try {
-            ScriptEngine engine = engineManager.getEngineByName("JavaScript");
+            Bindings bindings = pooled.engine.createBindings();
             if (objects != null) {
-                for (String key : objects.keySet()) {
-                    engine.put(key, objects.get(key));
-                }
+                bindings.putAll(objects);
             }
-            return engine.eval(script);
+            return pooled.compile(script).eval(bindings);
         } catch (ScriptException ex) {
             Logger.getLogger(JavaScriptEngine.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            time(script, System.nanoTime() - start);
+            pool.offer(pooled);
         }
         return null;
     }
@@ -53,4 +80,88 @@ public class JavaScriptEngine {
         long mili = (long) (double) eval(scriptForDate, objects);
         return new Date(mili);
     }
+
+    /**
+     * @return tempos de execução por script, incluindo a compilação
+     */
+    public static Map<String, Timing> getTimings() {
+        return Collections.unmodifiableMap(new HashMap<>(timings));
+    }
+
+    public static void resetTimings() {
+        timings.clear();
+    }
+
+    private static void time(String script, long nanos) {
+        Timing timing = timings.get(script);
+        if (timing == null) {
+            if (timings.size() >= CACHE_SIZE) {
+                timings.clear();
+            }
+            timing = timings.computeIfAbsent(script, k -> new Timing());
+        }
+        timing.add(nanos);
+    }
+
+    /**
+     * Motor com os scripts compilados por ele. É utilizado por uma thread de
+     * cada vez.
+     */
+    private static final class PooledEngine {
+
+        private final ScriptEngine engine;
+
+        private final Map<String, CompiledScript> compiled = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        private PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        private CompiledScript compile(String script) throws ScriptException {
+            CompiledScript toReturn = compiled.get(script);
+            if (toReturn == null) {
+                toReturn = ((Compilable) engine).compile(script);
+                compiled.put(script, toReturn);
+            }
+            return toReturn;
+        }
+    }
+
+    /**
+     * Quantidade de execuções e tempos acumulado e máximo de um script
+     */
+    public static final class Timing {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() + ", total=" + getTotalNanos() / 1000000 + "ms, max=" + getMaxNanos() / 1000000 + "ms";
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package gumga.framework.core;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Cursor opaco utilizado na paginação por chave (keyset/seek). Guarda o valor
+ * do atributo de ordenação e o id do último registro de uma página, para que a
+ * próxima página seja buscada com um predicado "depois de" em vez de OFFSET.
+ *
+ * Somente valores de tipos simples (String, números, Boolean e Date) podem ser
+ * codificados; para os demais tipos nenhum cursor é gerado. O valor de
+ * ordenação nulo é codificado, os registros sem valor ficam no fim da
+ * ordenação.
+ *
+ * @author Equipe Gumga
+ */
+public final class QueryCursor {
+
+    private static final String SEPARATOR = "\u001F";
+    private static final char NULL_TAG = 'N';
+
+    private final String sortField;
+    private final String sortDir;
+    private final Object sortValue;
+    private final Object id;
+
+    private QueryCursor(String sortField, String sortDir, Object sortValue, Object id) {
+        this.sortField = sortField;
+        this.sortDir = sortDir;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Cria o cursor que aponta para o registro com o valor de ordenação e id
+     * informados, dentro da ordenação da pesquisa.
+     *
+     * @param query pesquisa que gerou a página
+     * @param sortValue valor do atributo de ordenação do último registro, pode
+     * ser nulo
+     * @param id id do último registro
+     * @return o cursor ou null se algum dos valores não puder ser codificado
+     */
+    public static QueryCursor of(QueryObject query, Object sortValue, Object id) {
+        if (id == null || !isEncodable(id)) {
+            return null;
+        }
+        if (!query.getSortField().isEmpty() && sortValue != null && !isEncodable(sortValue)) {
+            return null;
+        }
+        return new QueryCursor(query.getSortField(), query.getSortDir(), query.getSortField().isEmpty() ? null : sortValue, id);
+    }
+
+    /**
+     * Decodifica um cursor gerado por {@link #encode()}.
+     *
+     * @param token cursor recebido do cliente
+     * @return o cursor decodificado
+     * @throws IllegalArgumentException se o token não for um cursor válido
+     */
+    public static QueryCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Cursor inválido: " + token);
+            }
+            return new QueryCursor(parts[0], parts[1], decodeValue(parts[2]), decodeValue(parts[3]));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Cursor inválido: " + token, ex);
+        }
+    }
+
+    /**
+     * @return o cursor codificado em Base64 (URL safe)
+     */
+    public String encode() {
+        String raw = sortField + SEPARATOR + sortDir + SEPARATOR + encodeValue(sortValue) + SEPARATOR + encodeValue(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param query pesquisa
+     * @return se o cursor foi gerado com a mesma ordenação da pesquisa
+     */
+    public boolean matches(QueryObject query) {
+        return Objects.equals(sortField, query.getSortField()) && Objects.equals(sortDir, query.getSortDir());
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public String getSortDir() {
+        return sortDir;
+    }
+
+    public boolean isAscending() {
+        return !"desc".equals(sortDir);
+    }
+
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    private static boolean isEncodable(Object value) {
+        return value instanceof String || value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Double || value instanceof Float
+                || value instanceof BigDecimal || value instanceof BigInteger
+                || value instanceof Boolean || value instanceof Date;
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return String.valueOf(NULL_TAG);
+        }
+        if (value instanceof String) {
+            return "S" + value;
+        }
+        if (value instanceof Long) {
+            return "J" + value;
+        }
+        if (value instanceof Integer) {
+            return "I" + value;
+        }
+        if (value instanceof Short) {
+            return "H" + value;
+        }
+        if (value instanceof Double) {
+            return "D" + value;
+        }
+        if (value instanceof Float) {
+            return "F" + value;
+        }
+        if (value instanceof BigDecimal) {
+            return "B" + value;
+        }
+        if (value instanceof BigInteger) {
+            return "G" + value;
+        }
+        if (value instanceof Boolean) {
+            return "Z" + value;
+        }
+        if (value instanceof Date) {
+            return "T" + ((Date) value).getTime();
+        }
+        throw new IllegalArgumentException("Tipo não suportado no cursor: " + value.getClass());
+    }
+
+    private static Object decodeValue(String value) {
+        char tag = value.charAt(0);
+        String content = value.substring(1);
+        switch (tag) {
+            case NULL_TAG:
+                return null;
+            case 'S':
+                return content;
+            case 'J':
+                return Long.valueOf(content);
+            case 'I':
+                return Integer.valueOf(content);
+            case 'H':
+                return Short.valueOf(content);
+            case 'D':
+                return Double.valueOf(content);
+            case 'F':
+                return Float.valueOf(content);
+            case 'B':
+                return new BigDecimal(content);
+            case 'G':
+                return new BigInteger(content);
+            case 'Z':
+                return Boolean.valueOf(content);
+            case 'T':
+                return new Date(Long.parseLong(content));
+            default:
+                throw new IllegalArgumentException("Tipo desconhecido no cursor: " + tag);
+        }
+    }
+
+}
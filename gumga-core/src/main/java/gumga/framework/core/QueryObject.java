@@ -56,6 +56,47 @@ public class QueryObject {
      */
     private boolean countOnly = false;
 
+    /**
+     * Estratégia para obter o total de registros
+     */
+    private CountStrategy countStrategy = CountStrategy.EXACT;
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy == null ? CountStrategy.EXACT : countStrategy;
+    }
+
+    /**
+     * Cursor da paginação por chave, retornado em {@link SearchResult#getNext()}.
+     * Quando informado a pesquisa continua a partir do registro apontado pelo
+     * cursor, ignorando start. Vazio pede a primeira página da paginação por
+     * cursor.
+     */
+    private String after;
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public boolean isKeyset() {
+        return after != null && !after.isEmpty();
+    }
+
+    /**
+     * @return se a pesquisa é uma página da paginação por cursor, inclusive a
+     * primeira
+     */
+    public boolean isCursorPaging() {
+        return after != null;
+    }
+
     public boolean isCountOnly() {
         return countOnly;
     }
@@ -160,7 +201,7 @@ public class QueryObject {
 
     @Override
     public String toString() {
-        return "QueryObject{ phonetic=" + phonetic + ", aq=" + aq + ", q=" + q + ", start=" + start + ", pageSize=" + pageSize + ", sortField=" + sortField + ", sortDir=" + sortDir + ", searchFields=" + Arrays.asList(searchFields == null ? Collections.EMPTY_LIST : searchFields) + '}';
+        return "QueryObject{ phonetic=" + phonetic + ", aq=" + aq + ", q=" + q + ", start=" + start + ", pageSize=" + pageSize + ", sortField=" + sortField + ", sortDir=" + sortDir + ", after=" + after + ", countStrategy=" + countStrategy + ", searchFields=" + Arrays.asList(searchFields == null ? Collections.EMPTY_LIST : searchFields) + '}';
     }
 
 }
@@ -16,18 +16,38 @@ public class SearchResult<T> {
     private final Long count;
     private final int start;
     private final List<T> values;
+    private final String next;
+    private final boolean exactCount;
 
     public SearchResult(int start, int pageSize, Number count, List<T> data) {
+        this(start, pageSize, count, data, null);
+    }
+
+    public SearchResult(int start, int pageSize, Number count, List<T> data, String next) {
+        this(start, pageSize, count, data, next, true);
+    }
+
+    public SearchResult(int start, int pageSize, Number count, List<T> data, String next, boolean exactCount) {
         this.start = start;
         this.pageSize = pageSize;
         this.count = count.longValue();
         this.values = data;
+        this.next = next;
+        this.exactCount = exactCount;
     }
 
     public SearchResult(QueryObject query, Number count, List<T> data) {
         this(query.getStart(), query.getPageSize(), count, data);
     }
 
+    public SearchResult(QueryObject query, Number count, List<T> data, String next) {
+        this(query.getStart(), query.getPageSize(), count, data, next);
+    }
+
+    public SearchResult(QueryObject query, Number count, List<T> data, String next, boolean exactCount) {
+        this(query.getStart(), query.getPageSize(), count, data, next, exactCount);
+    }
+
     public int getPageSize() {
         return pageSize;
     }
@@ -40,6 +60,23 @@ public class SearchResult<T> {
         return start;
     }
 
+    /**
+     * @return cursor para a próxima página na paginação por chave, null quando
+     * a pesquisa não usa cursor ({@link QueryObject#isCursorPaging()}), não há
+     * mais registros ou o cursor não pode ser gerado
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * @return se o count é exato ou uma aproximação (estatísticas do banco,
+     * cache ou limite inferior quando a pesquisa não conta)
+     */
+    public boolean isExactCount() {
+        return exactCount;
+    }
+
     /**
      * Transforma o resultado da pesquisa em outro tipo de objeto
      *
@@ -48,7 +85,7 @@ public class SearchResult<T> {
      * @return A funcao como SearchResult
      */
     public <A> SearchResult<A> map(Function<? super T, A> fn) {
-        return new SearchResult<>(start, pageSize, count, values.stream().map(fn).collect(Collectors.toList()));
+        return new SearchResult<>(start, pageSize, count, values.stream().map(fn).collect(Collectors.toList()), next, exactCount);
     }
 
     public List<T> getValues() {
@@ -0,0 +1,137 @@
+package gumga.framework.core.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metadados dos atributos de uma classe, montados uma única vez por classe e
+ * compartilhados. Evita percorrer a hierarquia com getDeclaredFields() a cada
+ * chamada.
+ *
+ * @author Equipe Gumga
+ */
+public final class EntityMetadata {
+
+    private static final ClassValue<EntityMetadata> CACHE = new ClassValue<EntityMetadata>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<Field> fields;
+    private final List<Field> instanceFields;
+    private final Map<String, Field> fieldsByName;
+    private final Map<Field, FieldAccessor> accessors = new ConcurrentHashMap<>();
+    private final Map<Class<? extends Annotation>, Optional<Field>> annotatedFields = new ConcurrentHashMap<>();
+
+    private EntityMetadata(Class<?> type) {
+        this.type = type;
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && !Object.class.equals(c); c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> all = new ArrayList<>();
+        List<Field> instance = new ArrayList<>();
+        Map<String, Field> byName = new HashMap<>();
+        for (Class<?> c : hierarchy) {
+            for (Field f : c.getDeclaredFields()) {
+                try {
+                    f.setAccessible(true);
+                } catch (RuntimeException ex) {
+                    //Atributos de classes do JDK podem não ser acessíveis
+                }
+                all.add(f);
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    instance.add(f);
+                }
+                //O atributo da subclasse esconde o da superclasse
+                byName.put(f.getName(), f);
+            }
+        }
+        this.fields = Collections.unmodifiableList(all);
+        this.instanceFields = Collections.unmodifiableList(instance);
+        this.fieldsByName = byName;
+    }
+
+    /**
+     * @param type classe
+     * @return os metadados da classe
+     */
+    public static EntityMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return todos os atributos declarados, da superclasse para a subclasse
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return os atributos não estáticos, da superclasse para a subclasse
+     */
+    public List<Field> getInstanceFields() {
+        return instanceFields;
+    }
+
+    /**
+     * @param name nome do atributo
+     * @return o atributo ou null se não existir
+     */
+    public Field getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * @param annotation anotação procurada, por exemplo javax.persistence.Id
+     * @return o primeiro atributo com a anotação ou null se não houver
+     */
+    public Field getAnnotatedField(Class<? extends Annotation> annotation) {
+        return annotatedFields.computeIfAbsent(annotation,
+                a -> instanceFields.stream().filter(f -> f.isAnnotationPresent(a)).findFirst()).orElse(null);
+    }
+
+    /**
+     * @param name nome do atributo não estático
+     * @return o acessor do atributo
+     * @throws IllegalArgumentException se o atributo não existir
+     */
+    public FieldAccessor getAccessor(String name) {
+        Field field = getField(name);
+        if (field == null) {
+            throw new IllegalArgumentException("Atributo " + name + " não encontrado em " + type.getName());
+        }
+        return getAccessor(field);
+    }
+
+    /**
+     * @param field atributo não estático da classe
+     * @return o acessor do atributo
+     */
+    public FieldAccessor getAccessor(Field field) {
+        FieldAccessor accessor = accessors.get(field);
+        if (accessor != null) {
+            return accessor;
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            throw new IllegalArgumentException("Atributo " + field.getName() + " é estático");
+        }
+        return accessors.computeIfAbsent(field, FieldAccessor::new);
+    }
+
+}
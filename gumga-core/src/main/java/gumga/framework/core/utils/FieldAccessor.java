@@ -0,0 +1,102 @@
+package gumga.framework.core.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Leitura e escrita de um atributo com {@link MethodHandle}, resolvidos uma vez
+ * por atributo em {@link EntityMetadata}. Também converte texto para o tipo do
+ * atributo quando ele tem um construtor que recebe String.
+ *
+ * @author Equipe Gumga
+ */
+public final class FieldAccessor {
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final MethodHandle stringConstructor;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            this.setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException ex) {
+            throw new ReflectionUtilsException(ex);
+        }
+        MethodHandle constructor;
+        try {
+            constructor = lookup.unreflectConstructor(field.getType().getConstructor(String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            constructor = null;
+        }
+        this.stringConstructor = constructor;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public Object get(Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new ReflectionUtilsException(ex);
+        }
+    }
+
+    public void set(Object target, Object value) {
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new ReflectionUtilsException(ex);
+        }
+    }
+
+    /**
+     * @return se o tipo do atributo pode ser criado a partir de uma String
+     */
+    public boolean isConvertibleFromString() {
+        return stringConstructor != null;
+    }
+
+    /**
+     * Cria um valor do tipo do atributo com o construtor que recebe String.
+     *
+     * @param value texto
+     * @return o valor convertido
+     * @throws IllegalArgumentException se o tipo não tiver construtor com
+     * String
+     */
+    public Object fromString(String value) {
+        if (stringConstructor == null) {
+            throw new IllegalArgumentException(field.getType().getName() + " não possui construtor com String");
+        }
+        try {
+            return (Object) stringConstructor.invokeExact(value);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new ReflectionUtilsException(ex);
+        }
+    }
+
+}
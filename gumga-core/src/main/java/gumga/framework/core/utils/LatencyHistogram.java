@@ -0,0 +1,121 @@
+package gumga.framework.core.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de tempos sem bloqueio, com faixas logarítmicas subdivididas em
+ * oito partes (erro relativo de até 12,5%). Os valores são registrados em
+ * microssegundos; valores acima de {@link #MAX_VALUE} são contados na última
+ * faixa.
+ *
+ * @author Equipe Gumga
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_COUNT = 1 << (SUB_BITS - 1);
+
+    /**
+     * Maior valor distinguido, cerca de 19 horas em microssegundos
+     */
+    public static final long MAX_VALUE = (1L << 36) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros tempo em microssegundos
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile percentil entre 0 e 100
+     * @return maior valor da faixa que contém o percentil, limitado ao máximo
+     * registrado
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return i == snapshot.length - 1 ? max.get() : Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return execuções e tempos em milissegundos (média, p50, p95, p99 e
+     * máximo), no formato exposto pelas estatísticas
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> toReturn = new LinkedHashMap<>();
+        toReturn.put("count", getCount());
+        toReturn.put("mean", getMean() / 1000);
+        toReturn.put("p50", getPercentile(50) / 1000d);
+        toReturn.put("p95", getPercentile(95) / 1000d);
+        toReturn.put("p99", getPercentile(99) / 1000d);
+        toReturn.put("max", getMax() / 1000d);
+        return toReturn;
+    }
+
+    static int indexOf(long value) {
+        if (value < (1 << SUB_BITS)) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < (1 << SUB_BITS)) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+}
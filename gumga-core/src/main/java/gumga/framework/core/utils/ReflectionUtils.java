@@ -26,17 +26,7 @@ public class ReflectionUtils {
      * @return Atributo encontrado, retorna null se não encontrado.
      */
     public static Field getField(Class clazz, String name) {
-        try {
-            Field toReturn = clazz.getDeclaredField(name);
-            return toReturn;
-        } catch (NoSuchFieldException | SecurityException ex) {
-
-        }
-        if (!Object.class.equals(clazz.getSuperclass())) {
-            return getField(clazz.getSuperclass(), name);
-        }
-
-        return null;
+        return EntityMetadata.of(clazz).getField(name);
     }
 
     /**
@@ -71,6 +61,10 @@ public class ReflectionUtils {
             throw new IllegalArgumentException("Either name or type of the field must be specified");
         }
 
+        if (type == null) {
+            return EntityMetadata.of(clazz).getField(name);
+        }
+
         Class<?> searchType = clazz;
 
         while (!Object.class.equals(searchType) && searchType != null) {
@@ -0,0 +1,73 @@
+package gumga.framework.core;
+
+import gumga.framework.core.utils.EntityMetadata;
+import gumga.framework.core.utils.FieldAccessor;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class EntityMetadataTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Chave {
+    }
+
+    static class Base {
+
+        static final String CONSTANTE = "base";
+        @Chave
+        private Long id;
+        private String nome;
+    }
+
+    static class Produto extends Base {
+
+        private String nome;
+        private BigDecimal preco;
+        private int quantidade;
+    }
+
+    @Test
+    public void listaAtributosDaSuperclasseParaASubclasse() {
+        EntityMetadata metadata = EntityMetadata.of(Produto.class);
+        assertSame(metadata, EntityMetadata.of(Produto.class));
+        assertEquals("id,nome,nome,preco,quantidade", metadata.getInstanceFields().stream().map(f -> f.getName()).collect(Collectors.joining(",")));
+        assertTrue(metadata.getFields().contains(metadata.getField("CONSTANTE")));
+        assertFalse(metadata.getInstanceFields().contains(metadata.getField("CONSTANTE")));
+        assertEquals(Produto.class, metadata.getField("nome").getDeclaringClass());
+        assertEquals("id", metadata.getAnnotatedField(Chave.class).getName());
+        assertNull(EntityMetadata.of(Base.class).getAnnotatedField(Retention.class));
+    }
+
+    @Test
+    public void leEscreveEConverteAtributos() {
+        Produto produto = new Produto();
+        EntityMetadata metadata = EntityMetadata.of(Produto.class);
+
+        FieldAccessor preco = metadata.getAccessor("preco");
+        assertTrue(preco.isConvertibleFromString());
+        preco.set(produto, preco.fromString("10.50"));
+        assertEquals(new BigDecimal("10.50"), preco.get(produto));
+
+        FieldAccessor quantidade = metadata.getAccessor("quantidade");
+        assertFalse(quantidade.isConvertibleFromString());
+        quantidade.set(produto, 3);
+        assertEquals(3, quantidade.get(produto));
+
+        metadata.getAccessor("id").set(produto, 7L);
+        assertEquals(7L, metadata.getAccessor(metadata.getAnnotatedField(Chave.class)).get(produto));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void naoCriaAcessorParaAtributoInexistente() {
+        EntityMetadata.of(Produto.class).getAccessor("inexistente");
+    }
+
+}
@@ -0,0 +1,35 @@
+package gumga.framework.core;
+
+import java.util.Collections;
+import java.util.Date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class JavaScriptEngineTest {
+
+    @Test
+    public void avaliaScriptComObjetosDoContexto() {
+        assertEquals("valor 3", JavaScriptEngine.eval("'valor ' + (x + 1)", Collections.singletonMap("x", 2)));
+        assertEquals(new Date(1000), JavaScriptEngine.evalForDate("new Date(1000)", null));
+    }
+
+    @Test
+    public void cadaAvaliacaoTemContextoProprio() {
+        assertEquals(1, ((Number) JavaScriptEngine.eval("var contador = (typeof contador === 'undefined' ? 0 : contador) + 1; contador", null)).intValue());
+        assertEquals(1, ((Number) JavaScriptEngine.eval("var contador = (typeof contador === 'undefined' ? 0 : contador) + 1; contador", null)).intValue());
+        assertEquals("undefined", JavaScriptEngine.eval("typeof x", null));
+    }
+
+    @Test
+    public void registraOTempoDeCadaScript() {
+        String script = "'tempo'";
+        long antes = JavaScriptEngine.getTimings().containsKey(script) ? JavaScriptEngine.getTimings().get(script).getCount() : 0;
+        JavaScriptEngine.eval(script, null);
+        JavaScriptEngine.eval(script, null);
+        JavaScriptEngine.Timing timing = JavaScriptEngine.getTimings().get(script);
+        assertEquals(antes + 2, timing.getCount());
+        assertTrue(timing.getMaxNanos() <= timing.getTotalNanos());
+    }
+
+}
@@ -0,0 +1,60 @@
+package gumga.framework.core;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class QueryCursorTest {
+
+    @Test
+    public void codificaEDecodificaValoresSimples() {
+        QueryObject query = new QueryObject();
+        query.setSortField("nome");
+        query.setSortDir("desc");
+
+        QueryCursor decoded = QueryCursor.decode(QueryCursor.of(query, "Gumga", 42L).encode());
+        assertEquals("Gumga", decoded.getSortValue());
+        assertEquals(42L, decoded.getId());
+        assertFalse(decoded.isAscending());
+        assertTrue(decoded.matches(query));
+
+        Date now = new Date();
+        assertEquals(now, QueryCursor.decode(QueryCursor.of(query, now, 1L).encode()).getSortValue());
+        assertEquals(new BigDecimal("10.50"), QueryCursor.decode(QueryCursor.of(query, new BigDecimal("10.50"), 1L).encode()).getSortValue());
+    }
+
+    @Test
+    public void naoGeraCursorParaValoresNaoSuportados() {
+        QueryObject query = new QueryObject();
+        query.setSortField("nome");
+        assertNull(QueryCursor.of(query, new Object(), 1L));
+    }
+
+    @Test
+    public void codificaValorDeOrdenacaoNulo() {
+        QueryObject query = new QueryObject();
+        query.setSortField("nome");
+        QueryCursor decoded = QueryCursor.decode(QueryCursor.of(query, null, 7L).encode());
+        assertNull(decoded.getSortValue());
+        assertEquals(7L, decoded.getId());
+        assertTrue(decoded.matches(query));
+    }
+
+    @Test
+    public void cursorNaoCorrespondeAOutraOrdenacao() {
+        QueryObject query = new QueryObject();
+        QueryCursor cursor = QueryCursor.of(query, null, 1L);
+        query.setSortField("nome");
+        assertFalse(cursor.matches(query));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejeitaCursorInvalido() {
+        QueryCursor.decode("nao-e-um-cursor");
+    }
+
+}
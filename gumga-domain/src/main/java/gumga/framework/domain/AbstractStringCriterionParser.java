@@ -1,6 +1,5 @@
 package gumga.framework.domain;
 
-import java.text.Normalizer;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Restrictions;
@@ -24,7 +23,7 @@ public abstract class AbstractStringCriterionParser implements CriterionParser {
     @Override
     public Criterion parse(String field, String value) {
 
-        value = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "");
+        value = GumgaQueryParserProvider.removeAccents(value);
 
         String[] chain = field.split("\\.");
 
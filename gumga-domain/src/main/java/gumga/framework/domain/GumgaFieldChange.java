@@ -0,0 +1,36 @@
+package gumga.framework.domain;
+
+/**
+ * Valor de um atributo antes e depois de uma revisão. Associações são
+ * representadas pelo id.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaFieldChange {
+
+    private Object before;
+
+    private Object after;
+
+    public GumgaFieldChange(Object before, Object after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public Object getBefore() {
+        return before;
+    }
+
+    public void setBefore(Object before) {
+        this.before = before;
+    }
+
+    public Object getAfter() {
+        return after;
+    }
+
+    public void setAfter(Object after) {
+        this.after = after;
+    }
+
+}
@@ -0,0 +1,39 @@
+package gumga.framework.domain;
+
+import gumga.framework.core.utils.EntityMetadata;
+import gumga.framework.core.utils.FieldAccessor;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.usertypes.GumgaLazyBytes;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.PostLoad;
+
+/**
+ * Informa aos atributos {@link GumgaFile} carregados sob demanda a entidade e o
+ * id de onde o conteúdo deve ser buscado.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaLazyFileListener {
+
+    private static final ClassValue<List<FieldAccessor>> FILE_FIELDS = new ClassValue<List<FieldAccessor>>() {
+        @Override
+        protected List<FieldAccessor> computeValue(Class<?> type) {
+            EntityMetadata metadata = EntityMetadata.of(type);
+            return metadata.getInstanceFields().stream()
+                    .filter(f -> GumgaFile.class.isAssignableFrom(f.getType()))
+                    .map(metadata::getAccessor)
+                    .collect(Collectors.toList());
+        }
+    };
+
+    @PostLoad
+    public void postLoad(GumgaModel gumgaModel) {
+        for (FieldAccessor accessor : FILE_FIELDS.get(gumgaModel.getClass())) {
+            GumgaFile file = (GumgaFile) accessor.get(gumgaModel);
+            if (file != null && file.getBytesLoader() instanceof GumgaLazyBytes) {
+                ((GumgaLazyBytes) file.getBytesLoader()).bind(gumgaModel.getClass(), gumgaModel.getId(), accessor.getName());
+            }
+        }
+    }
+}
@@ -35,6 +35,8 @@ import org.hibernate.annotations.TypeDefs;
     @TypeDef(name = "gumgaip4", defaultForType = GumgaIP4.class, typeClass = GumgaIP4UserType.class),
     @TypeDef(name = "gumgaip6", defaultForType = GumgaIP6.class, typeClass = GumgaIP6UserType.class),
     @TypeDef(name = "gumgaimage", defaultForType = GumgaImage.class, typeClass = GumgaImageUserType.class),
+    @TypeDef(name = "gumgalazyfile", typeClass = GumgaLazyFileUserType.class),
+    @TypeDef(name = "gumgalazyimage", typeClass = GumgaLazyImageUserType.class),
     @TypeDef(name = "gumgamoney", defaultForType = GumgaMoney.class, typeClass = GumgaMoneyUserType.class),
     @TypeDef(name = "gumgamutilinestring", defaultForType = GumgaMultiLineString.class, typeClass = GumgaMultiLineStringUserType.class),
     @TypeDef(name = "gumgaphonenumber", defaultForType = GumgaPhoneNumber.class, typeClass = GumgaPhoneNumberUserType.class),
@@ -44,7 +46,7 @@ import org.hibernate.annotations.TypeDefs;
     @TypeDef(name = "cpfcnpj", defaultForType = CpfCnpj.class, typeClass = CpfCnpjUserType.class)
 
 })
-@EntityListeners(GumgaMultiTenancyListener.class)
+@EntityListeners({GumgaMultiTenancyListener.class, GumgaLazyFileListener.class})
 public abstract class GumgaModel<ID extends Serializable> implements GumgaIdable<ID>, Serializable {
 
     public static final String SEQ_NAME = "SEQ";
@@ -1,5 +1,7 @@
 package gumga.framework.domain;
 
+import java.util.Map;
+
 /**
  * Classe utilizada para prover as versões anteriores de objetos marcados com
  * auditoria.
@@ -12,6 +14,12 @@ public class GumgaObjectAndRevision {
 
     private Object object;
 
+    /**
+     * Atributos alterados em relação à versão anterior, preenchido somente
+     * quando o histórico é pedido com as diferenças
+     */
+    private Map<String, GumgaFieldChange> changes;
+
     public GumgaObjectAndRevision(GumgaRevisionEntity gumgaRevisionEntity, Object object) {
         this.gumgaRevisionEntity = gumgaRevisionEntity;
         this.object = object;
@@ -33,4 +41,12 @@ public class GumgaObjectAndRevision {
         this.object = object;
     }
 
+    public Map<String, GumgaFieldChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, GumgaFieldChange> changes) {
+        this.changes = changes;
+    }
+
 }
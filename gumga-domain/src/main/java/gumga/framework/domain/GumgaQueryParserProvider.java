@@ -25,6 +25,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import static java.util.concurrent.TimeUnit.DAYS;
 import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.MatchMode;
@@ -40,11 +42,67 @@ import org.hibernate.type.StandardBasicTypes;
  */
 public class GumgaQueryParserProvider {
 
+    /**
+     * Parsers utilizados nas pesquisas. Alterações feitas no próprio mapa
+     * depois que as pesquisas começaram devem ser feitas por
+     * {@link #put(Class, CriterionParser)} ou seguidas de {@link #refresh()}.
+     */
     public static Map<Class<?>, CriterionParser> defaultMap = null;
 
+    private static final AtomicInteger version = new AtomicInteger();
+
+    private static final Pattern NON_ASCII = Pattern.compile("[^\\p{ASCII}]");
+
     private GumgaQueryParserProvider() {
     }
 
+    /**
+     * Remove os acentos do texto, sem normalizar quando ele já é ASCII.
+     *
+     * @param value texto
+     * @return texto sem acentos
+     */
+    public static String removeAccents(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 127) {
+                return NON_ASCII.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Troca o parser de um tipo no {@link #defaultMap}.
+     *
+     * @param type tipo do atributo
+     * @param parser parser do tipo
+     */
+    public static synchronized void put(Class<?> type, CriterionParser parser) {
+        defaultMap.put(type, parser);
+        refresh();
+    }
+
+    /**
+     * Avisa que o {@link #defaultMap} foi alterado diretamente.
+     */
+    public static void refresh() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return versão do {@link #defaultMap}, alterada por {@link #refresh()}
+     */
+    public static int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return se o mapa padrão pesquisa textos com translate, como no Oracle
+     */
+    public static boolean isOracleLike() {
+        return defaultMap != null && defaultMap.get(String.class) == AbstractStringCriterionParser.ORACLE_STRING_CRITERION_PARSER;
+    }
+
     public static final Map<Class<?>, CriterionParser> getH2LikeMap() {
         return getBaseMap();
     }
@@ -69,7 +127,7 @@ public class GumgaQueryParserProvider {
 
     protected static final CriterionParser STRING_CRITERION_PARSER_WITHOUT_TRANSLATE = (field, value) -> {
 
-        value = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "");
+        value = removeAccents(value);
 
         String[] chain = field.split("\\.");
 
@@ -90,7 +148,7 @@ public class GumgaQueryParserProvider {
     @Deprecated
     private static final CriterionParser STRING_CRITERION_PARSER = (field, value) -> {
 
-        value = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "");
+        value = removeAccents(value);
 
         String[] chain = field.split("\\.");
 
@@ -0,0 +1,78 @@
+package gumga.framework.domain;
+
+import gumga.framework.core.utils.EntityMetadata;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Calcula as diferenças entre versões consecutivas de um objeto auditado, para
+ * que o histórico não precise trazer o objeto completo de cada versão.
+ * Coleções não são comparadas e associações são comparadas pelo id, sem
+ * carregá-las.
+ *
+ * @author Equipe Gumga
+ */
+public final class GumgaRevisionDiff {
+
+    private GumgaRevisionDiff() {
+    }
+
+    /**
+     * Preenche as alterações de cada versão em relação à versão anterior e
+     * remove o objeto completo das versões que possuem anterior.
+     *
+     * @param newestFirst versões da mais recente para a mais antiga
+     * @param previous objeto da versão anterior à última da lista, ou null se a
+     * última for a primeira versão
+     */
+    public static void apply(List<GumgaObjectAndRevision> newestFirst, Object previous) {
+        for (int i = 0; i < newestFirst.size(); i++) {
+            Object older = i + 1 < newestFirst.size() ? newestFirst.get(i + 1).getObject() : previous;
+            Object current = newestFirst.get(i).getObject();
+            if (older != null && current != null) {
+                newestFirst.get(i).setChanges(changes(older, current));
+            }
+        }
+        for (GumgaObjectAndRevision version : newestFirst) {
+            if (version.getChanges() != null) {
+                version.setObject(null);
+            }
+        }
+    }
+
+    /**
+     * @param older versão anterior
+     * @param current versão atual
+     * @return atributos alterados, na ordem de declaração
+     */
+    public static Map<String, GumgaFieldChange> changes(Object older, Object current) {
+        Map<String, GumgaFieldChange> toReturn = new LinkedHashMap<>();
+        for (Field field : EntityMetadata.of(current.getClass()).getInstanceFields()) {
+            if (Collection.class.isAssignableFrom(field.getType()) || Map.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            Object before = comparable(EntityMetadata.of(older.getClass()).getAccessor(field).get(older));
+            Object after = comparable(EntityMetadata.of(current.getClass()).getAccessor(field).get(current));
+            if (!Objects.equals(before, after)) {
+                toReturn.put(field.getName(), new GumgaFieldChange(before, after));
+            }
+        }
+        return toReturn;
+    }
+
+    private static Object comparable(Object value) {
+        if (value instanceof HibernateProxy) {
+            return ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier();
+        }
+        if (value instanceof GumgaModel) {
+            return ((GumgaModel) value).getId();
+        }
+        return value;
+    }
+
+}
@@ -2,12 +2,16 @@ package gumga.framework.domain;
 
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.utils.ReflectionUtils;
-import java.text.Normalizer;
+import java.lang.reflect.Field;
 import java.text.ParseException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.activation.UnsupportedDataTypeException;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Restrictions;
@@ -20,28 +24,54 @@ import org.slf4j.LoggerFactory;
 
 public class HibernateQueryObject {
 
+    /**
+     * Tipo de cada campo pesquisado por entidade, resolvido uma única vez.
+     */
+    private static final ClassValue<Map<String, Class<?>>> FIELD_TYPES = new ClassValue<Map<String, Class<?>>>() {
+        @Override
+        protected Map<String, Class<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static volatile ParserMaps parserMaps;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     protected final QueryObject queryObject;
 
+    /**
+     * Parsers por tipo. O mapa é compartilhado entre as instâncias e copiado
+     * somente quando uma subclasse o altera.
+     */
     protected final Map<Class<?>, CriterionParser> parsers;
 
     public HibernateQueryObject(QueryObject queryObject) {
 
         this.queryObject = queryObject;
 
-        this.parsers = new HashMap<>(GumgaQueryParserProvider.defaultMap);
-
         if (null == GumgaQueryParserProvider.defaultMap) {
             throw new HibernateQueryObjectException("GumgaQueryParserProvider.defaultMap must be set in Application configuration");
         }
-        
 
-        if (!queryObject.isPhonetic()) {
-            this.parsers.put(String.class, GumgaQueryParserProvider.STRING_CRITERION_PARSER_WITHOUT_TRANSLATE);
-        }
+        this.parsers = new CopyOnWriteParserMap(parserMaps().get(queryObject.isPhonetic()));
+
+        this.queryObject.setQ(GumgaQueryParserProvider.removeAccents(queryObject.getQ()).toUpperCase());
+    }
 
-        this.queryObject.setQ(Normalizer.normalize(queryObject.getQ(), Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "").toUpperCase());
+    /**
+     * Mapas imutáveis derivados do {@link GumgaQueryParserProvider#defaultMap},
+     * refeitos quando outro mapa é configurado ou quando a versão dele muda.
+     */
+    private static ParserMaps parserMaps() {
+        Map<Class<?>, CriterionParser> source = GumgaQueryParserProvider.defaultMap;
+        int version = GumgaQueryParserProvider.getVersion();
+        ParserMaps current = parserMaps;
+        if (current == null || !current.matches(source, version)) {
+            current = new ParserMaps(source, version);
+            parserMaps = current;
+        }
+        return current;
     }
 
     public Criterion[] getCriterions(Class<?> clazz) {
@@ -71,15 +101,7 @@ public class HibernateQueryObject {
     }
 
     private Criterion createCriterion(String field, String value, Class<?> clazz) throws ParseException, NumberFormatException, UnsupportedDataTypeException {
-        String[] chain = field.split("\\.");
-        Class<?> type;
-
-        if (chain.length > 1) {
-            Class<?> superType = ReflectionUtils.findField(clazz, chain[0]).getType();
-            type = ReflectionUtils.findField(superType, chain[1]).getType();
-        } else {
-            type = ReflectionUtils.findField(clazz, field).getType();
-        }
+        Class<?> type = FIELD_TYPES.get(clazz).computeIfAbsent(field, f -> resolveType(clazz, f));
 
         CriterionParser parser = parsers.get(type);
 
@@ -90,6 +112,18 @@ public class HibernateQueryObject {
         return parser.parse(field, value);
     }
 
+    private static Class<?> resolveType(Class<?> clazz, String field) {
+        Class<?> type = clazz;
+        for (String name : field.split("\\.")) {
+            Field found = ReflectionUtils.findField(type, name);
+            if (found == null) {
+                throw new HibernateQueryObjectException("Problem creating creterion.Field not found " + field);
+            }
+            type = found.getType();
+        }
+        return type;
+    }
+
     protected void forceNoResults(List<Criterion> criterions) {
         criterions.add(Restrictions.sqlRestriction("(1=0)"));
     }
@@ -97,6 +131,94 @@ public class HibernateQueryObject {
 }
 
 
+final class ParserMaps {
+
+    private final Map<Class<?>, CriterionParser> source;
+    private final int version;
+    private final Map<Class<?>, CriterionParser> phonetic;
+    private final Map<Class<?>, CriterionParser> withoutTranslate;
+
+    ParserMaps(Map<Class<?>, CriterionParser> source, int version) {
+        this.source = source;
+        this.version = version;
+        this.phonetic = Collections.unmodifiableMap(new HashMap<>(source));
+        Map<Class<?>, CriterionParser> map = new HashMap<>(source);
+        map.put(String.class, GumgaQueryParserProvider.STRING_CRITERION_PARSER_WITHOUT_TRANSLATE);
+        this.withoutTranslate = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param source mapa configurado
+     * @param version versão do mapa configurado
+     * @return se os mapas foram derivados do mesmo mapa, na mesma versão
+     */
+    boolean matches(Map<Class<?>, CriterionParser> source, int version) {
+        return this.source == source && this.version == version;
+    }
+
+    Map<Class<?>, CriterionParser> get(boolean isPhonetic) {
+        return isPhonetic ? phonetic : withoutTranslate;
+    }
+}
+
+/**
+ * Lê o mapa compartilhado até a primeira alteração, que é feita em uma cópia
+ * da instância.
+ */
+final class CopyOnWriteParserMap extends AbstractMap<Class<?>, CriterionParser> {
+
+    private Map<Class<?>, CriterionParser> map;
+    private boolean copied;
+
+    CopyOnWriteParserMap(Map<Class<?>, CriterionParser> shared) {
+        this.map = shared;
+    }
+
+    private Map<Class<?>, CriterionParser> writable() {
+        if (!copied) {
+            map = new HashMap<>(map);
+            copied = true;
+        }
+        return map;
+    }
+
+    @Override
+    public CriterionParser get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public CriterionParser put(Class<?> key, CriterionParser value) {
+        return writable().put(key, value);
+    }
+
+    @Override
+    public CriterionParser remove(Object key) {
+        return writable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        writable().clear();
+    }
+
+    @Override
+    public Set<Entry<Class<?>, CriterionParser>> entrySet() {
+        //O iterador permite remover
+        return writable().entrySet();
+    }
+}
+
 class HibernateQueryObjectException extends RuntimeException{
 
     public HibernateQueryObjectException(String message) {
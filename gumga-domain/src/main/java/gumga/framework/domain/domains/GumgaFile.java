@@ -5,8 +5,11 @@
  */
 package gumga.framework.domain.domains;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Representa um arquivo
@@ -20,6 +23,12 @@ public class GumgaFile extends GumgaDomain {
     private String mimeType;
     private byte[] bytes;
 
+    /**
+     * Carrega o conteúdo no primeiro acesso quando o atributo é mapeado como
+     * gumgalazyfile ou gumgalazyimage
+     */
+    private transient Supplier<byte[]> bytesLoader;
+
     public GumgaFile() {
     }
 
@@ -36,6 +45,7 @@ public class GumgaFile extends GumgaDomain {
             this.size = other.size;
             this.mimeType = other.mimeType;
             this.bytes = other.bytes;
+            this.bytesLoader = other.bytesLoader;
         }
     }
 
@@ -63,12 +73,46 @@ public class GumgaFile extends GumgaDomain {
         this.mimeType = mimeType;
     }
 
+    /**
+     * @return o conteúdo, carregado neste momento se ainda não tiver sido
+     */
+    @JsonIgnore
     public byte[] getBytes() {
+        if (bytes == null && bytesLoader != null) {
+            bytes = bytesLoader.get();
+            bytesLoader = null;
+        }
+        return bytes;
+    }
+
+    /**
+     * No JSON o conteúdo só é enviado se já estiver carregado, listagens de
+     * atributos carregados sob demanda trazem somente nome, tamanho e tipo.
+     */
+    @JsonProperty("bytes")
+    private byte[] getLoadedBytes() {
         return bytes;
     }
 
+    @JsonIgnore
+    public boolean isBytesLoaded() {
+        return bytes != null || bytesLoader == null;
+    }
+
+    @JsonIgnore
+    public Supplier<byte[]> getBytesLoader() {
+        return bytesLoader;
+    }
+
+    @JsonIgnore
+    public void setBytesLoader(Supplier<byte[]> bytesLoader) {
+        this.bytesLoader = bytesLoader;
+    }
+
+    @JsonProperty("bytes")
     public void setBytes(byte[] bytes) {
         this.bytes = bytes;
+        this.bytesLoader = null;
     }
 
     @Override
@@ -0,0 +1,21 @@
+package gumga.framework.domain.domains;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Recebe o conteúdo de um atributo {@link GumgaFile} lido diretamente do
+ * banco.
+ *
+ * @author Equipe Gumga
+ */
+@FunctionalInterface
+public interface GumgaFileStreamHandler {
+
+    /**
+     * @param file nome, tamanho e tipo do arquivo, sem o conteúdo
+     * @param content conteúdo, válido somente durante a chamada
+     */
+    void accept(GumgaFile file, InputStream content) throws IOException;
+
+}
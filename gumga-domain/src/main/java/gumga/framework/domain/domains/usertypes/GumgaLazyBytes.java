@@ -0,0 +1,75 @@
+package gumga.framework.domain.domains.usertypes;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.BinaryType;
+
+/**
+ * Carrega o conteúdo de um atributo gumgalazyfile ou gumgalazyimage no
+ * primeiro acesso, com uma consulta na mesma sessão que carregou a entidade,
+ * como as associações lazy do Hibernate. A entidade, o id e o atributo são
+ * informados pelo {@link gumga.framework.domain.GumgaLazyFileListener} depois
+ * do carregamento da entidade.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaLazyBytes implements Supplier<byte[]> {
+
+    private final SessionImplementor session;
+    private Class<?> entity;
+    private Serializable id;
+    private String property;
+    private byte[] loaded;
+
+    public GumgaLazyBytes(SessionImplementor session) {
+        this.session = session;
+    }
+
+    public void bind(Class<?> entity, Serializable id, String property) {
+        this.entity = entity;
+        this.id = id;
+        this.property = property;
+    }
+
+    public boolean isBound() {
+        return property != null;
+    }
+
+    /**
+     * @return o conteúdo já buscado por {@link #get()}, ou null
+     */
+    public byte[] getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return o conteúdo lido do banco
+     * @throws LazyInitializationException se a sessão que carregou a entidade
+     * já foi encerrada
+     */
+    @Override
+    public byte[] get() {
+        if (!isBound()) {
+            throw new IllegalStateException("Conteúdo do arquivo não está associado a uma entidade");
+        }
+        if (session.isClosed()) {
+            throw new LazyInitializationException("Não foi possível carregar " + entity.getName() + "." + property + ", a sessão foi encerrada");
+        }
+        //A coluna do conteúdo é lida como null nas consultas da entidade (GumgaLazyFileIntegrator), então a consulta é em SQL
+        AbstractEntityPersister persister = (AbstractEntityPersister) session.getFactory().getEntityPersister(entity.getName());
+        String[] columns = persister.getPropertyColumnNames(property);
+        String sql = String.format("select %s as gumga_bytes from %s where %s = :id",
+                columns[3], persister.getTableName(), persister.getIdentifierColumnNames()[0]);
+        loaded = (byte[]) ((SharedSessionContract) session).createSQLQuery(sql)
+                .addScalar("gumga_bytes", BinaryType.INSTANCE)
+                .addSynchronizedEntityClass(entity)
+                .setParameter("id", id)
+                .uniqueResult();
+        return loaded;
+    }
+
+}
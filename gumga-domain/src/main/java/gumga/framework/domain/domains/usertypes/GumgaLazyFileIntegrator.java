@@ -0,0 +1,82 @@
+package gumga.framework.domain.domains.usertypes;
+
+import java.util.Iterator;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Component;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Value;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.type.CompositeCustomType;
+import org.hibernate.type.Type;
+
+/**
+ * Prepara as entidades com atributos {@link GumgaLazyFileUserType}:
+ * <ul>
+ * <li>a coluna do conteúdo é lida como null nas consultas da entidade, assim o
+ * conteúdo não trafega do banco a cada SELECT; ele continua sendo gravado
+ * normalmente e é buscado por {@link GumgaLazyBytes};</li>
+ * <li>o update dinâmico é ativado. Com o update estático todas as colunas são
+ * gravadas em qualquer alteração da entidade e o conteúdo ainda não carregado
+ * teria que ser lido do banco só para ser gravado de volta; com o update
+ * dinâmico um arquivo que não foi alterado fica fora do UPDATE.</li>
+ * </ul>
+ * Como a coluna é lida como null, ela não deve ser usada em filtros HQL ou
+ * Criteria. Carregado pelo Hibernate através de META-INF/services.
+ *
+ * @author Equipe Gumga
+ */
+public class GumgaLazyFileIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Configuration configuration, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        //Executado antes da criação dos persisters, que leem o update dinâmico e a leitura das colunas do mapeamento
+        Iterator<PersistentClass> classes = configuration.getClassMappings();
+        while (classes.hasNext()) {
+            PersistentClass persistentClass = classes.next();
+            if (prepareLazyFiles(persistentClass.getPropertyClosureIterator())) {
+                persistentClass.setDynamicUpdate(true);
+            }
+        }
+    }
+
+    /**
+     * @return se algum dos atributos é um arquivo carregado sob demanda
+     */
+    private static boolean prepareLazyFiles(Iterator<?> properties) {
+        boolean found = false;
+        while (properties.hasNext()) {
+            Value value = ((Property) properties.next()).getValue();
+            if (value instanceof Component) {
+                found |= prepareLazyFiles(((Component) value).getPropertyIterator());
+                continue;
+            }
+            Type type = value.getType();
+            if (type instanceof CompositeCustomType && ((CompositeCustomType) type).getUserType() instanceof GumgaLazyFileUserType) {
+                //Colunas na ordem do GumgaFileUserType: name, size, mimeType e bytes
+                Iterator<?> columns = value.getColumnIterator();
+                for (int i = 0; columns.hasNext(); i++) {
+                    Object column = columns.next();
+                    if (i == 3 && column instanceof Column) {
+                        ((Column) column).setCustomRead("null");
+                    }
+                }
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void integrate(MetadataImplementor metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+}
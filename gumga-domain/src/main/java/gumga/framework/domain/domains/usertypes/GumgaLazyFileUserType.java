@@ -0,0 +1,101 @@
+package gumga.framework.domain.domains.usertypes;
+
+import gumga.framework.domain.domains.GumgaFile;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Mapeamento de {@link GumgaFile} que não lê o conteúdo junto com a entidade:
+ * a coluna do conteúdo é selecionada como null ({@link GumgaLazyFileIntegrator}).
+ * Nome, tamanho e tipo são carregados normalmente e o conteúdo é buscado no
+ * primeiro acesso a getBytes(), na sessão que carregou a entidade, ou enviado
+ * pelo endpoint de download. Ao
+ * atualizar a entidade, um arquivo recebido sem conteúdo mantém o conteúdo
+ * gravado. As entidades com esse mapeamento usam update dinâmico
+ * ({@link GumgaLazyFileIntegrator}), assim alterar outros atributos não lê o
+ * conteúdo do banco para gravá-lo de volta. Utilizado com
+ * @Type(type = "gumgalazyfile").
+ */
+public class GumgaLazyFileUserType extends GumgaFileUserType {
+
+    protected GumgaFile newFile(GumgaFile other) {
+        return new GumgaFile(other);
+    }
+
+    @Override
+    public Object nullSafeGet(final ResultSet resultSet,
+            final String[] names,
+            final SessionImplementor paramSessionImplementor, final Object paramObject)
+            throws HibernateException, SQLException {
+        final String name = resultSet.getString(names[0]);
+        if (resultSet.wasNull()) {
+            return null;
+        }
+        GumgaFile object = newFile(null);
+        object.setName(name);
+        object.setSize(resultSet.getLong(names[1]));
+        object.setMimeType(resultSet.getString(names[2]));
+        object.setBytesLoader(new GumgaLazyBytes(paramSessionImplementor));
+        return object;
+    }
+
+    /**
+     * Compara o conteúdo somente quando os dois lados o conhecem, assim carregar
+     * o conteúdo não torna a entidade alterada.
+     */
+    @Override
+    public boolean equals(final Object o1, final Object o2) throws HibernateException {
+        if (o1 == null || o2 == null || o1.getClass() != o2.getClass()) {
+            return o1 == o2;
+        }
+        GumgaFile f1 = (GumgaFile) o1;
+        GumgaFile f2 = (GumgaFile) o2;
+        if (!Objects.equals(f1.getName(), f2.getName()) || f1.getSize() != f2.getSize() || !Objects.equals(f1.getMimeType(), f2.getMimeType())) {
+            return false;
+        }
+        if (!f1.isBytesLoaded() && !f2.isBytesLoaded()) {
+            return f1.getBytesLoader() == f2.getBytesLoader();
+        }
+        byte[] b1 = knownBytes(f1);
+        byte[] b2 = knownBytes(f2);
+        if (b1 != null && b2 != null) {
+            return Arrays.equals(b1, b2);
+        }
+        return b1 == b2 && f1.isBytesLoaded() && f2.isBytesLoaded();
+    }
+
+    private static byte[] knownBytes(GumgaFile file) {
+        if (file.isBytesLoaded()) {
+            return file.getBytes();
+        }
+        return file.getBytesLoader() instanceof GumgaLazyBytes ? ((GumgaLazyBytes) file.getBytesLoader()).getLoaded() : null;
+    }
+
+    @Override
+    public Object deepCopy(final Object value) throws HibernateException {
+        return value == null ? null : newFile((GumgaFile) value);
+    }
+
+    @Override
+    public Object replace(final Object original, final Object target,
+            final SessionImplementor paramSessionImplementor, final Object owner)
+            throws HibernateException {
+        GumgaFile toReturn = (GumgaFile) deepCopy(original);
+        if (toReturn == null || target == null || toReturn.getBytesLoader() != null || toReturn.getBytes() != null) {
+            return toReturn;
+        }
+        //Recebido sem conteúdo, mantém o conteúdo gravado sem carregá-lo
+        GumgaFile current = (GumgaFile) target;
+        if (current.getBytesLoader() != null) {
+            toReturn.setBytesLoader(current.getBytesLoader());
+        } else {
+            toReturn.setBytes(current.getBytes());
+        }
+        return toReturn;
+    }
+
+}
@@ -0,0 +1,23 @@
+package gumga.framework.domain.domains.usertypes;
+
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaImage;
+
+/**
+ * Mapeamento de {@link GumgaImage} com o conteúdo carregado sob demanda, como
+ * em {@link GumgaLazyFileUserType}. Utilizado com
+ * @Type(type = "gumgalazyimage").
+ */
+public class GumgaLazyImageUserType extends GumgaLazyFileUserType {
+
+    @Override
+    protected GumgaFile newFile(GumgaFile other) {
+        return new GumgaImage(other);
+    }
+
+    @Override
+    public Class returnedClass() {
+        return GumgaImage.class;
+    }
+
+}
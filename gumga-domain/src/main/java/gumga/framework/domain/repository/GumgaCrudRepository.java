@@ -5,9 +5,14 @@ import gumga.framework.core.SearchResult;
 import gumga.framework.domain.GumgaObjectAndRevision;
 import gumga.framework.domain.GumgaRepository;
 import gumga.framework.domain.Pesquisa;
+import gumga.framework.domain.domains.GumgaFileStreamHandler;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
 
@@ -25,14 +30,73 @@ public interface GumgaCrudRepository<T, ID extends Serializable> extends JpaRepo
 
     SearchResult<T> search(String hql, Map<String, Object> params);
 
+    /**
+     * Percorre todos os registros da pesquisa, ignorando a paginação, sem
+     * carregá-los de uma vez em memória. A cada chunkSize registros os já
+     * percorridos são retirados da sessão, então as entidades recebidas não
+     * devem ser alteradas; as demais entidades da sessão não são afetadas.
+     *
+     * @param query pesquisa com os filtros e a ordenação
+     * @param chunkSize registros buscados do banco por vez
+     * @param action ação executada para cada registro
+     */
+    void scroll(QueryObject query, int chunkSize, Consumer<T> action);
+
+    /**
+     * Como {@link #scroll(QueryObject, int, Consumer)}, mas os registros são
+     * lidos conforme consumidos. Deve ser consumido dentro de uma transação e
+     * fechado ao final para liberar o cursor.
+     *
+     * @param query pesquisa com os filtros e a ordenação
+     * @param chunkSize registros buscados do banco por vez
+     * @return registros da pesquisa
+     */
+    Stream<T> stream(QueryObject query, int chunkSize);
+
     SearchResult<T> search(String hql, Map<String, Object> params, int max, int first);
 
     List<GumgaObjectAndRevision> listOldVersions(ID id);
 
+    /**
+     * Versões anteriores do objeto com os dados da revisão, da mais recente
+     * para a mais antiga, buscadas em uma única consulta por página.
+     *
+     * @param id id do objeto
+     * @param start primeira versão da página
+     * @param pageSize quantidade de versões
+     * @param diff se cada versão deve trazer somente as alterações em relação
+     * à anterior
+     * @return página de versões
+     */
+    SearchResult<GumgaObjectAndRevision> listOldVersions(ID id, int start, int pageSize, boolean diff);
+
+    /**
+     * Lê o conteúdo de um atributo {@link gumga.framework.domain.domains.GumgaFile} diretamente do banco,
+     * sem carregar a entidade nem o conteúdo em memória.
+     *
+     * @param id id do objeto
+     * @param property nome do atributo
+     * @param handler recebe os metadados e o conteúdo
+     * @return false se o atributo não possuir arquivo
+     * @throws javax.persistence.EntityNotFoundException se o objeto não
+     * existir ou for de outra organização
+     */
+    boolean streamFile(ID id, String property, GumgaFileStreamHandler handler) throws IOException;
+
     <A> SearchResult<A> advancedSearch(String selectQueryWithoutWhere, String countObjt, String ordenationId, QueryObject whereQuery);
 
     Object genericFindOne(Class clazz, Object id);
 
+    /**
+     * Busca vários objetos de uma classe em uma única consulta por lote de
+     * ids. Ids inexistentes ou de outra organização não aparecem no retorno.
+     *
+     * @param clazz classe a ser pesquisada
+     * @param ids ids a serem pesquisados
+     * @return mapa de id para objeto encontrado
+     */
+    Map<Object, Object> genericFindAll(Class clazz, Collection<?> ids);
+
     SearchResult<T> findAllWithTenancy();
 
 }
@@ -2,7 +2,16 @@ package gumga.framework.domain.service;
 
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.SearchResult;
+import gumga.framework.core.utils.EntityMetadata;
 import gumga.framework.domain.GumgaObjectAndRevision;
+import gumga.framework.domain.GumgaRevisionDiff;
+import gumga.framework.domain.domains.GumgaFile;
+import gumga.framework.domain.domains.GumgaFileStreamHandler;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,8 +24,75 @@ public interface GumgaReadableServiceable<T> {
 
     public T view(Long id);
 
+    /**
+     * Busca vários objetos na ordem informada. A implementação padrão carrega
+     * um a um com {@link #view(Long)}; os services do framework buscam com uma
+     * consulta por lote de ids.
+     *
+     * @param ids ids a serem buscados
+     * @return objetos encontrados
+     */
+    public default List<T> viewAll(List<Long> ids) {
+        List<T> toReturn = new ArrayList<>();
+        for (Long id : ids) {
+            T entity = view(id);
+            if (entity != null) {
+                toReturn.add(entity);
+            }
+        }
+        return toReturn;
+    }
+
     public Class<T> clazz();
 
     public List<GumgaObjectAndRevision> listOldVersions(Long id);
 
+    /**
+     * Versões anteriores paginadas, da mais recente para a mais antiga. A
+     * implementação padrão pagina em memória o resultado de
+     * {@link #listOldVersions(Long)}.
+     *
+     * @param id id do objeto
+     * @param start primeira versão da página
+     * @param pageSize quantidade de versões
+     * @param diff se cada versão deve trazer somente as alterações em relação
+     * à anterior
+     * @return página de versões
+     */
+    public default SearchResult<GumgaObjectAndRevision> listOldVersions(Long id, int start, int pageSize, boolean diff) {
+        List<GumgaObjectAndRevision> all = new ArrayList<>(listOldVersions(id));
+        Collections.reverse(all);
+        int from = Math.min(start, all.size());
+        int to = Math.min(from + pageSize, all.size());
+        List<GumgaObjectAndRevision> page = new ArrayList<>(all.subList(from, to));
+        if (diff) {
+            GumgaRevisionDiff.apply(page, to < all.size() ? all.get(to).getObject() : null);
+        }
+        return new SearchResult<>(start, pageSize, all.size(), page);
+    }
+
+    /**
+     * Envia o conteúdo de um atributo {@link GumgaFile}. A implementação
+     * padrão carrega o objeto com {@link #view(Long)}.
+     *
+     * @param id id do objeto
+     * @param property nome do atributo
+     * @param handler recebe os metadados e o conteúdo
+     * @return false se o atributo não possuir arquivo
+     */
+    public default boolean streamFile(Long id, String property, GumgaFileStreamHandler handler) throws IOException {
+        T entity = view(id);
+        Field field = EntityMetadata.of(entity.getClass()).getField(property);
+        if (field == null || !GumgaFile.class.isAssignableFrom(field.getType())) {
+            throw new IllegalArgumentException(property + " não é um GumgaFile de " + entity.getClass().getName());
+        }
+        GumgaFile file = (GumgaFile) EntityMetadata.of(entity.getClass()).getAccessor(field).get(entity);
+        if (file == null) {
+            return false;
+        }
+        byte[] bytes = file.getBytes();
+        handler.accept(new GumgaFile(file.getName(), file.getSize(), file.getMimeType(), null), new ByteArrayInputStream(bytes == null ? new byte[0] : bytes));
+        return true;
+    }
+
 }
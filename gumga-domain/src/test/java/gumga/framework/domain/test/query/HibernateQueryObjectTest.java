@@ -0,0 +1,81 @@
+package gumga.framework.domain.test.query;
+
+import gumga.framework.core.QueryObject;
+import gumga.framework.domain.CriterionParser;
+import gumga.framework.domain.GumgaQueryParserProvider;
+import gumga.framework.domain.HibernateQueryObject;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Restrictions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HibernateQueryObjectTest {
+
+    public static class Cliente {
+
+        private String nome;
+        private Integer idade;
+        private Cliente indicadoPor;
+    }
+
+    @BeforeClass
+    public static void configuraParsers() {
+        GumgaQueryParserProvider.defaultMap = GumgaQueryParserProvider.getH2LikeMap();
+    }
+
+    @Test
+    public void removeAcentosSemAlterarTextoAscii() {
+        String ascii = "GUMGA";
+        assertSame(ascii, GumgaQueryParserProvider.removeAccents(ascii));
+        assertEquals("Joao Conceicao", GumgaQueryParserProvider.removeAccents("João Conceição"));
+    }
+
+    @Test
+    public void criaCriteriosPorTipoDoCampo() {
+        QueryObject query = new QueryObject();
+        query.setQ("José");
+        query.setSearchFields("nome", "indicadoPor.nome");
+        Criterion[] criterions = new HibernateQueryObject(query).getCriterions(Cliente.class);
+        assertEquals("JOSE", query.getQ());
+        assertEquals(2, criterions.length);
+        assertEquals("upper({alias}.nome) like (?)", criterions[0].toString());
+        assertEquals("indicadoPor.nome like %JOSE%", criterions[1].toString());
+
+        query = new QueryObject();
+        query.setQ("42");
+        query.setSearchFields("idade");
+        assertEquals("idade=42", new HibernateQueryObject(query).getCriterions(Cliente.class)[0].toString());
+    }
+
+    @Test
+    public void subclassePersonalizaOsParsersSemAfetarAsDemais() {
+        QueryObject query = new QueryObject();
+        query.setQ("42");
+        query.setSearchFields("idade");
+        HibernateQueryObject custom = new HibernateQueryObject(query) {
+            {
+                parsers.put(Integer.class, (field, value) -> Restrictions.sqlRestriction("personalizado"));
+            }
+        };
+        assertEquals("personalizado", custom.getCriterions(Cliente.class)[0].toString());
+        assertEquals("idade=42", new HibernateQueryObject(query).getCriterions(Cliente.class)[0].toString());
+    }
+
+    @Test
+    public void percebeAlteracoesFeitasNoMapaPadrao() {
+        QueryObject query = new QueryObject();
+        query.setQ("42");
+        query.setSearchFields("idade");
+        CriterionParser original = GumgaQueryParserProvider.defaultMap.get(Integer.class);
+        try {
+            GumgaQueryParserProvider.put(Integer.class, (field, value) -> Restrictions.sqlRestriction("alterado"));
+            assertEquals("alterado", new HibernateQueryObject(query).getCriterions(Cliente.class)[0].toString());
+        } finally {
+            GumgaQueryParserProvider.put(Integer.class, original);
+        }
+        assertEquals("idade=42", new HibernateQueryObject(query).getCriterions(Cliente.class)[0].toString());
+    }
+
+}
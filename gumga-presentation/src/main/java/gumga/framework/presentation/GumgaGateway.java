@@ -24,7 +24,7 @@ public abstract class GumgaGateway<A extends GumgaIdable<ID>, ID extends Seriali
     @Override
     public SearchResult<DTO> pesquisa(QueryObject query) {
         SearchResult<A> pesquisa = delegate.pesquisa(query);
-        return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()));
+        return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()), pesquisa.getNext(), pesquisa.isExactCount());
     }
 
     @Override
@@ -33,6 +33,11 @@ public abstract class GumgaGateway<A extends GumgaIdable<ID>, ID extends Seriali
         return translator.from(delegate.view(id));
     }
 
+    @Override
+    public List<DTO> viewAll(List<Long> ids) {
+        return translator.from(delegate.viewAll(ids));
+    }
+
     @Override
     public void delete(DTO resource) {
         delegate.delete(translator.to(resource));
@@ -9,27 +9,38 @@ import gumga.framework.core.GumgaThreadScope;
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.QueryToSave;
 import gumga.framework.core.SearchResult;
+import gumga.framework.core.exception.BadRequestException;
 import gumga.framework.domain.GumgaObjectAndRevision;
 import gumga.framework.domain.GumgaServiceable;
 import gumga.framework.domain.GumgaUserData;
 import gumga.framework.domain.service.GumgaReadableServiceable;
 import gumga.framework.domain.tag.GumgaTag;
 import gumga.framework.domain.tag.GumgaTagDefinition;
+import java.io.IOException;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public abstract class AbstractReadOnlyGumgaAPI<T> extends AbstractProtoGumgaAPI<T> {
 
+    /**
+     * Quantidade máxima de ids em {@link #loadAll(List)}
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
     protected GumgaReadableServiceable<T> service;
     @Autowired
     protected GumgaUserDataService guds;
@@ -44,11 +55,11 @@ public abstract class AbstractReadOnlyGumgaAPI<T> extends AbstractProtoGumgaAPI<
 
     @GumgaSwagger
     @Transactional
-    @ApiOperation(value = "search", notes = "Faz uma pesquisa pela query informada através do objeto QueryObjet, os atributos são aq, q, start, pageSize, sortField, sortDir e searchFields.")
+    @ApiOperation(value = "search", notes = "Faz uma pesquisa pela query informada através do objeto QueryObjet, os atributos são aq, q, start, pageSize, sortField, sortDir, searchFields, after (vazio inicia a paginação por cursor, em seguida o cursor retornado em next) e countStrategy.")
     @RequestMapping(method = RequestMethod.GET)
     public SearchResult<T> pesquisa(QueryObject query) {
         SearchResult<T> pesquisa = service.pesquisa(query);
-        return new SearchResult<>(query, pesquisa.getCount(), pesquisa.getValues());
+        return new SearchResult<>(query, pesquisa.getCount(), pesquisa.getValues(), pesquisa.getNext(), pesquisa.isExactCount());
     }
 
     @Transactional
@@ -78,6 +89,31 @@ public abstract class AbstractReadOnlyGumgaAPI<T> extends AbstractProtoGumgaAPI<
         return service.view(id);
     }
 
+    @GumgaSwagger
+    @Transactional
+    @ApiOperation(value = "loadAll", notes = "Carrega as entidades dos ids informados (ids=1,2,3, no máximo 1000) com uma consulta por lote, na ordem informada. Ids inexistentes ou de outra organização são ignorados.")
+    @RequestMapping(value = "batch", method = RequestMethod.GET)
+    public List<T> loadAll(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("No máximo " + MAX_BATCH_SIZE + " ids por requisição, informados " + ids.size());
+        }
+        return service.viewAll(ids);
+    }
+
+    @Transactional(readOnly = true)
+    @ApiOperation(value = "downloadFile", notes = "Envia o conteúdo de um atributo GumgaFile ou GumgaImage lido diretamente do banco.")
+    @RequestMapping(value = "{id}/file/{property}", method = RequestMethod.GET)
+    public void downloadFile(@PathVariable Long id, @PathVariable String property, HttpServletResponse response) throws IOException {
+        boolean found = service.streamFile(id, property, (file, content) -> {
+            response.setContentType(file.getMimeType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : file.getMimeType());
+            response.setHeader("Content-Disposition", "inline; filename=\"" + file.getName().replace("\"", "") + "\"");
+            StreamUtils.copy(content, response.getOutputStream());
+        });
+        if (!found) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
     @Transactional
     @ApiOperation(value = "listOldVersions", notes = "Mostra versões anteriores do objeto.")
     @RequestMapping(value = "listoldversions/{id}", method = RequestMethod.GET)
@@ -85,6 +121,16 @@ public abstract class AbstractReadOnlyGumgaAPI<T> extends AbstractProtoGumgaAPI<
         return service.listOldVersions(id);
     }
 
+    @Transactional
+    @ApiOperation(value = "listOldVersionsPage", notes = "Mostra versões anteriores do objeto paginadas, da mais recente para a mais antiga. Com diff=true cada versão traz somente os atributos alterados em relação à anterior.")
+    @RequestMapping(value = "listoldversions/{id}/page", method = RequestMethod.GET)
+    public SearchResult<GumgaObjectAndRevision> listOldVersions(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") int start,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean diff) {
+        return service.listOldVersions(id, start, pageSize, diff);
+    }
+
     public void setService(GumgaServiceable<T> service) {
         this.service = service;
     }
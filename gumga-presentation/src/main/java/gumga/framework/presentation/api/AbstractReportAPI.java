@@ -5,17 +5,25 @@
  */
 package gumga.framework.presentation.api;
 
+import gumga.framework.application.GumgaJob;
+import gumga.framework.application.GumgaJobService;
+import gumga.framework.application.GumgaService;
 import gumga.framework.application.service.JasperReportService;
 import gumga.framework.application.service.ReportType;
-import java.io.ByteArrayOutputStream;
+import gumga.framework.core.QueryObject;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -27,6 +35,9 @@ public abstract class AbstractReportAPI {
     @Autowired
     private JasperReportService reportService;
 
+    @Autowired
+    private GumgaJobService jobService;
+
     private String reportsFolder;
 
     /**
@@ -40,31 +51,71 @@ public abstract class AbstractReportAPI {
 
     public void generateAndExportReport(String reportName, List data, Map<String, Object> params,
             HttpServletRequest request, HttpServletResponse response, ReportType type) throws JRException, IOException {
-        InputStream is = getResourceAsInputStream(request, reportName);
+        JasperReport report = getReport(request, reportName);
         setContentType(response, reportName, type);
-        reportService.exportReport(is, response.getOutputStream(), data, params, type);
+        reportService.exportReport(report, response.getOutputStream(), data, params, type);
     }
 
-    public void generateAndExportHTMLReport(String reportName, String destFile, List data, Map<String, Object> params,
+    /**
+     * Gera o relatório com os registros da pesquisa, lidos do banco durante o
+     * preenchimento.
+     */
+    public void generateAndExportReport(String reportName, GumgaService<?, ?> service, QueryObject query, Map<String, Object> params,
+            HttpServletRequest request, HttpServletResponse response, ReportType type) throws JRException, IOException {
+        JasperReport report = getReport(request, reportName);
+        setContentType(response, reportName, type);
+        reportService.exportReport(report, response.getOutputStream(), service, query, params, type);
+    }
+
+    /**
+     * Gera o relatório com os registros da pesquisa em segundo plano. Pedidos
+     * com o mesmo relatório, pesquisa, parâmetros e organização reaproveitam o
+     * mesmo job.
+     *
+     * @return o job, consultado e baixado em /api/gumgajob/{id}
+     */
+    public GumgaJob submitReport(String reportName, GumgaService<?, ?> service, QueryObject query, Map<String, Object> params,
+            HttpServletRequest request, ReportType type) throws JRException, IOException {
+        JasperReport report = getReport(request, reportName);
+        String key = "report|" + getFullPath(reportsFolder, reportName) + "|" + type + "|" + service.clazz().getName() + "|" + query
+                + "|" + (params == null ? Collections.emptyMap() : new TreeMap<>(params));
+        String fileName = reportName.replaceFirst("\\.jasper$", "") + "." + type.name().toLowerCase();
+        return jobService.submit(key, fileName, type.getContentType(), out -> reportService.exportReport(report, out, service, query, params, type));
+    }
+
+    /**
+     * Gera o relatório HTML direto na resposta, sem arquivo intermediário. As
+     * imagens são incluídas no próprio documento.
+     */
+    public void generateAndExportHTMLReport(String reportName, List data, Map<String, Object> params,
             HttpServletRequest request, HttpServletResponse response) throws JRException, IOException {
-        InputStream is = getResourceAsInputStream(request, reportName);
+        JasperReport report = getReport(request, reportName);
         setContentType(response, reportName, ReportType.HTML);
-        reportService.exportReportToHtmlFile(is, data, params, destFile);
+        reportService.exportReport(report, response.getOutputStream(), data, params, ReportType.HTML);
+    }
 
-        //Set the output content
-        InputStream generatedIs = request.getServletContext().getResourceAsStream(destFile);
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] bytes = new byte[16384];
+    /**
+     * @deprecated o HTML é escrito direto na resposta e destFile não é mais
+     * gerado, utilize
+     * {@link #generateAndExportHTMLReport(String, List, Map, HttpServletRequest, HttpServletResponse)}
+     */
+    @Deprecated
+    public void generateAndExportHTMLReport(String reportName, String destFile, List data, Map<String, Object> params,
+            HttpServletRequest request, HttpServletResponse response) throws JRException, IOException {
+        generateAndExportHTMLReport(reportName, data, params, request, response);
+    }
 
-        while ((nRead = generatedIs.read(bytes, 0, bytes.length)) != -1) {
-            buffer.write(bytes, 0, nRead);
+    /**
+     * Relatório compilado, mantido em cache enquanto o arquivo não for
+     * alterado
+     */
+    protected JasperReport getReport(HttpServletRequest request, String reportName) throws JRException, IOException {
+        String path = getFullPath(reportsFolder, reportName);
+        URL url = request.getServletContext().getResource(path);
+        if (url == null) {
+            throw new FileNotFoundException(path);
         }
-
-        buffer.flush();
-        bytes = buffer.toByteArray();
-        response.setContentLength(bytes.length);
-        response.getOutputStream().write(bytes, 0, bytes.length);
+        return reportService.loadReport(url);
     }
 
     protected InputStream getResourceAsInputStream(HttpServletRequest request, String reportName) {
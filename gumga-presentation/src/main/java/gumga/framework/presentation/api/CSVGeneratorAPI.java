@@ -6,35 +6,39 @@
 package gumga.framework.presentation.api;
 
 import com.wordnik.swagger.annotations.ApiOperation;
+import gumga.framework.application.GumgaJob;
+import gumga.framework.application.GumgaJobService;
 import gumga.framework.application.GumgaService;
 import gumga.framework.core.QueryObject;
 import gumga.framework.core.SearchResult;
-import gumga.framework.domain.GumgaModel;
+import gumga.framework.core.utils.EntityMetadata;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.lang.reflect.Constructor;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
-import java.text.ParseException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.persistence.Id;
-import javax.persistence.Version;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 /**
  *
@@ -42,194 +46,103 @@ import org.springframework.web.multipart.MultipartFile;
  */
 public interface CSVGeneratorAPI {
 
+    /**
+     * Modelo das datas do CSV. Não é thread-safe, deve ser clonado antes do
+     * uso; a exportação utiliza {@link #CSV_DATE_FORMATTER}.
+     */
     final SimpleDateFormat SDF = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    /**
+     * Formata as datas exportadas, compartilhado pelas requisições e pelos
+     * jobs de exportação
+     */
+    final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
     final String CSV_SEPARATOR = ";";
     final String CSV_LINE_DELIMITER = "\r\n";
+    final int CSV_CHUNK_SIZE = 500;
     final Logger log = LoggerFactory.getLogger(CSVGeneratorAPI.class);
 
     GumgaService getGumgaService();
 
-    @org.springframework.transaction.annotation.Transactional
-    @ApiOperation(value = "csv", notes = "Gera resultado da pesquisa em um arquivo CSV.")
+    @ApiOperation(value = "csv", notes = "Gera resultado da pesquisa em um arquivo CSV. Exporta todos os registros que atendem os filtros, ignorando a paginação.")
     @RequestMapping(value = "/csv", method = RequestMethod.GET)
     @ResponseBody
-    default void geraCSV(HttpServletResponse response) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        QueryObject qo = new QueryObject();
-        SearchResult pesquisa = getGumgaService().pesquisa(qo);
-        if (pesquisa.getValues().isEmpty()) {
-            response.getWriter().write("NO DATA");
-            return;
-        }
-        sb.append(classToCsvTitle(pesquisa.getValues().get(0).getClass()));
-        for (Object obj : pesquisa.getValues()) {
-            sb.append(objectToCsvLine(obj));
-        }
-        response.getWriter().write(sb.toString());
+    default void geraCSV(QueryObject qo, HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv");
+        escreveCSV(qo, response.getWriter());
     }
 
-    @Transactional
-    @ApiOperation(value = "csvupload", notes = "Faz importação via csv.")
-    @RequestMapping(method = RequestMethod.POST, value = "/csvupload")
-    default SearchResult<String> csvUpload(@RequestParam MultipartFile csv) throws IOException {
-        int numeroLinha = 0;
-        Class clazz = getGumgaService().clazz();
-        InputStreamReader isr = new InputStreamReader(csv.getInputStream());
-        BufferedReader bf = new BufferedReader(isr);
-        String linha;
-        String[] atributos = bf.readLine().split(CSV_SEPARATOR);
-        numeroLinha++;
-        Field idField = getIdField(clazz);
-        Map<String, String> atributoValor = new HashMap<>();
-        Map<String, Field> atributoField = new HashMap<>();
-        for (String atributo : atributos) {
-            atributoValor.put(atributo, null);
-        }
-        for (Field f : getAllAtributes(clazz)) {
-            f.setAccessible(true);
-            atributoField.put(f.getName(), f);
-        }
-        List<String> problemas = new ArrayList<>();
-        while ((linha = bf.readLine()) != null) {
-            numeroLinha++;
-            String coluna = "";
-            if (linha.trim().isEmpty()) {
-                continue;
-            }
+    @ApiOperation(value = "csvjob", notes = "Gera o CSV da pesquisa em segundo plano. Retorna o job, consultado e baixado em /api/gumgajob/{id}; pesquisas iguais reaproveitam o mesmo resultado.")
+    @RequestMapping(value = "/csv/job", method = RequestMethod.POST)
+    default GumgaJob geraCSVJob(QueryObject qo) {
+        GumgaService service = getGumgaService();
+        String fileName = service.clazz().getSimpleName() + ".csv";
+        return getGumgaJobService().submit("csv|" + service.clazz().getName() + "|" + qo, fileName, "text/csv; charset=UTF-8", out -> {
+            escreveCSV(qo, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Escreve todos os registros que atendem os filtros, lidos em lotes de
+     * {@link #CSV_CHUNK_SIZE}.
+     */
+    default void escreveCSV(QueryObject qo, Writer writer) throws IOException {
+        int[] linhas = {0};
+        getGumgaService().percorre(qo, CSV_CHUNK_SIZE, obj -> {
             try {
-                String[] valores = linha.split(CSV_SEPARATOR);
-                for (int i = 0; i < valores.length; i++) {
-                    atributoValor.put(atributos[i], valores[i]);
-                }
-                Object entidade;
-                String stringChave = atributoValor.get(idField.getName());
-                if (stringChave != null && !stringChave.trim().isEmpty()) {
-                    entidade = getGumgaService().view(new Long(stringChave));
-                } else {
-                    entidade = clazz.newInstance();
+                if (linhas[0] == 0) {
+                    writer.write(classToCsvTitle(obj.getClass()));
                 }
-                for (int i = 0; i < atributos.length; i++) {
-                    coluna = atributos[i];
-                    Field atributo = atributoField.get(coluna);
-                    if (coluna.equals(idField.getName())) {
-                        continue;
-                    }
-                    if (coluna.equals("oi")) {
-                        continue;
-                    }
-                    if (atributo.isAnnotationPresent(Version.class)) {
-                        continue;
-                    }
-                    Class type = atributo.getType();
-                    String valorString = atributoValor.get(atributos[i]);
-                    if (valorString == null || valorString.trim().isEmpty()) {
-                        continue;
-                    }
-                    if (GumgaModel.class.isAssignableFrom(type)) {
-                        GumgaModel gm = (GumgaModel) atributo.get(entidade);
-                        if (gm == null || !gm.getId().toString().equals(valorString)) {
-                            Long valorLong = new Long(valorString);
-                            Object entidadeAssociada = getGumgaService().genercView(type, valorLong);
-                            atributo.set(entidade, entidadeAssociada);
-                        }
-
-                    } else if (type.equals(Date.class)) {
-                        Date valorDate = SDF.parse(valorString);
-                        atributo.set(entidade, valorDate);
-                    } else {
-                        Constructor constructorString = type.getConstructor(String.class);
-                        Object valorAtributo = constructorString.newInstance(valorString);
-                        atributo.set(entidade, valorAtributo);
-                    }
+                writer.write(objectToCsvLine(obj).toString());
+                if (++linhas[0] % CSV_CHUNK_SIZE == 0) {
+                    writer.flush();
                 }
-                coluna = "ao salvar registro completo";
-                getGumgaService().save(entidade);
-            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | ParseException | NoSuchMethodException | SecurityException | InvocationTargetException ex) {
-                problemas.add("Linha:" + numeroLinha + " Coluna:" + coluna + " Problema:" + ex);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
             }
+        });
+        if (linhas[0] == 0) {
+            writer.write("NO DATA");
         }
-        return new SearchResult<>(0, problemas.size(), problemas.size(), problemas);
+        writer.flush();
+    }
+
+    /**
+     * @return serviço que processa o CSV em segundo plano, buscado no contexto
+     * da requisição
+     */
+    default GumgaJobService getGumgaJobService() {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        return RequestContextUtils.findWebApplicationContext(request).getBean(GumgaJobService.class);
+    }
+
+    @ApiOperation(value = "csvupload", notes = "Faz importação via csv. Cada lote é gravado em uma transação própria; o header Gumga-Csv-Ultima-Linha-Gravada informa a última linha gravada, utilizada para retomar a importação pelo parâmetro ultimaLinhaGravada.")
+    @RequestMapping(method = RequestMethod.POST, value = "/csvupload")
+    default SearchResult<String> csvUpload(@RequestParam MultipartFile csv, @RequestParam(defaultValue = "0") int ultimaLinhaGravada, HttpServletResponse response) throws IOException {
+        CSVImporter importer = new CSVImporter(getGumgaService(), getCsvImportChunkSize(), getCsvImportThreads());
+        SearchResult<String> problemas = importer.importa(new BufferedReader(new InputStreamReader(csv.getInputStream())), ultimaLinhaGravada, true);
+        response.setHeader("Gumga-Csv-Ultima-Linha-Gravada", String.valueOf(importer.getUltimaLinhaGravada()));
+        return problemas;
     }
 
     @ApiOperation(value = "csvuploadvalidate", notes = "Faz validação da importação via csv.")
     @RequestMapping(method = RequestMethod.POST, value = "/csvuploadvalidate")
     default SearchResult<String> csvUploadValidate(@RequestParam MultipartFile csv) throws IOException {
-        int numeroLinha = 0;
-        Class clazz = getGumgaService().clazz();
-        InputStreamReader isr = new InputStreamReader(csv.getInputStream());
-        BufferedReader bf = new BufferedReader(isr);
-        String linha;
-        String[] atributos = bf.readLine().split(CSV_SEPARATOR);
-        numeroLinha++;
-        Field idField = getIdField(clazz);
-        Map<String, String> atributoValor = new HashMap<>();
-        Map<String, Field> atributoField = new HashMap<>();
-        for (String atributo : atributos) {
-            atributoValor.put(atributo, null);
-        }
-        for (Field f : getAllAtributes(clazz)) {
-            f.setAccessible(true);
-            atributoField.put(f.getName(), f);
-        }
-        List<String> problemas = new ArrayList<>();
-        while ((linha = bf.readLine()) != null) {
-            numeroLinha++;
-            String coluna = "";
-            if (linha.trim().isEmpty()) {
-                continue;
-            }
-            try {
-                String[] valores = linha.split(CSV_SEPARATOR);
-                for (int i = 0; i < valores.length; i++) {
-                    atributoValor.put(atributos[i], valores[i]);
-                }
-                Object entidade;
-                String stringChave = atributoValor.get(idField.getName());
-                if (stringChave != null && !stringChave.trim().isEmpty()) {
-                    entidade = getGumgaService().view(new Long(stringChave));
-                } else {
-                    entidade = clazz.newInstance();
-                }
-                for (int i = 0; i < atributos.length; i++) {
-                    coluna = atributos[i];
-                    Field atributo = atributoField.get(coluna);
-                    if (coluna.equals(idField.getName())) {
-                        continue;
-                    }
-                    if (coluna.equals("oi")) {
-                        continue;
-                    }
-                    if (atributo.isAnnotationPresent(Version.class)) {
-                        continue;
-                    }
-                    Class type = atributo.getType();
-                    String valorString = atributoValor.get(atributos[i]);
-                    if (valorString == null || valorString.trim().isEmpty()) {
-                        continue;
-                    }
-                    if (GumgaModel.class.isAssignableFrom(type)) {
-                        GumgaModel gm = (GumgaModel) atributo.get(entidade);
-                        if (gm == null || !gm.getId().toString().equals(valorString)) {
-                            Long valorLong = new Long(valorString);
-                            Object entidadeAssociada = getGumgaService().genercView(type, valorLong);
-                            atributo.set(entidade, entidadeAssociada);
-                        }
+        CSVImporter importer = new CSVImporter(getGumgaService(), getCsvImportChunkSize(), getCsvImportThreads());
+        return importer.importa(new BufferedReader(new InputStreamReader(csv.getInputStream())), 0, false);
+    }
 
-                    } else if (type.equals(Date.class)) {
-                        Date valorDate = SDF.parse(valorString);
-                        atributo.set(entidade, valorDate);
-                    } else {
-                        Constructor constructorString = type.getConstructor(String.class);
-                        Object valorAtributo = constructorString.newInstance(valorString);
-                        atributo.set(entidade, valorAtributo);
-                    }
-                }
-                coluna = "ao salvar registro completo";
-            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | ParseException | NoSuchMethodException | SecurityException | InvocationTargetException ex) {
-                problemas.add("Linha:" + numeroLinha + " Coluna:" + coluna + " Problema:" + ex);
-            }
-        }
-        return new SearchResult<>(0, problemas.size(), problemas.size(), problemas);
+    /**
+     * @return linhas do CSV gravadas em cada transação da importação
+     */
+    default int getCsvImportChunkSize() {
+        return 1000;
+    }
+
+    /**
+     * @return threads utilizadas na conversão das linhas da importação
+     */
+    default int getCsvImportThreads() {
+        return Runtime.getRuntime().availableProcessors();
     }
 
     public static String classToCsvTitle(Class clazz) {
@@ -245,19 +158,20 @@ public interface CSVGeneratorAPI {
 
     public static StringBuilder objectToCsvLine(Object gm) {
         StringBuilder sb = new StringBuilder();
-        for (Field f : getAllAtributes(gm.getClass())) {
+        EntityMetadata metadata = EntityMetadata.of(gm.getClass());
+        for (Field f : metadata.getInstanceFields()) {
             try {
-                f.setAccessible(true);
-                if (f.get(gm) != null) {
+                Object value = metadata.getAccessor(f).get(gm);
+                if (value != null) {
                     Field idField = getIdField(f.getType());
                     if (idField != null) {
-                        idField.setAccessible(true);
-                        Object idValue = idField.get(f.get(gm));
+                        Object idValue = EntityMetadata.of(f.getType()).getAccessor(idField).get(value);
                         sb.append(idValue.toString());
                     } else if (f.getType().equals(Date.class)) {
-                        sb.append(SDF.format(f.get(gm)));
+                        //java.sql.Date não implementa toInstant()
+                        sb.append(CSV_DATE_FORMATTER.format(Instant.ofEpochMilli(((Date) value).getTime())));
                     } else {
-                        sb.append(f.get(gm).toString());
+                        sb.append(value.toString());
                     }
                 }
             } catch (Exception ex) {
@@ -271,26 +185,11 @@ public interface CSVGeneratorAPI {
     }
 
     public static Field getIdField(Class clazz) {
-        for (Field f : getAllAtributes(clazz)) {
-            if (f.isAnnotationPresent(Id.class)) {
-                return f;
-            }
-        }
-        return null;
+        return EntityMetadata.of(clazz).getAnnotatedField(Id.class);
     }
 
     public static List<Field> getAllAtributes(Class clazz) {
-        List<Field> fields = new ArrayList<>();
-        Class superClass = clazz.getSuperclass();
-        if (superClass != null && !superClass.equals(Object.class)) {
-            fields.addAll(getAllAtributes(clazz.getSuperclass()));
-        }
-        for (Field f : clazz.getDeclaredFields()) {
-            if (!Modifier.isStatic(f.getModifiers())) {
-                fields.add(f);
-            }
-        }
-        return fields;
+        return EntityMetadata.of(clazz).getInstanceFields();
     }
 
 }
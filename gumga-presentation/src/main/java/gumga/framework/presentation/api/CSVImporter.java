@@ -0,0 +1,331 @@
+package gumga.framework.presentation.api;
+
+import gumga.framework.application.GumgaService;
+import gumga.framework.core.SearchResult;
+import gumga.framework.core.utils.EntityMetadata;
+import gumga.framework.core.utils.FieldAccessor;
+import gumga.framework.domain.GumgaModel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+/**
+ * Importação de CSV em lotes utilizada pelo {@link CSVGeneratorAPI}. A
+ * conversão das linhas é feita em paralelo enquanto o lote anterior é gravado;
+ * os registros existentes e as associações de cada lote são buscados com uma
+ * consulta por classe e cada lote é gravado em uma transação própria. Se a
+ * gravação de um lote falhar a importação é interrompida e pode ser retomada a
+ * partir de {@link #getUltimaLinhaGravada()}.
+ *
+ * @author Equipe Gumga
+ */
+class CSVImporter {
+
+    private enum Tipo {
+        ID, IGNORADO, ASSOCIACAO, DATA, CONSTRUTOR
+    }
+
+    private final GumgaService service;
+    private final Class clazz;
+    private final int tamanhoLote;
+    private final int threads;
+    private final ThreadLocal<SimpleDateFormat> sdf = ThreadLocal.withInitial(() -> (SimpleDateFormat) CSVGeneratorAPI.SDF.clone());
+    private final List<String> problemas = new ArrayList<>();
+    private Coluna[] colunas;
+    private int ultimaLinhaGravada;
+
+    CSVImporter(GumgaService service, int tamanhoLote, int threads) {
+        this.service = service;
+        this.clazz = service.clazz();
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param bf conteúdo do CSV, com os nomes dos atributos na primeira linha
+     * @param ultimaLinhaGravada linhas já gravadas em uma importação anterior,
+     * que serão ignoradas
+     * @param grava se os registros devem ser gravados ou apenas validados
+     * @return os problemas encontrados
+     */
+    SearchResult<String> importa(BufferedReader bf, int ultimaLinhaGravada, boolean grava) throws IOException {
+        String titulo = bf.readLine();
+        if (titulo == null) {
+            return new SearchResult<>(0, 0, 0, problemas);
+        }
+        colunas = criaColunas(titulo.split(CSVGeneratorAPI.CSV_SEPARATOR));
+        int numeroLinha = 1;
+        while (numeroLinha < ultimaLinhaGravada && bf.readLine() != null) {
+            numeroLinha++;
+        }
+        this.ultimaLinhaGravada = numeroLinha;
+
+        ExecutorService conversores = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gumga-csv-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Lote lote = leLote(bf, numeroLinha + 1);
+            List<Future<List<Linha>>> convertendo = converte(conversores, lote);
+            while (!lote.textos.isEmpty()) {
+                List<Linha> linhas = aguarda(convertendo);
+                Lote proximo = leLote(bf, lote.primeiraLinha + lote.textos.size());
+                convertendo = converte(conversores, proximo);
+                if (!gravaLote(linhas, grava)) {
+                    break;
+                }
+                lote = proximo;
+            }
+        } finally {
+            conversores.shutdownNow();
+        }
+        return new SearchResult<>(0, problemas.size(), problemas.size(), problemas);
+    }
+
+    int getUltimaLinhaGravada() {
+        return ultimaLinhaGravada;
+    }
+
+    private Coluna[] criaColunas(String[] atributos) {
+        EntityMetadata metadata = EntityMetadata.of(clazz);
+        Field idField = metadata.getAnnotatedField(Id.class);
+        Field versionField = metadata.getAnnotatedField(Version.class);
+        Coluna[] toReturn = new Coluna[atributos.length];
+        for (int i = 0; i < atributos.length; i++) {
+            Field field = metadata.getField(atributos[i]);
+            FieldAccessor accessor = field == null || Modifier.isStatic(field.getModifiers()) ? null : metadata.getAccessor(field);
+            toReturn[i] = new Coluna(atributos[i], accessor, idField, versionField);
+        }
+        return toReturn;
+    }
+
+    private Lote leLote(BufferedReader bf, int primeiraLinha) throws IOException {
+        Lote lote = new Lote(primeiraLinha);
+        String linha;
+        while (lote.textos.size() < tamanhoLote && (linha = bf.readLine()) != null) {
+            lote.textos.add(linha);
+        }
+        return lote;
+    }
+
+    private List<Future<List<Linha>>> converte(ExecutorService conversores, Lote lote) {
+        List<Future<List<Linha>>> toReturn = new ArrayList<>();
+        int total = lote.textos.size();
+        int porThread = Math.max(1, (total + threads - 1) / threads);
+        for (int inicio = 0; inicio < total; inicio += porThread) {
+            int de = inicio;
+            int ate = Math.min(inicio + porThread, total);
+            toReturn.add(conversores.submit(() -> {
+                List<Linha> linhas = new ArrayList<>(ate - de);
+                for (int i = de; i < ate; i++) {
+                    linhas.add(converte(lote.primeiraLinha + i, lote.textos.get(i)));
+                }
+                return linhas;
+            }));
+        }
+        return toReturn;
+    }
+
+    private List<Linha> aguarda(List<Future<List<Linha>>> lote) throws IOException {
+        List<Linha> linhas = new ArrayList<>();
+        try {
+            for (Future<List<Linha>> parte : lote) {
+                linhas.addAll(parte.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Problema ao converter o CSV", ex.getCause());
+        }
+        return linhas;
+    }
+
+    private Linha converte(int numero, String texto) {
+        Linha linha = new Linha(numero);
+        if (texto.trim().isEmpty()) {
+            return linha;
+        }
+        linha.valores = new Object[colunas.length];
+        String[] valores = texto.split(CSVGeneratorAPI.CSV_SEPARATOR);
+        String coluna = "";
+        try {
+            for (int i = 0; i < colunas.length && i < valores.length; i++) {
+                Coluna c = colunas[i];
+                coluna = c.nome;
+                String valorString = valores[i];
+                if (valorString == null || valorString.trim().isEmpty()) {
+                    continue;
+                }
+                switch (c.tipo) {
+                    case ID:
+                        linha.id = new Long(valorString.trim());
+                        break;
+                    case ASSOCIACAO:
+                        linha.valores[i] = new Long(valorString);
+                        break;
+                    case DATA:
+                        linha.valores[i] = sdf.get().parse(valorString);
+                        break;
+                    case CONSTRUTOR:
+                        linha.valores[i] = c.accessor.fromString(valorString);
+                        break;
+                    default:
+                }
+            }
+        } catch (Exception ex) {
+            linha.problema = "Linha:" + numero + " Coluna:" + coluna + " Problema:" + ex;
+        }
+        return linha;
+    }
+
+    private boolean gravaLote(List<Linha> linhas, boolean grava) {
+        List<Linha> validas = new ArrayList<>();
+        for (Linha linha : linhas) {
+            if (linha.problema != null) {
+                problemas.add(linha.problema);
+            } else if (linha.valores != null) {
+                validas.add(linha);
+            }
+        }
+        int ultimaLinha = linhas.get(linhas.size() - 1).numero;
+        if (!grava) {
+            aplica(validas, false);
+            ultimaLinhaGravada = ultimaLinha;
+            return true;
+        }
+        try {
+            service.executeInNewTransaction(() -> aplica(validas, true));
+            ultimaLinhaGravada = ultimaLinha;
+            return true;
+        } catch (RuntimeException ex) {
+            problemas.add("Linha:" + linhas.get(0).numero + "-" + ultimaLinha + " Coluna:ao salvar registro completo Problema:" + ex);
+            return false;
+        }
+    }
+
+    private Void aplica(List<Linha> linhas, boolean grava) {
+        Set<Object> ids = new HashSet<>();
+        Map<Class, Set<Object>> idsAssociados = new HashMap<>();
+        for (Linha linha : linhas) {
+            if (linha.id != null) {
+                ids.add(linha.id);
+            }
+            for (int i = 0; i < colunas.length; i++) {
+                if (colunas[i].tipo == Tipo.ASSOCIACAO && linha.valores[i] != null) {
+                    idsAssociados.computeIfAbsent(colunas[i].accessor.getType(), k -> new HashSet<>()).add(linha.valores[i]);
+                }
+            }
+        }
+        Map<Object, Object> existentes = service.genericViewAll(clazz, ids);
+        Map<Class, Map<Object, Object>> associados = new HashMap<>();
+        for (Map.Entry<Class, Set<Object>> entry : idsAssociados.entrySet()) {
+            associados.put(entry.getKey(), service.genericViewAll(entry.getKey(), entry.getValue()));
+        }
+
+        for (Linha linha : linhas) {
+            String coluna = "";
+            Object entidade;
+            try {
+                entidade = linha.id == null ? clazz.newInstance() : existentes.get(linha.id);
+                if (entidade == null) {
+                    throw new IllegalArgumentException("cannot find " + clazz.getName() + " with id: " + linha.id);
+                }
+                //Resolve todas as associações antes de alterar a entidade
+                Object[] valores = new Object[colunas.length];
+                for (int i = 0; i < colunas.length; i++) {
+                    Coluna c = colunas[i];
+                    coluna = c.nome;
+                    valores[i] = linha.valores[i];
+                    if (c.tipo != Tipo.ASSOCIACAO || valores[i] == null) {
+                        continue;
+                    }
+                    GumgaModel gm = (GumgaModel) c.accessor.get(entidade);
+                    if (gm != null && gm.getId().equals(valores[i])) {
+                        valores[i] = null;
+                        continue;
+                    }
+                    valores[i] = associados.get(c.accessor.getType()).get(linha.valores[i]);
+                    if (valores[i] == null) {
+                        throw new IllegalArgumentException("cannot find " + c.accessor.getType().getName() + " with id: " + linha.valores[i]);
+                    }
+                }
+                for (int i = 0; i < colunas.length; i++) {
+                    coluna = colunas[i].nome;
+                    if (valores[i] != null && colunas[i].tipo != Tipo.ID) {
+                        colunas[i].accessor.set(entidade, valores[i]);
+                    }
+                }
+            } catch (InstantiationException | IllegalAccessException | RuntimeException ex) {
+                problemas.add("Linha:" + linha.numero + " Coluna:" + coluna + " Problema:" + ex);
+                continue;
+            }
+            if (grava) {
+                service.save(entidade);
+            }
+        }
+        return null;
+    }
+
+    private static class Coluna {
+
+        private final String nome;
+        private final FieldAccessor accessor;
+        private final Tipo tipo;
+
+        private Coluna(String nome, FieldAccessor accessor, Field idField, Field versionField) {
+            this.nome = nome;
+            this.accessor = accessor;
+            if (accessor != null && accessor.getField().equals(idField)) {
+                tipo = Tipo.ID;
+            } else if (accessor == null || "oi".equals(nome) || accessor.getField().equals(versionField)) {
+                tipo = Tipo.IGNORADO;
+            } else if (GumgaModel.class.isAssignableFrom(accessor.getType())) {
+                tipo = Tipo.ASSOCIACAO;
+            } else if (accessor.getType().equals(Date.class)) {
+                tipo = Tipo.DATA;
+            } else {
+                tipo = Tipo.CONSTRUTOR;
+            }
+        }
+    }
+
+    private static class Lote {
+
+        private final int primeiraLinha;
+        private final List<String> textos = new ArrayList<>();
+
+        private Lote(int primeiraLinha) {
+            this.primeiraLinha = primeiraLinha;
+        }
+    }
+
+    private static class Linha {
+
+        private final int numero;
+        private Long id;
+        private Object[] valores;
+        private String problema;
+
+        private Linha(int numero) {
+            this.numero = numero;
+        }
+    }
+
+}
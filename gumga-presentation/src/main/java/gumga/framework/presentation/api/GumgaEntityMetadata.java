@@ -5,6 +5,7 @@
  */
 package gumga.framework.presentation.api;
 
+import gumga.framework.core.utils.EntityMetadata;
 import gumga.framework.domain.GumgaModel;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -24,13 +25,8 @@ public class GumgaEntityMetadata {
         name = clazz.getSimpleName();
         pack = clazz.getCanonicalName().substring(0, clazz.getCanonicalName().lastIndexOf('.'));
         atributes = new ArrayList<>();
-        List<Class> classes = new ArrayList<>();
-        while (!(clazz.equals(Object.class) || clazz.equals(GumgaModel.class))) {
-            classes.add(0, clazz);
-            clazz = clazz.getSuperclass();
-        }
-        for (Class c : classes) {
-            for (Field f : c.getDeclaredFields()) {
+        for (Field f : EntityMetadata.of(clazz).getFields()) {
+            if (!f.getDeclaringClass().isAssignableFrom(GumgaModel.class)) {
                 GumgaAtributeMetadata gam = new GumgaAtributeMetadata(f.getName(), f.getType().getSimpleName());
                 atributes.add(gam);
             }
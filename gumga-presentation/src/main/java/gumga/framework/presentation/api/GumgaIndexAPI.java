@@ -0,0 +1,57 @@
+package gumga.framework.presentation.api;
+
+import com.wordnik.swagger.annotations.ApiOperation;
+import gumga.framework.application.GumgaIndexProgress;
+import gumga.framework.application.GumgaIndexService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reconstrução dos índices da pesquisa textual feita pelo
+ * {@link GumgaIndexService}.
+ *
+ * @author Equipe Gumga
+ */
+@RestController
+@RequestMapping("/api/gumgaindex/")
+public class GumgaIndexAPI {
+
+    @Autowired
+    private GumgaIndexService indexService;
+
+    @ApiOperation(value = "entities", notes = "Entidades com índice de pesquisa textual.")
+    @RequestMapping(value = "entities", method = RequestMethod.GET)
+    public List<String> entities() {
+        return indexService.getIndexedEntities();
+    }
+
+    @ApiOperation(value = "rebuild", notes = "Reconstrói os índices das entidades informadas, ou de todas. Com tenant=true somente os registros da organização corrente são reindexados.")
+    @RequestMapping(value = "rebuild", method = RequestMethod.POST)
+    public GumgaIndexProgress rebuild(@RequestParam(value = "entity", required = false) List<String> entities,
+            @RequestParam(defaultValue = "" + GumgaIndexService.DEFAULT_BATCH_SIZE) int batchSize,
+            @RequestParam(required = false) Integer threads,
+            @RequestParam(defaultValue = "false") boolean tenant) {
+        return indexService.rebuild(entities, batchSize, threads == null ? Runtime.getRuntime().availableProcessors() : threads, tenant);
+    }
+
+    @ApiOperation(value = "progress", notes = "Reconstruções recentes.")
+    @RequestMapping(value = "", method = RequestMethod.GET)
+    public List<GumgaIndexProgress> progresses() {
+        return indexService.findAll();
+    }
+
+    @ApiOperation(value = "progress", notes = "Andamento da reconstrução.")
+    @RequestMapping(value = "{id}", method = RequestMethod.GET)
+    public ResponseEntity<GumgaIndexProgress> progress(@PathVariable String id) {
+        GumgaIndexProgress progress = indexService.find(id);
+        return progress == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(progress, HttpStatus.OK);
+    }
+
+}
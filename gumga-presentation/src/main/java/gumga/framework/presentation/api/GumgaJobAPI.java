@@ -0,0 +1,55 @@
+package gumga.framework.presentation.api;
+
+import com.wordnik.swagger.annotations.ApiOperation;
+import gumga.framework.application.GumgaJob;
+import gumga.framework.application.GumgaJobService;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Consulta e download dos relatórios e exportações processados em segundo
+ * plano pelo {@link GumgaJobService}.
+ *
+ * @author Equipe Gumga
+ */
+@RestController
+@RequestMapping("/api/gumgajob/")
+public class GumgaJobAPI {
+
+    @Autowired
+    private GumgaJobService jobService;
+
+    @ApiOperation(value = "status", notes = "Situação do relatório ou exportação.")
+    @RequestMapping(value = "{id}", method = RequestMethod.GET)
+    public ResponseEntity<GumgaJob> status(@PathVariable String id) {
+        GumgaJob job = jobService.find(id);
+        return job == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "result", notes = "Conteúdo gerado pelo relatório ou exportação, disponível quando o status for DONE.")
+    @RequestMapping(value = "{id}/result", method = RequestMethod.GET)
+    public void result(@PathVariable String id, HttpServletResponse response) throws IOException {
+        GumgaJob job = jobService.find(id);
+        InputStream content = jobService.openResult(id);
+        if (content == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (InputStream in = content) {
+            response.setContentType(job.getContentType());
+            response.setHeader("Content-Disposition", "inline; filename=\"" + job.getFileName().replace("\"", "") + "\"");
+            response.setHeader("Content-Length", String.valueOf(job.getSize()));
+            StreamUtils.copy(in, response.getOutputStream());
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package gumga.framework.presentation.api;
+
+import com.wordnik.swagger.annotations.ApiOperation;
+import gumga.framework.application.GumgaQueryStatistics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Consulta dos tempos das consultas dos repositórios registrados em
+ * {@link GumgaQueryStatistics}.
+ *
+ * @author Equipe Gumga
+ */
+@RestController
+@RequestMapping("/api/gumgaquerystatistics")
+public class GumgaQueryStatisticsAPI {
+
+    @ApiOperation(value = "statistics", notes = "Tempos (ms) das consultas de página e de count e registros retornados por entidade e forma da consulta, das que consumiram mais tempo para as que consumiram menos.")
+    @RequestMapping(method = RequestMethod.GET)
+    public Map<String, Object> statistics() {
+        Map<String, Object> toReturn = new LinkedHashMap<>();
+        toReturn.put("since", GumgaQueryStatistics.getSince());
+        toReturn.put("slowQueryThreshold", GumgaQueryStatistics.getSlowQueryThreshold());
+        toReturn.put("queries", GumgaQueryStatistics.getStatistics());
+        return toReturn;
+    }
+
+    @ApiOperation(value = "threshold", notes = "Altera o tempo (ms) a partir do qual a consulta é registrada no log.")
+    @RequestMapping(value = "threshold/{millis}", method = RequestMethod.PUT)
+    public void threshold(@PathVariable long millis) {
+        GumgaQueryStatistics.setSlowQueryThreshold(millis);
+    }
+
+    @ApiOperation(value = "reset", notes = "Descarta os tempos registrados.")
+    @RequestMapping(method = RequestMethod.DELETE)
+    public void reset() {
+        GumgaQueryStatistics.reset();
+    }
+
+}
@@ -6,14 +6,15 @@
 package gumga.framework.presentation.api;
 
 import com.wordnik.swagger.annotations.ApiOperation;
+import gumga.framework.application.GumgaFullTextResult;
 import gumga.framework.application.GumgaUntypedRepository;
-import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -24,6 +25,10 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/multisearch/")
 public class MultiSearchApi {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private GumgaUntypedRepository gur;
 
@@ -32,15 +37,19 @@ public class MultiSearchApi {
     }
 
     @Transactional
-    @ApiOperation(value = "search", notes = "Faz uma pesquisa múltipla com o texto informado.")
+    @ApiOperation(value = "search", notes = "Faz uma pesquisa múltipla com o texto informado, retornando as ocorrências mais relevantes.")
     @RequestMapping(value="search/{text}",method = RequestMethod.GET)
-    public List<GumgaGenericResult> search(@PathVariable String text) {
-        List<GumgaGenericResult> aRetornar = new ArrayList<>();
-        List<Object> resultado = gur.fullTextSearch(text);
-        for (Object obj : resultado) {
-            aRetornar.add(new GumgaGenericResult(obj));
-        }
-        return aRetornar;
+    public List<GumgaGenericResult> search(@PathVariable String text, @RequestParam(defaultValue = "0") int start,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int pageSize) {
+        return searchPage(text, start, pageSize).getValues();
+    }
+
+    @Transactional
+    @ApiOperation(value = "searchpage", notes = "Faz uma pesquisa múltipla com o texto informado, retornando a página de ocorrências ordenada pela relevância e a quantidade de ocorrências por entidade.")
+    @RequestMapping(value = "search/{text}/page", method = RequestMethod.GET)
+    public GumgaFullTextResult<GumgaGenericResult> searchPage(@PathVariable String text, @RequestParam(defaultValue = "0") int start,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int pageSize) {
+        return gur.fullTextSearch(text, Math.max(0, start), Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE))).mapValues(GumgaGenericResult::new);
     }
 
 }
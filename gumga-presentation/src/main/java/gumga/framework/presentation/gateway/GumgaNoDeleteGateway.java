@@ -22,7 +22,7 @@ public abstract class GumgaNoDeleteGateway<A extends GumgaIdable<?>, DTO> implem
 	@Override
 	public SearchResult<DTO> pesquisa(QueryObject query) {
 		SearchResult<A> pesquisa = delegate.pesquisa(query);
-		return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()));
+		return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()), pesquisa.getNext(), pesquisa.isExactCount());
 	}
 
 	@Override
@@ -30,6 +30,11 @@ public abstract class GumgaNoDeleteGateway<A extends GumgaIdable<?>, DTO> implem
 		return translator.from(delegate.view(id));
 	}
 
+	@Override
+	public List<DTO> viewAll(List<Long> ids) {
+		return translator.from(delegate.viewAll(ids));
+	}
+
 	@Override
 	public DTO save(DTO resource) {
 		return translator.from(delegate.save(translator.to(resource)));
@@ -21,13 +21,18 @@ public abstract class GumgaReadOnlyGateway<A extends GumgaIdable<?>, DTO> implem
 	@Override
 	public SearchResult<DTO> pesquisa(QueryObject query) {
 		SearchResult<A> pesquisa = delegate.pesquisa(query);
-		return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()));
+		return new SearchResult<>(query, pesquisa.getCount(), translator.from((List<A>) pesquisa.getValues()), pesquisa.getNext(), pesquisa.isExactCount());
 	}
 
 	@Override
 	public DTO view(Long id) {
 		return translator.from(delegate.view(id));
 	}
+
+	@Override
+	public List<DTO> viewAll(List<Long> ids) {
+		return translator.from(delegate.viewAll(ids));
+	}
 	
 	@SuppressWarnings("unchecked")
 	public Class<DTO> clazz() {
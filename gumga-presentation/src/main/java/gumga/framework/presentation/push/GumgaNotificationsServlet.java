@@ -5,6 +5,7 @@
  */
 package gumga.framework.presentation.push;
 
+import gumga.framework.application.GumgaMessageHub;
 import gumga.framework.application.GumgaMessageService;
 import gumga.framework.core.GumgaThreadScope;
 import gumga.framework.core.QueryObject;
@@ -12,6 +13,12 @@ import gumga.framework.core.SearchResult;
 import gumga.framework.domain.GumgaMessage;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -19,50 +26,125 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+/**
+ * Notificações de mensagens por Server-Sent Events. Cada conexão recebe as
+ * mensagens pendentes ao conectar e depois apenas as mensagens novas ou
+ * alteradas do seu login, entregues pelo {@link GumgaMessageHub}; a conexão
+ * não ocupa uma thread do servidor enquanto está ociosa. Somente o destinatário
+ * marca a mensagem como visualizada.
+ */
 @Controller
 public class GumgaNotificationsServlet extends HttpServlet {
     
     private static final long cycleTime = 5 * 60 * 1000l;
-    private static final long intervalTime = 1000l;
-    private static final long cycles = cycleTime / intervalTime;
     
     @Autowired
     private GumgaMessageService messageService;
+
+    @Autowired
+    private GumgaMessageHub hub;
     
     @RequestMapping("/notifications/viewed")
     protected void viewd(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        Long l = new Long(request.getParameter("id"));
-        GumgaMessage gm = new GumgaMessage(l);
-        messageService.delete(gm);
-        
+        messageService.viewed(new Long(request.getParameter("id")), GumgaThreadScope.login.get());
     }
     
     @RequestMapping("/notifications/source")
-    protected void notifications(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        response.setContentType("text/event-stream");
-        response.setCharacterEncoding("UTF-8");
-        PrintWriter writer = response.getWriter();
+    protected SseEmitter notifications() throws IOException {
+        String login = GumgaThreadScope.login.get();
+        SseEmitter emitter = new SseEmitter(cycleTime);
+        Unviewed unviewed = new Unviewed(emitter);
+
+        //Inscreve antes da consulta para não perder as mensagens criadas entre as duas
+        Runnable unsubscribe = hub.subscribe(login, unviewed);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+
         QueryObject qo = new QueryObject();
-        qo.setAq("destinationLogin='" + GumgaThreadScope.login.get() + "' and viewedIn is null ");
-        qo.setAq("viewedIn is null ");
+        qo.setAq("obj.destinationLogin='" + String.valueOf(login).replace("'", "''") + "' and obj.viewedIn is null ");
         qo.setPageSize(1000);
-        
-        for (int i = 0; i < cycles; i++) {
-            SearchResult<GumgaMessage> pesquisa = messageService.pesquisa(qo);
-            String message = "data: {"
-                    + " \"newMessagesCount\":" + pesquisa.getCount()
-                    + ",\"newMessages\":" + pesquisa.getValues()
-                    + "}";
-            writer.write(message + "\n\n");
-            writer.flush();
-            try {
-                Thread.sleep(intervalTime);
-            } catch (InterruptedException e) {
-                log(e.getMessage());
+        unviewed.start(messageService.pesquisa(qo));
+        return emitter;
+    }
+
+    /**
+     * Mensagens não visualizadas de uma conexão, identificadas pelo id. As
+     * alterações recebidas antes da consulta inicial são aplicadas depois
+     * dela, então uma mensagem criada entre a inscrição e a consulta é contada
+     * uma única vez.
+     */
+    private static final class Unviewed implements GumgaMessageHub.Listener {
+
+        private final SseEmitter emitter;
+        private final Set<Long> ids = new HashSet<>();
+        private List<Map.Entry<GumgaMessage, GumgaMessageHub.Change>> early = new ArrayList<>();
+        private long others;
+
+        private Unviewed(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void start(SearchResult<GumgaMessage> initial) throws IOException {
+            //Mensagens além da primeira página da consulta são somente contadas
+            others = Math.max(0, initial.getCount() - initial.getValues().size());
+            List<GumgaMessage> newMessages = new ArrayList<>();
+            List<GumgaMessage> updatedMessages = new ArrayList<>();
+            initial.getValues().forEach(m -> apply(m, GumgaMessageHub.Change.CREATED, newMessages, updatedMessages));
+            early.forEach(e -> apply(e.getKey(), e.getValue(), newMessages, updatedMessages));
+            early = null;
+            send(newMessages, updatedMessages);
+        }
+
+        @Override
+        public synchronized void onMessage(GumgaMessage message, GumgaMessageHub.Change change) throws IOException {
+            if (early != null) {
+                early.add(new AbstractMap.SimpleEntry<>(message, change));
+                return;
+            }
+            List<GumgaMessage> newMessages = new ArrayList<>();
+            List<GumgaMessage> updatedMessages = new ArrayList<>();
+            if (apply(message, change, newMessages, updatedMessages)) {
+                send(newMessages, updatedMessages);
             }
         }
-        writer.close();
+
+        @Override
+        public synchronized void onHeartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        /**
+         * @return se a contagem ou as mensagens da conexão mudaram
+         */
+        private boolean apply(GumgaMessage message, GumgaMessageHub.Change change, List<GumgaMessage> newMessages, List<GumgaMessage> updatedMessages) {
+            switch (change) {
+                case CREATED:
+                    if (ids.add(message.getId())) {
+                        newMessages.add(message);
+                        return true;
+                    }
+                    return false;
+                case UPDATED:
+                    if (message.getViewedIn() != null) {
+                        ids.remove(message.getId());
+                    }
+                    updatedMessages.add(message);
+                    return true;
+                default:
+                    return ids.remove(message.getId());
+            }
+        }
+
+        private void send(List<GumgaMessage> newMessages, List<GumgaMessage> updatedMessages) throws IOException {
+            String message = "{"
+                    + " \"newMessagesCount\":" + (others + ids.size())
+                    + ",\"newMessages\":" + newMessages
+                    + ",\"updatedMessages\":" + updatedMessages
+                    + "}";
+            emitter.send(SseEmitter.event().data(message));
+        }
     }
     
     @RequestMapping("/notifications/dummy")
@@ -0,0 +1,143 @@
+package gumga.framework.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import gumga.framework.core.GumgaValues;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache das autorizações concedidas pelo segurança, compartilhado pelos filtros
+ * GumgaRequestFilter e GumgaRequestFilterV2. A chave é (versão, software,
+ * token, ip, operação); apenas respostas "allow" são guardadas, expiram após
+ * {@link GumgaValues#getAuthorizationCacheDuration()} e são descartadas no
+ * logout do token.
+ * <p>
+ * O logout só descarta as autorizações deste nó. Um token revogado em outro nó
+ * ou diretamente no segurança continua autorizado aqui até a autorização
+ * expirar, no máximo pela duração configurada (por padrão o menor valor entre a
+ * duração do token e 5 minutos). Aplicações que não aceitam esse atraso devem
+ * reduzir a duração ou desligar o cache com duração zero.
+ *
+ * @author Equipe Gumga
+ */
+@Component
+public class GumgaAuthorizationCache {
+
+    private final Cache<Key, Map> cache;
+
+    @Autowired
+    public GumgaAuthorizationCache(GumgaValues gumgaValues) {
+        this(gumgaValues.getAuthorizationCacheDuration(), gumgaValues.getAuthorizationCacheMaxSize(), Ticker.systemTicker());
+    }
+
+    GumgaAuthorizationCache(long duration, long maxSize, Ticker ticker) {
+        duration = Math.max(0, duration);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(duration == 0 ? 0 : maxSize)
+                .expireAfterWrite(duration, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return cache que sempre consulta o segurança, utilizado pelos filtros
+     * quando não há um cache configurado
+     */
+    public static GumgaAuthorizationCache disabled() {
+        return new GumgaAuthorizationCache(0, 0, Ticker.systemTicker());
+    }
+
+    /**
+     * Retorna a autorização em cache ou consulta o segurança.
+     *
+     * @param version versão do protocolo de autorização (v1 ou v2)
+     * @param softwareId software
+     * @param token token da requisição
+     * @param ip ip da requisição
+     * @param operationKey chave da operação
+     * @param authorize consulta ao segurança
+     * @return resposta da autorização
+     */
+    public Map authorize(String version, String softwareId, String token, String ip, String operationKey, Supplier<Map> authorize) {
+        Key key = new Key(version, softwareId, token, ip, operationKey);
+        Map cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return new HashMap(cached);
+        }
+        Map response = authorize.get();
+        if (response != null && "allow".equals(response.get("response"))) {
+            cache.put(key, new HashMap(response));
+        }
+        return response;
+    }
+
+    /**
+     * Descarta todas as autorizações do token, utilizado no logout.
+     *
+     * @param token token que expirou
+     */
+    public void invalidateToken(String token) {
+        cache.asMap().keySet().removeIf(key -> key.token.equals(token));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return contadores de acertos, faltas e expulsões do cache
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> toReturn = new HashMap<>();
+        toReturn.put("size", cache.size());
+        toReturn.put("hits", stats.hitCount());
+        toReturn.put("misses", stats.missCount());
+        toReturn.put("evictions", stats.evictionCount());
+        toReturn.put("hitRate", stats.hitRate());
+        return toReturn;
+    }
+
+    private static final class Key {
+
+        private final String version;
+        private final String softwareId;
+        private final String token;
+        private final String ip;
+        private final String operationKey;
+
+        private Key(String version, String softwareId, String token, String ip, String operationKey) {
+            this.version = version;
+            this.softwareId = softwareId;
+            this.token = token;
+            this.ip = ip;
+            this.operationKey = operationKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, softwareId, token, ip, operationKey);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(version, other.version) && Objects.equals(softwareId, other.softwareId)
+                    && Objects.equals(token, other.token) && Objects.equals(ip, other.ip)
+                    && Objects.equals(operationKey, other.operationKey);
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package gumga.framework.security;
+
+import gumga.framework.core.utils.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tempos e contadores das requisições por operação e organização, registrados
+ * pelos filtros GumgaRequestFilter e GumgaRequestFilterV2. O tempo total é
+ * dividido na autorização, na gravação do log e no controller; o tempo do
+ * controller termina no postHandle e não inclui a renderização da view ou do
+ * JSON, que fica somente no total. O registro não
+ * usa bloqueios; acima de {@link #MAX_KEYS} combinações as organizações novas
+ * são agrupadas em {@link #OTHERS}.
+ *
+ * @author Equipe Gumga
+ */
+@Component
+public class GumgaRequestMetrics {
+
+    public static final int MAX_KEYS = 1000;
+
+    public static final String OTHERS = "*";
+
+    private static final ThreadLocal<Sample> current = new ThreadLocal<>();
+
+    private final Map<Key, Operation> operations = new ConcurrentHashMap<>();
+
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * Inicia a medição da requisição na thread corrente, no preHandle dos
+     * filtros.
+     *
+     * @return medição da requisição
+     */
+    public static Sample start() {
+        Sample sample = new Sample();
+        current.set(sample);
+        return sample;
+    }
+
+    /**
+     * Marca o fim do controller da requisição corrente, no postHandle dos
+     * filtros.
+     */
+    public static void handled() {
+        Sample sample = current.get();
+        if (sample != null) {
+            sample.handled = System.nanoTime();
+        }
+    }
+
+    /**
+     * Encerra a medição da requisição corrente e a registra.
+     *
+     * @param metrics registro das medições, ou null se não estiver configurado
+     * @param status status http da resposta
+     * @param error exceção não tratada pelo controller
+     */
+    public static void finish(GumgaRequestMetrics metrics, int status, Exception error) {
+        Sample sample = current.get();
+        current.remove();
+        if (metrics != null && sample != null) {
+            metrics.record(sample, status, error);
+        }
+    }
+
+    /**
+     * Registra a requisição medida.
+     *
+     * @param sample medição iniciada no início da requisição
+     * @param status status http da resposta
+     * @param error exceção não tratada pelo controller
+     */
+    public void record(Sample sample, int status, Exception error) {
+        if (sample.operationKey == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        Key key = new Key(sample.operationKey, sample.organizationCode);
+        Operation operation = operations.get(key);
+        if (operation == null) {
+            if (operations.size() >= MAX_KEYS) {
+                key = new Key(sample.operationKey, OTHERS);
+            }
+            operation = operations.computeIfAbsent(key, Operation::new);
+        }
+        operation.total.record(micros(end - sample.start));
+        if (sample.authorize >= 0) {
+            operation.authorize.record(micros(sample.authorize));
+        }
+        if (sample.log >= 0) {
+            operation.log.record(micros(sample.log));
+        }
+        if (sample.handler > 0) {
+            //Sem postHandle o controller lançou uma exceção
+            operation.controller.record(micros((sample.handled > 0 ? sample.handled : end) - sample.handler));
+        }
+        if (!sample.allowed) {
+            operation.denied.increment();
+        } else if (error != null || status >= 500) {
+            operation.errors.increment();
+        }
+    }
+
+    /**
+     * @return estatísticas por operação e organização, das mais lentas (p99)
+     * para as mais rápidas
+     */
+    public List<Map<String, Object>> getStatistics() {
+        double seconds = Math.max(1, System.currentTimeMillis() - since) / 1000d;
+        List<Map<String, Object>> toReturn = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            long count = operation.total.getCount();
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("operationKey", operation.key.operationKey);
+            statistics.put("organizationCode", operation.key.organizationCode);
+            statistics.put("count", count);
+            statistics.put("throughput", count / seconds);
+            statistics.put("errors", operation.errors.sum());
+            statistics.put("errorRate", count == 0 ? 0d : operation.errors.sum() / (double) count);
+            statistics.put("denied", operation.denied.sum());
+            statistics.put("total", operation.total.toMap());
+            statistics.put("authorize", operation.authorize.toMap());
+            statistics.put("log", operation.log.toMap());
+            statistics.put("controller", operation.controller.toMap());
+            toReturn.add(statistics);
+        }
+        toReturn.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) ((Map) m.get("total")).get("p99")).reversed());
+        return toReturn;
+    }
+
+    /**
+     * @return início do período medido
+     */
+    public long getSince() {
+        return since;
+    }
+
+    public void reset() {
+        operations.clear();
+        since = System.currentTimeMillis();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Tempos de uma requisição, preenchidos pelo filtro na thread da
+     * requisição.
+     */
+    public static final class Sample {
+
+        private final long start = System.nanoTime();
+        private long authorize = -1;
+        private long log = -1;
+        private long handler;
+        private long handled;
+        private boolean allowed = true;
+        private String operationKey;
+        private String organizationCode;
+
+        public void operation(String operationKey, String organizationCode) {
+            this.operationKey = operationKey;
+            this.organizationCode = organizationCode;
+        }
+
+        public void authorized(long nanos) {
+            this.authorize = nanos;
+        }
+
+        public void logged(long nanos) {
+            this.log = nanos;
+        }
+
+        /**
+         * Marca o início do controller
+         */
+        public void handling() {
+            this.handler = System.nanoTime();
+        }
+
+        public void denied() {
+            this.allowed = false;
+        }
+    }
+
+    private static final class Key {
+
+        private final String operationKey;
+        private final String organizationCode;
+
+        private Key(String operationKey, String organizationCode) {
+            this.operationKey = operationKey;
+            this.organizationCode = organizationCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operationKey, organizationCode);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(operationKey, other.operationKey) && Objects.equals(organizationCode, other.organizationCode);
+        }
+    }
+
+    private static final class Operation {
+
+        private final Key key;
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram authorize = new LatencyHistogram();
+        private final LatencyHistogram log = new LatencyHistogram();
+        private final LatencyHistogram controller = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder denied = new LongAdder();
+
+        private Operation(Key key) {
+            this.key = key;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package gumga.framework.security;
+
+import com.wordnik.swagger.annotations.ApiOperation;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Consulta dos tempos das requisições registrados em
+ * {@link GumgaRequestMetrics}.
+ *
+ * @author Equipe Gumga
+ */
+@RestController
+@RequestMapping("/api/gumgametrics")
+public class GumgaRequestMetricsAPI {
+
+    @Autowired
+    private GumgaRequestMetrics metrics;
+
+    @ApiOperation(value = "metrics", notes = "Percentis (ms), vazão (req/s) e taxa de erros por operação e organização, das operações mais lentas para as mais rápidas.")
+    @RequestMapping(method = RequestMethod.GET)
+    public Map<String, Object> metrics() {
+        Map<String, Object> toReturn = new LinkedHashMap<>();
+        toReturn.put("since", metrics.getSince());
+        toReturn.put("operations", metrics.getStatistics());
+        return toReturn;
+    }
+
+    @ApiOperation(value = "reset", notes = "Descarta os tempos registrados.")
+    @RequestMapping(method = RequestMethod.DELETE)
+    public void reset() {
+        metrics.reset();
+    }
+
+}
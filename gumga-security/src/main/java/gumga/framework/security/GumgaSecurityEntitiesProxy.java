@@ -20,6 +20,8 @@ public class GumgaSecurityEntitiesProxy {
     private final RestTemplate restTemplate;
     @Autowired
     private GumgaValues gumgaValues;
+    @Autowired(required = false)
+    private GumgaAuthorizationCache authorizationCache;
 
     public GumgaSecurityEntitiesProxy() {
         this.restTemplate = new RestTemplate();
@@ -40,4 +42,13 @@ public class GumgaSecurityEntitiesProxy {
 
         return response;
     }
+
+    @ApiOperation(value = "authorizationCache", notes = "Contadores do cache de autorizações.")
+    @RequestMapping(method = RequestMethod.GET, value = "/authorizationcache")
+    public Map authorizationCache() {
+        if (authorizationCache == null) {
+            return new HashedMap();
+        }
+        return authorizationCache.stats();
+    }
 }
@@ -29,6 +29,8 @@ class GumgaSecurityProxy {
     private final RestTemplate restTemplate;
     @Autowired
     private GumgaValues gumgaValues;
+    @Autowired(required = false)
+    private GumgaAuthorizationCache authorizationCache;
 
     public GumgaSecurityProxy() {
         restTemplate = new RestTemplate();
@@ -51,6 +53,9 @@ class GumgaSecurityProxy {
     public Map delete(@PathVariable String token) {
         String url = gumgaValues.getGumgaSecurityUrl() + "/token/" + token;
         restTemplate.delete(url);
+        if (authorizationCache != null) {
+            authorizationCache.invalidateToken(token);
+        }
         return GumgaSecurityCode.OK.response();
     }
 
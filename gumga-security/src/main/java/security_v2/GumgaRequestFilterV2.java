@@ -1,7 +1,8 @@
 package security_v2;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import gumga.framework.application.GumgaLogService;
+import gumga.framework.application.GumgaLogWriter;
+import gumga.framework.application.GumgaStatementCounter;
 import gumga.framework.core.GumgaThreadScope;
 import gumga.framework.core.GumgaValues;
 import gumga.framework.domain.GumgaLog;
@@ -11,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 import javax.servlet.http.HttpServletRequest;
@@ -31,12 +33,16 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
     private ObjectMapper mapper;
 
     @Autowired
-    private GumgaLogService gls;
+    private GumgaLogWriter logWriter;
 
     @Autowired
     private GumgaValues gumgaValues;
 
-    private ThreadLocal<Long> tempo = new ThreadLocal<>();
+    @Autowired(required = false)
+    private GumgaRequestMetrics metrics;
+
+    @Autowired(required = false)
+    private GumgaAuthorizationCache authorizationCache = GumgaAuthorizationCache.disabled();
 
     @Autowired(required = false)
     private ApiOperationTranslator aot = (url, method) -> "NOOP";
@@ -63,7 +69,8 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object o) throws Exception {
-        tempo.set(System.currentTimeMillis());
+        GumgaRequestMetrics.Sample sample = GumgaRequestMetrics.start();
+        GumgaStatementCounter.begin(gumgaValues.getRepeatedStatementLimit(), gumgaValues.isRepeatedStatementFailure());
         String token;
         String errorMessage = "Error";
         String errorResponse = GumgaSecurityCode.SECURITY_INTERNAL_ERROR.toString();
@@ -105,15 +112,22 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
                 }
                 operationKey = apiName + "_" + hm.getMethod().getName();
             }
+            sample.operation(operationKey, null);
             if (endPoint.contains("public") || endPoint.contains("api-docs")) {
+                long logStart = System.nanoTime();
                 saveLog(new AuthorizatonResponse("allow", "public", "public", "public", "public", "public", null), request, operationKey, endPoint, method, true);
+                sample.logged(System.nanoTime() - logStart);
+                sample.handling();
                 return true;
             }
 
             String url = gumgaValues.getGumgaSecurityUrl() + "/token/authorize/" + softwareId + "/" + token + "/" + request.getRemoteAddr() + "/" + operationKey + "?version=v2";
 
 //            ar = restTemplate.getForObject(url, AuthorizatonResponse.class);
-            Map authorizatonResponse = restTemplate.getForObject(url, Map.class);
+            Map authorizatonResponse;
+            long authorizeStart = System.nanoTime();
+            authorizatonResponse = authorizationCache.authorize("v2", softwareId, token, request.getRemoteAddr(), operationKey, () -> restTemplate.getForObject(url, Map.class));
+            sample.authorized(System.nanoTime() - authorizeStart);
 
             ar = new AuthorizatonResponse(authorizatonResponse);
 
@@ -129,10 +143,15 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
             GumgaThreadScope.ip.set(request.getRemoteAddr());
             GumgaThreadScope.softwareName.set(softwareId);
 
+            sample.operation(operationKey, ar.getOrganizationCode());
+            long logStart = System.nanoTime();
             saveLog(ar, request, operationKey, endPoint, method, ar.isAllowed());
+            sample.logged(System.nanoTime() - logStart);
             if (ar.isAllowed()) {
+                sample.handling();
                 return true;
             } else {
+                sample.denied();
                 errorMessage = ar.toString();
                 errorResponse = ar.getResponse();
             }
@@ -146,6 +165,7 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
         resposta.put("response", ar.getResponse());
         resposta.put("operation", operationKey);
         mapper.writeValue(response.getOutputStream(), resposta);
+        record(response, null);
 
         //response.getOutputStream().write(("Error:" + errorMessage).getBytes());
         return false;
@@ -155,7 +175,7 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
         if (gumgaValues.isLogActive()) {
             GumgaLog gl = new GumgaLog(ar.getLogin(), request.getRemoteAddr(), ar.getOrganizationCode(),
                     ar.getOrganization(), softwareId, operationKey, endPoint, method, allowed);
-            gls.save(gl);
+            logWriter.write(gl);
         }
         if (gumgaValues.isLogRequestOnConsole()) {
             String contextRoot = request.getContextPath();
@@ -171,13 +191,18 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
         if (gumgaValues.isLogActive()) {
             GumgaLog gl = new GumgaLog(ar.getLogin(), requset.getRemoteAddr(), ar.getOrganizationCode(),
                     ar.getOrganization(), softwareId, operationKey, endPoint, method, a);
-            gls.save(gl);
+            logWriter.write(gl);
         }
     }
 
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) throws Exception {
+        GumgaRequestMetrics.handled();
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        tempo.remove();
+        record(response, ex);
         GumgaThreadScope.ip.remove();
         GumgaThreadScope.login.remove();
         GumgaThreadScope.organization.remove();
@@ -186,4 +211,20 @@ public class GumgaRequestFilterV2 extends HandlerInterceptorAdapter {
         GumgaThreadScope.organizationId.remove();
     }
 
+    /**
+     * Registra os tempos da requisição em {@link GumgaRequestMetrics} e
+     * encerra a contagem de instruções SQL, registrando no log as instruções
+     * repetidas; a resposta já foi escrita, então o modo de falha só atua ao
+     * preparar as instruções. O afterCompletion não é chamado
+     * quando o preHandle recusa a requisição.
+     */
+    private void record(HttpServletResponse response, Exception ex) {
+        try {
+            GumgaStatementCounter.check(gumgaValues.getRepeatedStatementLimit(), false);
+        } finally {
+            GumgaStatementCounter.end();
+        }
+        GumgaRequestMetrics.finish(metrics, response.getStatus(), ex);
+    }
+
 }
@@ -0,0 +1,110 @@
+package gumga.framework.security;
+
+import com.google.common.base.Ticker;
+import gumga.framework.core.GumgaValues;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class GumgaAuthorizationCacheTest {
+
+    private static final long MINUTO = 60 * 1000;
+
+    private final AtomicLong agora = new AtomicLong();
+
+    private final Ticker relogio = new Ticker() {
+        @Override
+        public long read() {
+            return agora.get();
+        }
+    };
+
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    private Map consulta(String response) {
+        consultas.incrementAndGet();
+        Map toReturn = new HashMap();
+        toReturn.put("response", response);
+        return toReturn;
+    }
+
+    private Map autoriza(GumgaAuthorizationCache cache, String version, String token, String ip, String operationKey) {
+        return cache.authorize(version, "software", token, ip, operationKey, () -> consulta("allow"));
+    }
+
+    @Test
+    public void reaproveitaSomenteAMesmaChave() {
+        GumgaAuthorizationCache cache = new GumgaAuthorizationCache(5 * MINUTO, 100, relogio);
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        assertEquals(1, consultas.get());
+
+        autoriza(cache, "v2", "token", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v1", "outro", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v1", "token", "10.0.0.1", "CAR_LIST");
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_SAVE");
+        cache.authorize("v1", "outro software", "token", "127.0.0.1", "CAR_LIST", () -> consulta("allow"));
+        assertEquals(6, consultas.get());
+    }
+
+    @Test
+    public void expiraNoMenorTempoEntreOTokenECincoMinutos() {
+        assertEquals(5 * MINUTO, new GumgaValues() {
+        }.getAuthorizationCacheDuration());
+        assertEquals(2 * MINUTO, new GumgaValues() {
+            @Override
+            public long getDefaultTokenDuration() {
+                return 2 * MINUTO;
+            }
+        }.getAuthorizationCacheDuration());
+
+        GumgaAuthorizationCache cache = new GumgaAuthorizationCache(new GumgaValues() {
+        }.getAuthorizationCacheDuration(), 100, relogio);
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        agora.addAndGet(TimeUnit.MILLISECONDS.toNanos(5 * MINUTO - 1));
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        assertEquals(1, consultas.get());
+
+        agora.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    public void naoGuardaAutorizacoesNegadas() {
+        GumgaAuthorizationCache cache = new GumgaAuthorizationCache(5 * MINUTO, 100, relogio);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("deny", cache.authorize("v1", "software", "token", "127.0.0.1", "CAR_LIST", () -> consulta("deny")).get("response"));
+        }
+        cache.authorize("v1", "software", "token", "127.0.0.1", "CAR_LIST", () -> null);
+        assertEquals(2, consultas.get());
+        assertEquals(0L, cache.stats().get("size"));
+    }
+
+    @Test
+    public void descartaAsAutorizacoesDoTokenNoLogout() {
+        GumgaAuthorizationCache cache = new GumgaAuthorizationCache(5 * MINUTO, 100, relogio);
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v2", "token", "127.0.0.1", "CAR_SAVE");
+        autoriza(cache, "v1", "outro", "127.0.0.1", "CAR_LIST");
+
+        cache.invalidateToken("token");
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v2", "token", "127.0.0.1", "CAR_SAVE");
+        autoriza(cache, "v1", "outro", "127.0.0.1", "CAR_LIST");
+        assertEquals(5, consultas.get());
+    }
+
+    @Test
+    public void semCacheSempreConsultaOSeguranca() {
+        GumgaAuthorizationCache cache = GumgaAuthorizationCache.disabled();
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        autoriza(cache, "v1", "token", "127.0.0.1", "CAR_LIST");
+        assertEquals(2, consultas.get());
+    }
+
+}